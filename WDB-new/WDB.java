@@ -6,6 +6,7 @@
  */
 package wdb;
 
+import com.sleepycat.je.Durability;
 import com.thinkaurelius.titan.core.*;
 import com.thinkaurelius.titan.core.attribute.Geoshape;
 import com.thinkaurelius.titan.core.schema.ConsistencyModifier;
@@ -35,7 +36,11 @@ public class WDB {
 	private static QueryParser parser;
 	private static SleepyCatDataBase db;
 	private static BufferedReader in;
-    //private static PrintStream object, relationship, retrieval;
+    //Shell settings, changed with SET FORMAT = table|tsv|json; and SET GREMLIN = TRUE|FALSE;
+    //SET PARALLELISM = n; sets the threads unindexed searches of the session use
+    private static String outputFormat = ResultRenderer.TABLE;
+    //Gremlin scripts replaying the statements, written only while SET GREMLIN = TRUE
+    private static PrintStream object, relationship, retrieval;
     public static final String INDEX_NAME = "search";
     public static TitanGraph graph = null;
     public static GraphTraversalSource g = null;
@@ -55,35 +60,25 @@ public class WDB {
         if (!dbDir.exists()) {
             dbDir.mkdir();
         }
-//        try {
-            //object = new PrintStream(new File("object.txt"));
-//            relationship = new PrintStream(new File("relationship.txt"));
-//            retrieval = new PrintStream(new File("retrieval.txt"));
             TitanFactory.Builder config = TitanFactory.build();
             config.set("storage.backend", "berkeleyje");
             config.set("storage.directory", "../db/cannata");
             graph = config.open();
-//            object.println("graph = TitanFactory.open(\'../conf/cannata.properties\')");
-//            relationship.println("graph = TitanFactory.open(\'../conf/cannata.properties\')");
-//            retrieval.println("graph = TitanFactory.open(\'../conf/cannata.properties\')");
             g = graph.traversal();
-//            object.println("g = graph.traversal(standard())");
-//            relationship.println("g = graph.traversal(standard())");
-//            retrieval.println("g = graph.traversal(standard())");
-//            relationship.println("tx = graph.newTransaction()");
-//            retrieval.println("def getEdgeInfo(id, rname, attr) { TitanFactory.open('../conf/cannata.properties').traversal(standard()).E().has(T.label, rname).filter{ it.get().getVertex(0).id() == id}.next().getVertex(1).values(attr).next() }");
-//        } catch (FileNotFoundException e) {
-//            e.printStackTrace();
-//            System.exit(1);
-//        }
 
         try {
-            db = new SleepyCatDataBase(dbDir.toString());
+            //JE tuning comes from INSTANCE_ROOT/wdb.properties and -D options, see SleepyCatEnvironmentProfile
+            SleepyCatEnvironmentProfile profile = SleepyCatEnvironmentProfile.load(new File(installRootDir, "wdb.properties"));
+            db = new SleepyCatDataBase(dbDir.toString(), profile);
             db.openDb("test");
 
             System.out.println("WDB Simantic Database Project");
             System.out.println("Copyright 2006 University of Texas at Austin");
             System.out.println("DB Name: " + db.dbName + " DB Path: " + db.fileName);
+            db.printSettings(System.out);
+            if (db.getOrphanedObjects() > 0) {
+                System.out.println("UPGRADE: " + db.getOrphanedObjects() + " objects of undefined classes were left in the old format");
+            }
 
             WDB.in = new BufferedReader(new InputStreamReader(System.in));
             WDB.parser = new QueryParser(WDB.in);
@@ -118,19 +113,13 @@ public class WDB {
         } catch (Exception e) {
             System.out.println(e.getMessage());
         } finally {
-//            relationship.println("tx.commit()");
             if (tx != null) {
                 tx.commit();
             }
             if (graph != null) {
                 graph.close();
             }
-//            object.println("graph.close()");
-//            relationship.println("graph.close()");
-//            retrieval.println("graph.close()");
-//            object.close();
-//            relationship.close();
-//            retrieval.close();
+            closeGremlinScripts();
             try {
                 db.closeDb();
             } catch (Exception e) {
@@ -139,9 +128,50 @@ public class WDB {
         }
     }
 
+    /**
+     * Opens object.txt, relationship.txt and retrieval.txt in the working
+     * directory and starts the Gremlin script each statement is added to.
+     */
+    static private void openGremlinScripts() throws FileNotFoundException {
+        object = new PrintStream(new File("object.txt"));
+        relationship = new PrintStream(new File("relationship.txt"));
+        retrieval = new PrintStream(new File("retrieval.txt"));
+        object.println("graph = TitanFactory.open(\'../conf/cannata.properties\')");
+        relationship.println("graph = TitanFactory.open(\'../conf/cannata.properties\')");
+        retrieval.println("graph = TitanFactory.open(\'../conf/cannata.properties\')");
+        object.println("g = graph.traversal(standard())");
+        relationship.println("g = graph.traversal(standard())");
+        retrieval.println("g = graph.traversal(standard())");
+        relationship.println("tx = graph.newTransaction()");
+        retrieval.println("def getEdgeInfo(id, rname, attr) { TitanFactory.open('../conf/cannata.properties').traversal(standard()).E().has(T.label, rname).filter{ it.get().getVertex(0).id() == id}.next().getVertex(1).values(attr).next() }");
+    }
+
+    static private void closeGremlinScripts() {
+        if (object == null) {
+            return;
+        }
+        relationship.println("tx.commit()");
+        object.println("graph.close()");
+        relationship.println("graph.close()");
+        retrieval.println("graph.close()");
+        object.close();
+        relationship.close();
+        retrieval.close();
+        object = null;
+        relationship = null;
+        retrieval = null;
+    }
+
     static private void processSourceQuery(SourceQuery sq) {
+        SleepyCatDataAdapter bulk = null;
+        long start = System.currentTimeMillis();
+        int rows = 0;
         try {
             QueryParser.ReInit(new FileReader(sq.filename));
+            if (sq.bulk) {
+                //Group the statements in large transactions and rebuild the indexes at the end
+                bulk = db.beginBulkLoad(sq.batchSize, getDurability(sq.durability));
+            }
             Query fq;
             while (true) {
                 fq = parser.getNextQuery();
@@ -150,6 +180,15 @@ public class WDB {
                 } else {
                     processQuery(fq);
                 }
+                if (bulk != null) {
+                    if (bulk.getRolledBackStatements() > 0) {
+                        System.out.println("BULK LOAD ERROR: Rolled back " + bulk.getRolledBackStatements() + " statements since the last commit, stopping");
+                        break;
+                    }
+                    if (fq.getClass() == InsertQuery.class && ++rows % Math.max(sq.batchSize, 1) == 0) {
+                        printBulkLoadRate(rows, start);
+                    }
+                }
             }
         } catch (FileNotFoundException e) {
             System.out.println("FILE OPEN ERROR: " + e.getMessage());
@@ -157,11 +196,38 @@ public class WDB {
             System.out.println("SYNTAX ERROR: " + pe.getMessage());
         } catch (TokenMgrError tme) {
             System.out.println("PARSER ERROR: " + tme.getMessage());
+        } catch (Exception e) {
+            System.out.println("BULK LOAD ERROR: " + e.getMessage());
         } finally {
+            if (bulk != null) {
+                try {
+                    printBulkLoadRate(rows, start);
+                    long loaded = System.currentTimeMillis();
+                    db.endBulkLoad();
+                    System.out.println("BULK LOAD: " + bulk.getCommittedStatements() + " statements committed, indexes rebuilt in " + (System.currentTimeMillis() - loaded) + " ms");
+                } catch (Exception e) {
+                    System.out.println("BULK LOAD ERROR: " + e.getMessage());
+                }
+            }
             QueryParser.ReInit(WDB.in);
         }
     }
 
+    private static Durability getDurability(String durability) {
+        if ("NO_SYNC".equals(durability)) {
+            return Durability.COMMIT_NO_SYNC;
+        }
+        if ("WRITE_NO_SYNC".equals(durability)) {
+            return Durability.COMMIT_WRITE_NO_SYNC;
+        }
+        return null;
+    }
+
+    private static void printBulkLoadRate(int rows, long start) {
+        long elapsed = Math.max(System.currentTimeMillis() - start, 1);
+        System.out.println("BULK LOAD: " + rows + " rows, " + (rows * 1000L / elapsed) + " rows/sec");
+    }
+
     static private void processClassDef(ClassDef cd) {
         try {
             SleepyCatDataAdapter da = db.newTransaction();
@@ -183,6 +249,8 @@ public class WDB {
                                 throw new Exception("Super classes of class \"" + cd.name + "\" do not share the same base class");
                             }
                         }
+                        //Stored with the class so subclass checks do not walk the hierarchy
+                        ((SubclassDef) cd).getAncestors(da);
                     }
 
                     da.putClass(cd);
@@ -200,30 +268,32 @@ public class WDB {
     static private void processModifyQuery(ModifyQuery mq) {
 
         String className = mq.className;
-        final List<String> startVertices = getGremlinExpression("g.V().has(T.label, \'" + className + "\')", mq.expression);
+        if (relationship != null) {
+            final List<String> startVertices = getGremlinExpression("g.V().has(T.label, \'" + className + "\')", mq.expression);
 
 
-        for (Assignment a : mq.assignmentList) {
-            if (a instanceof EvaAssignment) {
-                EvaAssignment eva = (EvaAssignment)a;
-                final List<String> endVertices = getGremlinExpression("g.V().has(T.label, \'" + eva.targetClass + "\')", eva.expression);
-                for (int i = 0; i < startVertices.size(); i++) {
-                    String vertex = startVertices.get(i);
-                    startVertices.set(i, String.format("tx.getVertex(%s.id().next())", vertex));
-                }
-                for (int i = 0; i < endVertices.size(); i++) {
-                    String vertex = endVertices.get(i);
-                    endVertices.set(i, String.format(".addEdge(\"%s\", tx.getVertex(%s.id().next()))", eva.AttributeName, vertex));
-                }
-                List<String> outputs = new ArrayList<>();
-                crossProduct(new ArrayList<List<String>>() {
-                    {
-                        add(startVertices);
-                        add(endVertices);
+            for (Assignment a : mq.assignmentList) {
+                if (a instanceof EvaAssignment) {
+                    EvaAssignment eva = (EvaAssignment)a;
+                    final List<String> endVertices = getGremlinExpression("g.V().has(T.label, \'" + eva.targetClass + "\')", eva.expression);
+                    for (int i = 0; i < startVertices.size(); i++) {
+                        String vertex = startVertices.get(i);
+                        startVertices.set(i, String.format("tx.getVertex(%s.id().next())", vertex));
+                    }
+                    for (int i = 0; i < endVertices.size(); i++) {
+                        String vertex = endVertices.get(i);
+                        endVertices.set(i, String.format(".addEdge(\"%s\", tx.getVertex(%s.id().next()))", eva.AttributeName, vertex));
+                    }
+                    List<String> outputs = new ArrayList<>();
+                    crossProduct(new ArrayList<List<String>>() {
+                        {
+                            add(startVertices);
+                            add(endVertices);
+                        }
+                    }, 0, outputs, "");
+                    for (String output : outputs) {
+                        relationship.println(output);
                     }
-                }, 0, outputs, "");
-                for (String output : outputs) {
-                    relationship.println(output);
                 }
             }
         }
@@ -291,6 +361,8 @@ public class WDB {
 
                 if (newObject != null) {
                     newObject.commit(da);
+                }
+                if (newObject != null && object != null) {
                     String assignmentString = "graph.addVertex(T.label, \'" + newObject.getClassDef(da).name + "\'";
                     for (Assignment a : iq.assignmentList) {
                         // TODO: handle EvaAssignment
@@ -319,7 +391,11 @@ public class WDB {
                 ClassDef classDef = da.getClass(indexQ.className);
                 classDef.addIndex(indexQ, da);
 
-                db.openSecDb(indexQ);
+                if (indexQ.isBitmap()) {
+                    db.openBitmapIndex(indexQ);
+                } else {
+                    db.openSecDb(indexQ);
+                }
 
                 da.commit();
             } catch (Exception e) {
@@ -332,145 +408,19 @@ public class WDB {
     }
 
     static private void processRetrieveQuery(RetrieveQuery rq) {
+        if (rq.explain) {
+            processExplainQuery(rq);
+            return;
+        }
+        if (rq.numAttributePaths() == 0) {
+            return;
+        }
 
         try {
-            SleepyCatDataAdapter da = db.newTransaction();
-            try {
-                ClassDef targetClass = da.getClass(rq.className);
-                da.commit();
-                String retrieveString = "g.V().has(T.label, \'" + targetClass.name + "\')";
-                if (rq.numAttributePaths() == 0) {
-                    return;
-                }
-                final List<String> prefixes;
-                if (rq.expression == null) {
-                    prefixes = Arrays.asList(retrieveString);
-                } else {
-                    prefixes = getGremlinExpression(retrieveString, rq.expression);
-                }
-                String output = ".map{ ";
-                Map<ArrayList, Boolean> hasStars = new HashMap<>();
-                for (int i = 0; i < rq.numAttributePaths(); i++) {
-                    AttributePath path = rq.getAttributePath(i);
-                    if (path.attribute.equals("*")) {
-                        hasStars.put(path.path, true);
-                    }
-                }
-                final List<String> outputs = new ArrayList<>();
-                boolean first = true;
-                for (int i = 0; i < rq.numAttributePaths(); i++) {
-                    AttributePath path = rq.getAttributePath(i);
-                    String attr = path.attribute;
-                    if (hasStars.containsKey(path.path)) {
-                        if (hasStars.get(path.path)) {
-                            // TODO: figure out what to do here
-                            if (path.path.isEmpty()) {
-                                outputs.add(".valueMap()");
-                            }
-                            hasStars.put(path.path, false);
-                        }
-                    } else if (path.path.isEmpty()) {
-                        if (first) {
-                            first = false;
-                        } else {
-                            output += "+ \" | \" + ";
-                        }
-                        output += "it.get().value(\'" + attr + "\') ";
-                    } else {
-                        if (first) {
-                            first = false;
-                        } else {
-                            output += "+ \" | \" + ";
-                        }
-                        output += "getEdgeInfo( it.get().id(), \'" + path.path.get(0) + "\', \'" + attr + "\') ";
-                    }
-                }
-                output += "}";
-                outputs.add(output);
-                List<String> res = new ArrayList<>();
-                crossProduct(new ArrayList<List<String>>() {
-                    {
-                        add(prefixes);
-                        add(outputs);
-                    }
-                }, 0, res, "");
-                for (String line : res) {
-                    retrieval.println(line);
-                }
-                //*/
-                    /*
-                    for (int i = 0; i < rq.numAttributePaths(); i++) {
-                        String attr = rq.getAttributePath(i).attribute;
-                        if (attr.equals("*")) {
-                            out.println(retrieveString + "valueMap()");
-                        } else {
-                            out.println(retrieveString + "map{ it.get().value(\'" + attr + "\') }");
-                        }
-                    }
-                    //*/
-                    /*
-					ClassDef targetClass = da.getClass(rq.className);
-					WDBObject[] targetClassObjs = targetClass.search(rq.expression, da);
-					int i, j;
-					String[][] table;
-					String[][] newtable;
-
-					PrintNode node = new PrintNode(0,0);
-					for(j = 0; j < rq.numAttributePaths(); j++)
-					{
-						targetClass.printAttributeName(node, rq.getAttributePath(j), da);
-                        System.out.println(rq.getAttributePath(j).path);
-                        System.out.println(rq.getAttributePath(j).attribute);
-                        System.out.println(rq.getAttributePath(j).className);
-					}
-					table = node.printRow();
-					for(i = 0; i < targetClassObjs.length; i++)
-					{
-						node = new PrintNode(0,0);
-						for(j = 0; j < rq.numAttributePaths(); j++)
-						{
-							targetClassObjs[i].PrintAttribute(node, rq.getAttributePath(j), da);
-						}
-						newtable = joinRows(table, node.printRow());
-						table = newtable;
-					}
-
-					da.commit();
-
-					Integer[] columnWidths= new Integer[table[0].length];
-
-					for(i = 0; i < columnWidths.length; i++)
-					{
-						columnWidths[i] = 0;
-						for(j = 0; j < table.length; j++)
-						{
-							if(i < table[j].length && table[j][i] != null && table[j][i].length() > columnWidths[i])
-							{
-								columnWidths[i] = table[j][i].length();
-							}
-						}
-					}
-
-					for(i = 0; i < table.length; i++)
-					{
-						for(j = 0; j < table[0].length; j++)
-						{
-							if(j >= table[i].length || table[i][j] == null)
-							{
-								System.out.format("| %"+columnWidths[j].toString()+"s ", "");
-							}
-							else
-							{
-								System.out.format("| %"+columnWidths[j].toString()+"s ", table[i][j]);
-							}
-						}
-						System.out.format("|%n");
-					}
-					//*/
-            } catch (Exception e) {
-                System.out.println(e.toString());
-                da.abort();
+            if (retrieval != null) {
+                printRetrieveScript(rq);
             }
+            printRetrieveResults(rq);
         } catch (Exception e) {
             System.out.println(e.toString());
         }
@@ -527,7 +477,78 @@ public class WDB {
         }*/
     }
 
+    /**
+     * Writes the Gremlin traversals answering a RETRIEVE to retrieval.txt.
+     */
+    static private void printRetrieveScript(RetrieveQuery rq) {
+        String retrieveString = "g.V().has(T.label, \'" + rq.className + "\')";
+        final List<String> prefixes;
+        if (rq.expression == null) {
+            prefixes = Arrays.asList(retrieveString);
+        } else {
+            prefixes = getGremlinExpression(retrieveString, rq.expression);
+        }
+        if (rq.limit > -1) {
+            for (int i = 0; i < prefixes.size(); i++) {
+                prefixes.set(i, prefixes.get(i) + ".limit(" + rq.limit + ")");
+            }
+        }
+        String output = ".map{ ";
+        Map<ArrayList, Boolean> hasStars = new HashMap<>();
+        for (int i = 0; i < rq.numAttributePaths(); i++) {
+            AttributePath path = rq.getAttributePath(i);
+            if (path.attribute.equals("*")) {
+                hasStars.put(path.path, true);
+            }
+        }
+        final List<String> outputs = new ArrayList<>();
+        boolean first = true;
+        for (int i = 0; i < rq.numAttributePaths(); i++) {
+            AttributePath path = rq.getAttributePath(i);
+            String attr = path.attribute;
+            if (hasStars.containsKey(path.path)) {
+                if (hasStars.get(path.path)) {
+                    // TODO: figure out what to do here
+                    if (path.path.isEmpty()) {
+                        outputs.add(".valueMap()");
+                    }
+                    hasStars.put(path.path, false);
+                }
+            } else if (path.path.isEmpty()) {
+                if (first) {
+                    first = false;
+                } else {
+                    output += "+ \" | \" + ";
+                }
+                output += "it.get().value(\'" + attr + "\') ";
+            } else {
+                if (first) {
+                    first = false;
+                } else {
+                    output += "+ \" | \" + ";
+                }
+                output += "getEdgeInfo( it.get().id(), \'" + path.path.get(0) + "\', \'" + attr + "\') ";
+            }
+        }
+        output += "}";
+        outputs.add(output);
+        List<String> res = new ArrayList<>();
+        crossProduct(new ArrayList<List<String>>() {
+            {
+                add(prefixes);
+                add(outputs);
+            }
+        }, 0, res, "");
+        for (String line : res) {
+            retrieval.println(line);
+        }
+    }
+
 	static private void processQuery(Query q) {
+        if (q.getClass() != StatsQuery.class && q.getClass() != SetQuery.class) {
+            db.startQueryStats();
+        }
+
         if (q.getClass() == SourceQuery.class) {
             SourceQuery sq = (SourceQuery) q;
             processSourceQuery(sq);
@@ -556,6 +577,128 @@ public class WDB {
             RetrieveQuery rq = (RetrieveQuery) q;
             processRetrieveQuery(rq);
         }
+        if (q.getClass() == StatsQuery.class) {
+            processStatsQuery();
+        }
+        if (q.getClass() == SetQuery.class) {
+            processSetQuery((SetQuery) q);
+        }
+    }
+
+    /**
+     * Prints the rows of a RETRIEVE as the objects are read: each matching
+     * object is projected and handed to the renderer before the next one is
+     * looked at, so only one object's rows are held, plus the sample window
+     * the table format sizes its columns from.
+     */
+    static private void printRetrieveResults(RetrieveQuery rq) throws Exception {
+        ResultRenderer renderer = ResultRenderer.forFormat(outputFormat, System.out);
+        SleepyCatDataAdapter da = db.newTransaction();
+        SearchCursor cursor = null;
+        try {
+            ClassDef targetClass = da.getClass(rq.className);
+            RowGroup header = new RowGroup();
+            for (int j = 0; j < rq.numAttributePaths(); j++) {
+                targetClass.printAttributeName(header, rq.getAttributePath(j), da);
+            }
+            int columns = header.getColumnCount();
+            String[] columnNames = new String[columns];
+            header.fillRow(0, columnNames);
+            renderer.header(columnNames);
+
+            cursor = targetClass.open(rq.expression, da, null, rq.limit);
+            WDBObject object;
+            while ((object = cursor.next()) != null) {
+                RowGroup row = new RowGroup();
+                for (int j = 0; j < rq.numAttributePaths(); j++) {
+                    object.PrintAttribute(row, rq.getAttributePath(j), da);
+                }
+                row.writeTo(renderer, columns);
+            }
+            cursor.close();
+            da.commit();
+        } catch (Exception e) {
+            if (cursor != null) {
+                cursor.close();
+            }
+            da.abort();
+            throw e;
+        } finally {
+            renderer.finish();
+        }
+    }
+
+    static private void processExplainQuery(RetrieveQuery rq) {
+        try {
+            SleepyCatDataAdapter da = db.newTransaction();
+            try {
+                ClassDef targetClass = da.getClass(rq.className);
+                QueryPlan plan = new QueryPlan();
+                //Read the objects the way RETRIEVE does, without printing them
+                SearchCursor cursor = targetClass.open(rq.expression, da, plan, rq.limit);
+                try {
+                    while (cursor.next() != null) {
+                    }
+                } finally {
+                    cursor.close();
+                }
+                da.commit();
+                plan.print(System.out);
+            } catch (Exception e) {
+                System.out.println(e.toString());
+                da.abort();
+            }
+        } catch (Exception e) {
+            System.out.println(e.toString());
+        }
+    }
+
+    static private void processSetQuery(SetQuery sq) {
+        try {
+            if (sq.name.equalsIgnoreCase("FORMAT")) {
+                //Fails on an unknown format before it is kept
+                ResultRenderer.forFormat(sq.value, System.out);
+                outputFormat = sq.value;
+            } else if (sq.name.equalsIgnoreCase("GREMLIN")) {
+                if (sq.value.equalsIgnoreCase("TRUE")) {
+                    if (object == null) {
+                        openGremlinScripts();
+                    }
+                } else if (sq.value.equalsIgnoreCase("FALSE")) {
+                    closeGremlinScripts();
+                } else {
+                    throw new IllegalArgumentException("GREMLIN is TRUE or FALSE, not " + sq.value);
+                }
+            } else if (sq.name.equalsIgnoreCase("PARALLELISM")) {
+                int threads;
+                try {
+                    threads = Integer.parseInt(sq.value);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("PARALLELISM is a number of threads, not " + sq.value);
+                }
+                if (threads < 1) {
+                    throw new IllegalArgumentException("PARALLELISM must be at least 1");
+                }
+                db.setScanParallelism(threads);
+            } else {
+                throw new IllegalArgumentException("Unknown setting " + sq.name);
+            }
+        } catch (Exception e) {
+            System.out.println("SET ERROR: " + e.getMessage());
+        }
+    }
+
+    static private void processStatsQuery() {
+        try {
+            System.out.println("JE environment:");
+            SleepyCatStats.printEnvironmentStats(db.getEnvironmentStats(false), System.out);
+            System.out.println("Last query:");
+            db.getQueryStats().print(System.out);
+            System.out.println("Session:");
+            db.getTotalStats().print(System.out);
+        } catch (Exception e) {
+            System.out.println(e.toString());
+        }
     }
 
     private static List<String> getGremlinExpression(final String prefix, final Node expr) {
@@ -0,0 +1,263 @@
+package wdb;
+
+import wdb.metadata.IndexDef;
+import wdb.metadata.IndexRange;
+import wdb.metadata.WDBObject;
+
+import com.sleepycat.je.Cursor;
+import com.sleepycat.je.Database;
+import com.sleepycat.je.DatabaseEntry;
+import com.sleepycat.je.LockMode;
+import com.sleepycat.je.OperationStatus;
+import com.sleepycat.je.Transaction;
+
+import org.roaringbitmap.RoaringBitmap;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.*;
+
+/**
+ * Index that keeps one compressed bitmap of class ordinals per indexed value
+ * instead of one secondary record per object. Meant for DVAs with few
+ * distinct values, where the bitmaps of several conditions can be combined
+ * without touching the objects.
+ *
+ * Each bitmap is split in chunks of 2^CHUNK_BITS ordinals so an insert only
+ * rewrites the chunk it lands in. The key of a chunk is the index key of the
+ * values followed by the chunk number, so all chunks of a value lie together.
+ */
+public class SleepyCatBitmapIndex {
+	public static final int CHUNK_BITS = 16;
+
+	private IndexDef index;
+	private Database db;
+
+	public SleepyCatBitmapIndex(IndexDef index, Database db)
+	{
+		this.index = index;
+		this.db = db;
+	}
+
+	public IndexDef getIndex()
+	{
+		return this.index;
+	}
+
+	public Database getDb()
+	{
+		return this.db;
+	}
+
+	/**
+	 * @return the values of the indexed DVAs, or null if the object is not
+	 * covered by this index
+	 */
+	public Object[] getValues(WDBObject object) throws Exception
+	{
+		if(object == null || !object.getClassName().equals(this.index.className))
+		{
+			return null;
+		}
+		ArrayList<String> dvas = this.index.getDvas();
+		Object[] values = new Object[dvas.size()];
+		for(int i = 0; i < dvas.size(); i++)
+		{
+			values[i] = object.getImmDvaValue(dvas.get(i));
+		}
+		return values;
+	}
+
+	/**
+	 * Moves an ordinal from the bitmap of the old values of its object to the
+	 * bitmap of the new ones. Either may be null.
+	 */
+	public void update(Transaction txn, int ordinal, Object[] oldValues, Object[] newValues) throws Exception
+	{
+		if(oldValues != null && newValues != null && Arrays.equals(oldValues, newValues))
+		{
+			return;
+		}
+
+		//Autocommit writes can not hold a read lock until the put
+		LockMode lockMode = (txn == null) ? LockMode.DEFAULT : LockMode.RMW;
+		DatabaseEntry theKey = new DatabaseEntry();
+		DatabaseEntry theData = new DatabaseEntry();
+		if(oldValues != null)
+		{
+			chunkKey(oldValues, ordinal >>> CHUNK_BITS, theKey);
+			if(this.db.get(txn, theKey, theData, lockMode) == OperationStatus.SUCCESS)
+			{
+				RoaringBitmap chunk = readBitmap(theData);
+				chunk.remove(ordinal);
+				if(chunk.isEmpty())
+				{
+					this.db.delete(txn, theKey);
+				}
+				else
+				{
+					writeBitmap(chunk, theData);
+					this.db.put(txn, theKey, theData);
+				}
+			}
+		}
+		if(newValues != null)
+		{
+			chunkKey(newValues, ordinal >>> CHUNK_BITS, theKey);
+			RoaringBitmap chunk;
+			if(this.db.get(txn, theKey, theData, lockMode) == OperationStatus.SUCCESS)
+			{
+				chunk = readBitmap(theData);
+			}
+			else
+			{
+				chunk = new RoaringBitmap();
+			}
+			chunk.add(ordinal);
+			writeBitmap(chunk, theData);
+			this.db.put(txn, theKey, theData);
+		}
+	}
+
+	/**
+	 * Stores the whole bitmap of some values, replacing the chunks it covers.
+	 * Used to fill a new index in one pass.
+	 */
+	public void put(Transaction txn, Object[] values, RoaringBitmap ordinals) throws Exception
+	{
+		DatabaseEntry theKey = new DatabaseEntry();
+		DatabaseEntry theData = new DatabaseEntry();
+		RoaringBitmap chunk = new RoaringBitmap();
+		int chunkNumber = -1;
+		int ordinal;
+		for(Iterator<Integer> i = ordinals.iterator(); i.hasNext(); )
+		{
+			ordinal = i.next().intValue();
+			if((ordinal >>> CHUNK_BITS) != chunkNumber)
+			{
+				if(!chunk.isEmpty())
+				{
+					chunkKey(values, chunkNumber, theKey);
+					writeBitmap(chunk, theData);
+					this.db.put(txn, theKey, theData);
+					chunk = new RoaringBitmap();
+				}
+				chunkNumber = ordinal >>> CHUNK_BITS;
+			}
+			chunk.add(ordinal);
+		}
+		if(!chunk.isEmpty())
+		{
+			chunkKey(values, chunkNumber, theKey);
+			writeBitmap(chunk, theData);
+			this.db.put(txn, theKey, theData);
+		}
+	}
+
+	/**
+	 * Finds the ordinals of the objects whose values start with prefix and
+	 * whose next value lies in range, the same way
+	 * SleepyCatDataAdapter.getUids walks a secondary index.
+	 */
+	public RoaringBitmap getOrdinals(Transaction txn, Object[] prefix, IndexRange range, SleepyCatStats stats) throws Exception
+	{
+		Object[] start = new Object[prefix.length + 1];
+		System.arraycopy(prefix, 0, start, 0, prefix.length);
+		int startLength = prefix.length;
+		if(range != null && range.lower != null)
+		{
+			start[startLength++] = range.lower;
+		}
+
+		DatabaseEntry theKey = new DatabaseEntry();
+		SleepyCatIndexKey.toEntry(start, startLength, theKey);
+		DatabaseEntry theData = new DatabaseEntry();
+
+		RoaringBitmap ordinals = new RoaringBitmap();
+		Cursor cursor = this.db.openCursor(txn, null);
+		try
+		{
+			OperationStatus status = cursor.getSearchKeyRange(theKey, theData, LockMode.DEFAULT);
+			while(status == OperationStatus.SUCCESS)
+			{
+				Object[] key = SleepyCatIndexKey.fromEntry(theKey);
+				if(!SleepyCatIndexKey.startsWith(key, prefix))
+				{
+					break;
+				}
+				if(range != null)
+				{
+					Object value = key[prefix.length];
+					if(range.isAbove(value))
+					{
+						break;
+					}
+					if(!range.contains(value))
+					{
+						status = cursor.getNext(theKey, theData, LockMode.DEFAULT);
+						continue;
+					}
+				}
+				ordinals.or(readBitmap(theData));
+				stats.bitmapChunkRead();
+				status = cursor.getNext(theKey, theData, LockMode.DEFAULT);
+			}
+		}
+		finally
+		{
+			cursor.close();
+		}
+		return ordinals;
+	}
+
+	/**
+	 * Reads every chunk to count the ordinals and distinct values.
+	 */
+	public SleepyCatIndexStats getStats() throws Exception
+	{
+		int dvaCount = this.index.getDvas().size();
+		SleepyCatIndexStats stats = new SleepyCatIndexStats(dvaCount);
+		DatabaseEntry theKey = new DatabaseEntry();
+		DatabaseEntry theData = new DatabaseEntry();
+		Cursor cursor = this.db.openCursor(null, null);
+		try
+		{
+			OperationStatus status = cursor.getFirst(theKey, theData, LockMode.READ_UNCOMMITTED);
+			while(status == OperationStatus.SUCCESS)
+			{
+				//Chunks of one value follow each other and count as one key
+				Object[] key = SleepyCatIndexKey.fromEntry(theKey);
+				stats.addKey(Arrays.copyOf(key, dvaCount), readBitmap(theData).getCardinality());
+				status = cursor.getNext(theKey, theData, LockMode.READ_UNCOMMITTED);
+			}
+		}
+		finally
+		{
+			cursor.close();
+		}
+		return stats;
+	}
+
+	private static void chunkKey(Object[] values, int chunkNumber, DatabaseEntry entry)
+	{
+		Object[] key = Arrays.copyOf(values, values.length + 1);
+		key[values.length] = new Integer(chunkNumber);
+		SleepyCatIndexKey.toEntry(key, entry);
+	}
+
+	private static RoaringBitmap readBitmap(DatabaseEntry entry) throws Exception
+	{
+		RoaringBitmap bitmap = new RoaringBitmap();
+		bitmap.deserialize(new DataInputStream(new ByteArrayInputStream(entry.getData(), entry.getOffset(), entry.getSize())));
+		return bitmap;
+	}
+
+	private static void writeBitmap(RoaringBitmap bitmap, DatabaseEntry entry) throws Exception
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(bitmap.serializedSizeInBytes());
+		bitmap.serialize(new DataOutputStream(bytes));
+		entry.setData(bytes.toByteArray());
+	}
+}
@@ -9,12 +9,14 @@ package wdb;
 import wdb.metadata.*;
 
 import com.sleepycat.bind.EntryBinding;
-import com.sleepycat.bind.serial.SerialBinding;
+
+import org.roaringbitmap.RoaringBitmap;
 
 import com.sleepycat.je.LockMode;
 import com.sleepycat.je.OperationStatus;
 import com.sleepycat.je.DatabaseEntry;
 import com.sleepycat.je.Transaction;
+import com.sleepycat.je.Cursor;
 import com.sleepycat.je.SecondaryCursor;
 
 import java.util.*;
@@ -25,46 +27,151 @@ import java.util.*;
  * Window - Preferences - Java - Code Style - Code Templates
  */
 public class SleepyCatDataAdapter {
+	//Key ranges each scan thread gets, so a slow range does not hold up the others
+	public static final int PARTITIONS_PER_THREAD = 4;
 
 	private Transaction txn;
 	private SleepyCatDataBase scdb;
 	
+	//Objects and classes read or written in this transaction, keyed by
+	//"class:uid" and class name. Puts write through, abort throws them away.
+	private LruCache<String, WDBObject> objectCache;
+	private LruCache<String, ClassDef> classCache;
+	//Counters of the current query, shared by every adapter of the database
+	private SleepyCatStats stats;
+	
+	//Bulk loading groups batchSize statements in one transaction. Objects are
+	//then written in the transaction too, instead of one autocommit each.
+	private int batchSize;
+	private int pendingStatements;
+	private int committedStatements;
+	private int rolledBackStatements;
+	
 	public SleepyCatDataAdapter(SleepyCatDataBase scdb, Transaction txn)
+	{
+		this(scdb, txn, 0);
+	}
+	
+	public SleepyCatDataAdapter(SleepyCatDataBase scdb, Transaction txn, int batchSize)
+	{
+		this(scdb, txn, batchSize, scdb.getQueryStats());
+	}
+	
+	//Adapters of scan threads count into their own stats, added up after the scan
+	SleepyCatDataAdapter(SleepyCatDataBase scdb, Transaction txn, int batchSize, SleepyCatStats stats)
 	{
 		this.scdb = scdb;
 		this.txn = txn;
+		this.batchSize = batchSize;
+		this.stats = stats;
+		this.objectCache = new LruCache<String, WDBObject>(scdb.getCacheSize());
+		this.classCache = new LruCache<String, ClassDef>(scdb.getCacheSize());
 	}
 
+	/**
+	 * Commits the transaction. When grouping statements, only every
+	 * batchSize-th commit really ends it.
+	 */
 	public void commit() throws Exception
 	{
-		this.txn.commit();
+		if(this.batchSize <= 0)
+		{
+			this.txn.commit();
+			this.scdb.commitClassIds(this.txn);
+			return;
+		}
+		this.pendingStatements++;
+		if(this.pendingStatements >= this.batchSize)
+		{
+			this.flush();
+			this.txn = this.scdb.beginBulkTransaction();
+		}
 	}
 	
+	/**
+	 * Aborts the transaction. When grouping statements this rolls back every
+	 * statement since the last group commit.
+	 */
 	public void abort() throws Exception
 	{
+		this.objectCache.clear();
+		this.classCache.clear();
 		this.txn.abort();
+		this.scdb.abortClassIds(this.txn);
+		if(this.batchSize > 0)
+		{
+			this.rolledBackStatements += this.pendingStatements;
+			this.pendingStatements = 0;
+			this.txn = this.scdb.beginBulkTransaction();
+		}
+	}
+	
+	/**
+	 * Commits the statements grouped so far and ends the transaction.
+	 */
+	public void flush() throws Exception
+	{
+		this.txn.commit();
+		this.scdb.commitClassIds(this.txn);
+		this.committedStatements += this.pendingStatements;
+		this.pendingStatements = 0;
 	}
+	
+	public int getCommittedStatements()
+	{
+		return this.committedStatements;
+	}
+	
+	public int getRolledBackStatements()
+	{
+		return this.rolledBackStatements;
+	}
+	
+	//Objects are kept out of transactions except when grouping statements
+	private Transaction getObjectTxn()
+	{
+		return (this.batchSize > 0) ? this.txn : null;
+	}
+	
+	public SleepyCatStats getStats()
+	{
+		return this.stats;
+	}
+	
 	public void putClass(ClassDef classDef) throws Exception
 	{
-		EntryBinding keyBinding = new SerialBinding(this.scdb.getClassCatalog(), String.class);
-		EntryBinding dataBinding = new SerialBinding(this.scdb.getClassCatalog(), ClassDef.class);
+		EntryBinding<ClassDef> dataBinding = this.scdb.getClassBinding();
 		
 		DatabaseEntry theKey = new DatabaseEntry();
-		keyBinding.objectToEntry(makeClassKey(classDef.name), theKey);
+		SleepyCatKey.classKey(this.scdb.putClassId(classDef.name, this.txn), theKey);
 		
 		DatabaseEntry theData = new DatabaseEntry();
 		dataBinding.objectToEntry(classDef, theData);
 		
 		this.scdb.getClassDb().put(this.txn, theKey, theData);
+		this.classCache.put(classDef.name, classDef);
 	}
 	
 	public ClassDef getClass(String className) throws Exception
 	{
-		EntryBinding keyBinding = new SerialBinding(this.scdb.getClassCatalog(), String.class);
-		EntryBinding dataBinding = new SerialBinding(this.scdb.getClassCatalog(), ClassDef.class);
+		ClassDef cached = this.classCache.get(className);
+		if(cached != null)
+		{
+			this.stats.classGet(true);
+			return cached;
+		}
+		this.stats.classGet(false);
+		
+		EntryBinding<ClassDef> dataBinding = this.scdb.getClassBinding();
+		
+		Integer classId = this.scdb.getClassId(className, this.txn);
+		if(classId == null)
+		{
+			throw new ClassNotFoundException("Class \"" + className + "\" is not defined");
+		}
 		
 		DatabaseEntry theKey = new DatabaseEntry();
-		keyBinding.objectToEntry(makeClassKey(className), theKey);
+		SleepyCatKey.classKey(classId, theKey);
 		
 	    DatabaseEntry theData = new DatabaseEntry();
 	    
@@ -76,78 +183,398 @@ public class SleepyCatDataAdapter {
 	    	throw new ClassNotFoundException("Class \"" + className + "\" is not defined");
 	    }
 	    	
-	    return (ClassDef)dataBinding.entryToObject(theData);
+	    ClassDef classDef = (ClassDef)this.stats.deserialize(dataBinding, theData);
+	    this.classCache.put(className, classDef);
+	    return classDef;
 	}
 	
 	public void putObject(WDBObject object) throws Exception
 	{
-		EntryBinding keyBinding = new SerialBinding(this.scdb.getClassCatalog(), String.class);
-		EntryBinding dataBinding = new SerialBinding(this.scdb.getClassCatalog(), WDBObject.class);
+		EntryBinding<WDBObject> dataBinding = this.scdb.getObjectBinding();
 		
 		DatabaseEntry theKey = new DatabaseEntry();
-		keyBinding.objectToEntry(makeObjectKey(object.getClassName(), object.getUid()), theKey);
+		makeObjectKey(object.getClassName(), object.getUid(), theKey);
 		
+		//Bitmap indexes need the values the object had before this put
+		IndexDef[] bitmapIndexes = this.getBitmapIndexes(object.getClassName());
+		WDBObject oldObject = null;
 		DatabaseEntry theData = new DatabaseEntry();
+		if(bitmapIndexes.length > 0
+				&& this.scdb.getObjectDb().get(this.getObjectTxn(), theKey, theData, LockMode.DEFAULT) == OperationStatus.SUCCESS)
+		{
+			oldObject = (WDBObject)this.stats.deserialize(dataBinding, theData);
+		}
+		
 		dataBinding.objectToEntry(object, theData);
 		
-		this.scdb.getObjectDb().put(null, theKey, theData);
+		this.scdb.getObjectDb().put(this.getObjectTxn(), theKey, theData);
+		this.objectCache.put(object.getClassName() + ":" + object.getUid(), object);
+		this.scdb.noteWrite(object.getClassName());
+		
+		if(bitmapIndexes.length > 0)
+		{
+			Integer ordinal = this.scdb.putOrdinal(SleepyCatKey.getClassId(theKey), object.getUid());
+			for(int i = 0; i < bitmapIndexes.length; i++)
+			{
+				SleepyCatBitmapIndex bitmapIndex = this.scdb.getBitmapIndex(bitmapIndexes[i]);
+				bitmapIndex.update(null, ordinal.intValue(), bitmapIndex.getValues(oldObject), bitmapIndex.getValues(object));
+			}
+		}
+	}
+	
+	private IndexDef[] getBitmapIndexes(String className) throws Exception
+	{
+		IndexDef[] indexes = this.getClass(className).getIndexes();
+		ArrayList<IndexDef> bitmapIndexes = new ArrayList<IndexDef>();
+		for(int i = 0; i < indexes.length; i++)
+		{
+			if(indexes[i].isBitmap() && this.scdb.isIndexOpen(indexes[i]))
+			{
+				bitmapIndexes.add(indexes[i]);
+			}
+		}
+		return bitmapIndexes.toArray(new IndexDef[0]);
+	}
+	
+	/**
+	 * @return false while the index is put aside by a bulk load
+	 */
+	public boolean isIndexOpen(IndexDef index)
+	{
+		return this.scdb.isIndexOpen(index);
+	}
+	
+	/**
+	 * Finds the ordinals of the objects matched by a bitmap index, with the
+	 * same prefix and range rules as getUids.
+	 */
+	public RoaringBitmap getOrdinals(IndexDef index, Object[] prefix, IndexRange range) throws Exception
+	{
+		return this.scdb.getBitmapIndex(index).getOrdinals(null, prefix, range, this.stats);
+	}
+	
+	/**
+	 * @return the number of ordinals in use by a class, every object of a
+	 * class with a bitmap index has one below it
+	 */
+	public int getOrdinalCount(String className) throws Exception
+	{
+		return this.scdb.getOrdinalCount(this.getClassIdOrFail(className));
 	}
 	
-	public ArrayList<WDBObject> getObjects(IndexDef index, String key) throws Exception
+	public SleepyCatIndexStats getIndexStats(IndexDef index) throws Exception
 	{
-		EntryBinding keyBinding = new SerialBinding(this.scdb.getClassCatalog(), String.class);
-		EntryBinding dataBinding = new SerialBinding(this.scdb.getClassCatalog(), WDBObject.class);
+		return this.scdb.getIndexStats(index);
+	}
+	
+	/**
+	 * @return the UIDs of the objects with the given ordinals, in ascending order
+	 */
+	public int[] getUids(String className, RoaringBitmap ordinals) throws Exception
+	{
+		return this.scdb.getOrdinalUids(this.getClassIdOrFail(className), ordinals);
+	}
+	
+	/**
+	 * Finds the UIDs of the objects whose index key starts with the values in
+	 * prefix and whose next key column lies in range. range may be null when
+	 * only the prefix is known. Only the index is read, the objects
+	 * themselves are left for the caller to fetch.
+	 * 
+	 * @return the UIDs in ascending order
+	 */
+	public int[] getUids(IndexDef index, Object[] prefix, IndexRange range) throws Exception
+	{
+		//Start at the smallest key with the prefix and the lower bound
+		Object[] start = new Object[prefix.length + 1];
+		System.arraycopy(prefix, 0, start, 0, prefix.length);
+		int startLength = prefix.length;
+		if(range != null && range.lower != null)
+		{
+			start[startLength++] = range.lower;
+		}
 		
 		DatabaseEntry theKey = new DatabaseEntry();
-		keyBinding.objectToEntry(key, theKey);
+		SleepyCatIndexKey.toEntry(start, startLength, theKey);
 		
-	    DatabaseEntry theData = new DatabaseEntry();
+		DatabaseEntry thePrimaryKey = new DatabaseEntry();
+		//A zero length partial entry read uncommitted keeps JE from fetching the primary record.
+		//Objects are written outside of transactions, so there is nothing uncommitted to see.
+		DatabaseEntry theData = new DatabaseEntry();
+		theData.setPartial(0, 0, true);
 	    
-	    SecondaryCursor cursor = this.scdb.getSecDb(index).openSecondaryCursor(this.txn, null);
+	    SecondaryCursor cursor = this.scdb.getSecDb(index).openCursor(null, null);
 	    
 	    OperationStatus status;
-	    status = cursor.getSearchKey(theKey, theData, LockMode.DEFAULT);
+	    status = cursor.getSearchKeyRange(theKey, thePrimaryKey, theData, LockMode.READ_UNCOMMITTED);
+	    this.stats.secondaryCursorStep();
 	    
-	    ArrayList<WDBObject> foundObjectsList = new ArrayList<WDBObject>();
+	    int[] uids = new int[16];
+	    int count = 0;
+	    boolean sorted = true;
 	    while(status == OperationStatus.SUCCESS)
 	    {
-	    	foundObjectsList.add((WDBObject)dataBinding.entryToObject(theData));
-	    	status = cursor.getNextDup(theKey, theData, LockMode.DEFAULT);
+	    	Object[] key = SleepyCatIndexKey.fromEntry(theKey);
+	    	if(!SleepyCatIndexKey.startsWith(key, prefix))
+	    	{
+	    		break;
+	    	}
+	    	if(range != null)
+	    	{
+	    		Object value = key[prefix.length];
+	    		if(range.isAbove(value))
+	    		{
+	    			break;
+	    		}
+	    		if(!range.contains(value))
+	    		{
+	    			//Only the keys equal to an exclusive lower bound get here
+	    			status = cursor.getNext(theKey, thePrimaryKey, theData, LockMode.READ_UNCOMMITTED);
+	    			this.stats.secondaryCursorStep();
+	    			continue;
+	    		}
+	    	}
+	    	if(count == uids.length)
+	    	{
+	    		uids = Arrays.copyOf(uids, count * 2);
+	    	}
+	    	uids[count] = SleepyCatKey.getUid(thePrimaryKey).intValue();
+	    	//Duplicates of one key come in primary key order, several keys may not
+	    	if(count > 0 && uids[count] < uids[count - 1])
+	    	{
+	    		sorted = false;
+	    	}
+	    	count++;
+	    	status = cursor.getNext(theKey, thePrimaryKey, theData, LockMode.READ_UNCOMMITTED);
+	    	this.stats.secondaryCursorStep();
 	    }
 	    
 	    cursor.close();
-	    return foundObjectsList;
+	    uids = Arrays.copyOf(uids, count);
+	    if(!sorted)
+	    {
+	    	Arrays.sort(uids);
+	    }
+	    return uids;
 	}
 	
 	public WDBObject getObject(String className, Integer Uid) throws Exception
 	{
-		EntryBinding keyBinding = new SerialBinding(this.scdb.getClassCatalog(), String.class);
-		EntryBinding dataBinding = new SerialBinding(this.scdb.getClassCatalog(), WDBObject.class);
+		String cacheKey = className + ":" + Uid;
+		WDBObject cached = this.objectCache.get(cacheKey);
+		if(cached != null)
+		{
+			this.stats.objectGet(true);
+			return cached;
+		}
+		this.stats.objectGet(false);
+		
+		EntryBinding<WDBObject> dataBinding = this.scdb.getObjectBinding();
 		
 		DatabaseEntry theKey = new DatabaseEntry();
-		keyBinding.objectToEntry(makeObjectKey(className, Uid), theKey);
+		makeObjectKey(className, Uid, theKey);
 		
 	    DatabaseEntry theData = new DatabaseEntry();
 	    
 	    OperationStatus status;
-	    status = this.scdb.getObjectDb().get(null, theKey, theData, LockMode.DEFAULT);
+	    status = this.scdb.getObjectDb().get(this.getObjectTxn(), theKey, theData, LockMode.DEFAULT);
 	    
 	    if(status == OperationStatus.NOTFOUND)
 	    {
 	    	throw new Exception("Object with UID " + Uid.toString() + " of class \"" + className + "\" does not exist");
 	    }
 	    	
-	    return (WDBObject)dataBinding.entryToObject(theData);
+	    WDBObject object = (WDBObject)this.stats.deserialize(dataBinding, theData);
+	    this.objectCache.put(cacheKey, object);
+	    return object;
+	}
+
+	/**
+	 * Gets many objects at once. The ones not in the cache are read in key
+	 * order with one cursor, so neighbouring objects are found in the
+	 * B-tree node the cursor is already on instead of with a search from
+	 * the root for each one.
+	 *
+	 * @return the objects in the order of their class names and UIDs
+	 */
+	public WDBObject[] getObjects(String[] classNames, int[] uids) throws Exception
+	{
+		WDBObject[] objects = new WDBObject[uids.length];
+		final int[] classIds = new int[uids.length];
+		final int[] keyUids = uids;
+		Integer[] order = new Integer[uids.length];
+		int missing = 0;
+		for(int i = 0; i < uids.length; i++)
+		{
+			objects[i] = this.objectCache.get(classNames[i] + ":" + uids[i]);
+			this.stats.objectGet(objects[i] != null);
+			if(objects[i] == null)
+			{
+				classIds[i] = this.getClassIdOrFail(classNames[i]).intValue();
+				order[missing++] = new Integer(i);
+			}
+		}
+		if(missing == 0)
+		{
+			return objects;
+		}
+
+		//Object keys sort by class id, then by UID
+		Arrays.sort(order, 0, missing, new Comparator<Integer>() {
+			public int compare(Integer i1, Integer i2)
+			{
+				int a = i1.intValue(), b = i2.intValue();
+				if(classIds[a] != classIds[b])
+				{
+					return (classIds[a] < classIds[b]) ? -1 : 1;
+				}
+				return (keyUids[a] < keyUids[b]) ? -1 : ((keyUids[a] == keyUids[b]) ? 0 : 1);
+			}
+		});
+
+		EntryBinding<WDBObject> dataBinding = this.scdb.getObjectBinding();
+		DatabaseEntry theKey = new DatabaseEntry();
+		DatabaseEntry theData = new DatabaseEntry();
+		Cursor cursor = this.scdb.getObjectDb().openCursor(this.getObjectTxn(), null);
+		try
+		{
+			int last = -1;
+			for(int j = 0; j < missing; j++)
+			{
+				int i = order[j].intValue();
+				//The same object asked for twice is only read once
+				if(last >= 0 && classIds[last] == classIds[i] && uids[last] == uids[i])
+				{
+					objects[i] = objects[last];
+					continue;
+				}
+				SleepyCatKey.objectKey(new Integer(classIds[i]), new Integer(uids[i]), theKey);
+				if(cursor.getSearchKey(theKey, theData, LockMode.DEFAULT) == OperationStatus.NOTFOUND)
+				{
+					throw new Exception("Object with UID " + uids[i] + " of class \"" + classNames[i] + "\" does not exist");
+				}
+				objects[i] = (WDBObject)this.stats.deserialize(dataBinding, theData);
+				this.objectCache.put(classNames[i] + ":" + uids[i], objects[i]);
+				last = i;
+			}
+		}
+		finally
+		{
+			cursor.close();
+		}
+		return objects;
+	}
+
+	/**
+	 * @return a UID no object of the class has
+	 */
+	public Integer newUid(String className) throws Exception
+	{
+		return new Integer(this.scdb.nextUid(this.getClassIdOrFail(className)));
+	}
+	
+	public SleepyCatExtentCursor openExtentCursor(String className) throws Exception
+	{
+		Integer classId = this.scdb.getClassId(className, this.txn);
+		if(classId == null)
+		{
+			throw new ClassNotFoundException("Class \"" + className + "\" is not defined");
+		}
+		
+		//Objects are read with the same transaction as getObject
+		return new SleepyCatExtentCursor(this.scdb.getObjectDb().openCursor(this.getObjectTxn(), null), this.scdb.getObjectBinding(), classId, this.stats);
+	}
+
+	/**
+	 * Reads the UIDs of every object of a class from the keys of the
+	 * extent, without fetching the objects.
+	 *
+	 * @return the UIDs in ascending order
+	 */
+	public int[] getExtentUids(String className) throws Exception
+	{
+		Integer classId = this.getClassIdOrFail(className);
+		DatabaseEntry theKey = new DatabaseEntry();
+		DatabaseEntry theData = new DatabaseEntry();
+		theData.setPartial(0, 0, true);
+
+		//Keys are ordered by class id and then UID, so the extent comes sorted
+		Cursor cursor = this.scdb.getObjectDb().openCursor(this.getObjectTxn(), null);
+		int[] uids = new int[16];
+		int count = 0;
+		try
+		{
+			SleepyCatKey.objectKey(classId, Integer.valueOf(Integer.MIN_VALUE), theKey);
+			OperationStatus status = cursor.getSearchKeyRange(theKey, theData, LockMode.READ_UNCOMMITTED);
+			while(status == OperationStatus.SUCCESS
+					&& SleepyCatKey.getTag(theKey) == SleepyCatKey.OBJECT_TAG
+					&& SleepyCatKey.getClassId(theKey).equals(classId))
+			{
+				if(count == uids.length)
+				{
+					uids = Arrays.copyOf(uids, count * 2);
+				}
+				uids[count++] = SleepyCatKey.getUid(theKey).intValue();
+				status = cursor.getNext(theKey, theData, LockMode.READ_UNCOMMITTED);
+			}
+		}
+		finally
+		{
+			cursor.close();
+		}
+		return Arrays.copyOf(uids, count);
+	}
+
+	/**
+	 * @return true if searches without a usable index should use
+	 * openParallelScan. Objects written by a bulk load are only visible in its
+	 * transaction, so those are scanned on one thread.
+	 */
+	public boolean isParallelScan()
+	{
+		return this.scdb.getScanParallelism() > 1 && this.getObjectTxn() == null;
 	}
 	
-	private String makeClassKey(String className)
+	/**
+	 * Starts scanning the extent of a class on the scan pool of the database.
+	 *
+	 * @return the matching objects in UID order
+	 */
+	public SleepyCatParallelScan openParallelScan(String className, Predicate predicate, QueryPlan plan) throws Exception
 	{
-		return this.scdb.getClassKeyPrefix()+":"+className;
+		return new SleepyCatParallelScan(this.scdb, this.getClassIdOrFail(className), predicate, this.stats, plan);
 	}
 	
-	private String makeObjectKey(String className, Integer Uid)
+	private static class LruCache<K, V> extends LinkedHashMap<K, V>
 	{
-		return this.scdb.getObjectKeyPrefix()+":"+Uid.toString();
+		private static final long serialVersionUID = 1500339192335997056L;
+		private int maxEntries;
+		
+		public LruCache(int maxEntries)
+		{
+			super(16, 0.75f, true);
+			this.maxEntries = maxEntries;
+		}
+		
+		protected boolean removeEldestEntry(Map.Entry<K, V> eldest)
+		{
+			return this.size() > this.maxEntries;
+		}
+	}
+	
+	private void makeObjectKey(String className, Integer Uid, DatabaseEntry theKey) throws Exception
+	{
+		SleepyCatKey.objectKey(this.getClassIdOrFail(className), Uid, theKey);
+	}
+	
+	private Integer getClassIdOrFail(String className) throws Exception
+	{
+		Integer classId = this.scdb.getClassId(className, this.txn);
+		if(classId == null)
+		{
+			throw new ClassNotFoundException("Class \"" + className + "\" is not defined");
+		}
+		return classId;
 	}
 	/*
 	public void NewClassDef(ClassDef classDef) throws Exception
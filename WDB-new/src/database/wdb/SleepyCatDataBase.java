@@ -7,24 +7,43 @@
 package wdb;
 
 import wdb.metadata.ClassDef;
+import wdb.metadata.ClassDefBinding;
 import wdb.metadata.IndexDef;
+import wdb.metadata.WDBObject;
+import wdb.metadata.WDBObjectBinding;
+import wdb.metadata.WDBTupleBinding;
+
+import org.roaringbitmap.RoaringBitmap;
 
 import com.sleepycat.bind.EntryBinding;
-import com.sleepycat.bind.serial.SerialBinding;
 import com.sleepycat.bind.serial.StoredClassCatalog;
+import com.sleepycat.bind.tuple.LongBinding;
+import com.sleepycat.bind.tuple.TupleBase;
+import com.sleepycat.bind.tuple.TupleBinding;
+import com.sleepycat.bind.tuple.TupleOutput;
 import com.sleepycat.je.Database;
 import com.sleepycat.je.DatabaseConfig;
+import com.sleepycat.je.DatabaseNotFoundException;
+import com.sleepycat.je.Durability;
 import com.sleepycat.je.LockMode;
 import com.sleepycat.je.OperationStatus;
+import com.sleepycat.je.SecondaryCursor;
 import com.sleepycat.je.SecondaryDatabase;
 import com.sleepycat.je.SecondaryConfig;
+import com.sleepycat.je.Sequence;
+import com.sleepycat.je.SequenceConfig;
 import com.sleepycat.je.DatabaseEntry;
 import com.sleepycat.je.Environment;
 import com.sleepycat.je.EnvironmentConfig;
+import com.sleepycat.je.EnvironmentStats;
+import com.sleepycat.je.StatsConfig;
 import com.sleepycat.je.Transaction;
+import com.sleepycat.je.TransactionConfig;
 import com.sleepycat.je.Cursor;
 
 import java.io.File;
+import java.util.concurrent.ForkJoinPool;
+import java.io.PrintStream;
 import java.util.*;
 
 /**
@@ -34,31 +53,95 @@ import java.util.*;
  * Window - Preferences - Java - Code Style - Code Templates
  */
 public class SleepyCatDataBase {
+	//Writes a class may see before its index statistics are gathered again,
+	//on top of a tenth of the entries
+	public static final int STALE_STATS_WRITES = 100;
+	//UIDs the sequence hands out at a time unless the profile says otherwise
+	public static final int DEFAULT_UID_BLOCK_SIZE = 100;
+	private static final String UID_SEQUENCE = "uid";
+	//Present if objects with random UIDs were stored before the sequence
+	private static final String LEGACY_UIDS = "uid.legacy";
+	//Record format the object and class databases were last converted to
+	private static final String RECORD_FORMAT = "record.format";
+	//Records looked at per transaction when converting old records, so the
+	//locks held stay bounded and a failure only loses the current batch
+	public static final int UPGRADE_BATCH_SIZE = 1000;
+	//Most UIDs kept when sampling an extent to split it for a parallel scan
+	public static final int UID_SAMPLE_SIZE = 1024;
+	
 	protected String fileName;
 	protected String dbName;
 	protected EnvironmentConfig envConfig;
+	protected SleepyCatEnvironmentProfile profile;
 	protected Environment env;
 	protected DatabaseConfig dbConfig;
 	protected Database objectDb;
 	protected Database classDb;
+	protected Database ordinalDb;
 	protected DatabaseConfig classCatalogDbConfig;
 	protected StoredClassCatalog classCatalog;
+	protected WDBObjectBinding objectBinding;
+	protected ClassDefBinding classBinding;
 	protected SecondaryConfig secDbConfig;
-	protected String classKeyPrefix;
-	protected String objectKeyPrefix;
+	protected EntryBinding<Integer> classIdBinding;
+	protected Hashtable<String, Integer> classIds;
+	//Ids assigned or read in transactions that have not committed yet
+	protected Hashtable<Transaction, Hashtable<String, Integer>> pendingClassIds;
+	protected int nextClassId;
+	protected int cacheSize;
 	protected Hashtable<String, SecondaryDatabase> secDbs;
+	protected Hashtable<String, SleepyCatBitmapIndex> bitmapIndexes;
+	//Next free ordinal of each class id, loaded when first needed
+	protected Hashtable<Integer, Integer> nextOrdinals;
+	//Set during a bulk load, every newTransaction shares it
+	protected SleepyCatDataAdapter bulkAdapter;
+	protected TransactionConfig bulkTxnConfig;
+	//Indexes dropped for a bulk load, rebuilt when it ends
+	protected Hashtable<String, IndexDef> deferredIndexes;
+	//Adapter counters of the current query and of the queries before it
+	protected SleepyCatStats queryStats;
+	protected SleepyCatStats totalStats;
+	//Planner statistics of each index and the number of object writes of each
+	//class, both also kept in the ordinal database so they outlive a session
+	protected Hashtable<String, SleepyCatIndexStats> indexStats;
+	protected Hashtable<String, Long> classWrites;
+	protected Sequence uidSequence;
+	//True if new UIDs have to be checked against the old random ones
+	protected boolean legacyUids;
+	//Threads of an unindexed scan, and the pool they run in once one is needed
+	protected int scanParallelism;
+	protected ForkJoinPool scanPool;
+	//Old objects of undefined classes, left unconverted by upgradeRecords
+	protected int orphanedObjects;
 	
 	
 	public SleepyCatDataBase(String fileName) throws Exception
+	{
+		this(fileName, new SleepyCatEnvironmentProfile(new Properties()));
+	}
+	
+	public SleepyCatDataBase(String fileName, SleepyCatEnvironmentProfile profile) throws Exception
 	{
 		this.fileName = fileName;
+		this.profile = profile;
 		this.envConfig = new EnvironmentConfig();
 		this.envConfig.setTransactional(true);
 		this.envConfig.setAllowCreate(true);
+		this.profile.apply(this.envConfig);
 		this.env = new Environment(new File(this.fileName), this.envConfig);
-		this.classKeyPrefix = "class";
-		this.objectKeyPrefix = "object";
 		this.secDbs = new Hashtable<String, SecondaryDatabase>();
+		this.bitmapIndexes = new Hashtable<String, SleepyCatBitmapIndex>();
+		this.nextOrdinals = new Hashtable<Integer, Integer>();
+		this.deferredIndexes = new Hashtable<String, IndexDef>();
+		this.queryStats = new SleepyCatStats();
+		this.totalStats = new SleepyCatStats();
+		this.indexStats = new Hashtable<String, SleepyCatIndexStats>();
+		this.classWrites = new Hashtable<String, Long>();
+		this.classIds = new Hashtable<String, Integer>();
+		this.pendingClassIds = new Hashtable<Transaction, Hashtable<String, Integer>>();
+		this.nextClassId = 1;
+		this.cacheSize = this.profile.getCacheSize(1000);
+		this.scanParallelism = this.profile.getScanParallelism(1);
 	}
 	
 	public void openDb(String dbName) throws Exception
@@ -71,43 +154,400 @@ public class SleepyCatDataBase {
 		this.dbConfig.setSortedDuplicates(false);
 		this.objectDb = this.env.openDatabase(null, dbName+"_objects", this.dbConfig);
 		this.classDb = this.env.openDatabase(null, dbName+"_classes", this.dbConfig);
+		this.ordinalDb = this.env.openDatabase(null, dbName+"_ordinals", this.dbConfig);
 		
 		this.classCatalogDbConfig = new DatabaseConfig();
 		this.classCatalogDbConfig.setAllowCreate(true);
 		Database classCatalogDb = this.env.openDatabase(null, "class_catalog", this.classCatalogDbConfig);
 		this.classCatalog = new StoredClassCatalog(classCatalogDb);
+		this.objectBinding = new WDBObjectBinding(this.classCatalog);
+		this.classBinding = new ClassDefBinding(this.classCatalog);
+		this.classIdBinding = TupleBinding.getPrimitiveBinding(Integer.class);
 		
-		Cursor cursor = this.classDb.openCursor(null, null);
+		this.loadClassIds();
 		
-		EntryBinding keyBinding = new SerialBinding(this.classCatalog, String.class);
-		EntryBinding dataBinding = new SerialBinding(this.classCatalog, ClassDef.class);
+		//Convert any records still stored with the old serial keys or data,
+		//unless that was already done for the current record format
+		boolean upgrade = this.getRecordFormat() < WDBTupleBinding.FORMAT_VERSION;
+		boolean objectsRekeyed = false;
+		if(upgrade)
+		{
+			this.upgradeRecords(this.classDb, this.classBinding);
+			objectsRekeyed = this.upgradeRecords(this.objectDb, this.objectBinding) > 0;
+		}
+		this.openUidSequence();
+		
+		Cursor cursor = this.classDb.openCursor(null, null);
 		
 		DatabaseEntry theKey = new DatabaseEntry();
-		keyBinding.objectToEntry(this.classKeyPrefix, theKey);
+		SleepyCatKey.classKey(new Integer(Integer.MIN_VALUE), theKey);
 		
 	    DatabaseEntry theData = new DatabaseEntry();
 	    
 	    OperationStatus status = cursor.getSearchKeyRange(theKey, theData, LockMode.DEFAULT);
-	    if(status == OperationStatus.SUCCESS && cursor.count() > 0)
+	    while(status == OperationStatus.SUCCESS && SleepyCatKey.getTag(theKey) == SleepyCatKey.CLASS_TAG)
 	    {
-	    	do
+	    	ClassDef classDef = this.classBinding.entryToObject(theData);
+	    	IndexDef[] indexes = classDef.getIndexes();
+	    	for(int i = 0; i < indexes.length; i++)
 	    	{
-	    		ClassDef classDef = (ClassDef)dataBinding.entryToObject(theData);
-	    		IndexDef[] indexes = classDef.getIndexes();
-	    		for(int i = 0; i < indexes.length; i++)
+	    		if(indexes[i].isBitmap())
+	    		{
+	    			this.openBitmapIndex(indexes[i]);
+	    			continue;
+	    		}
+	    		if(objectsRekeyed)
 	    		{
+	    			//The old index entries point at the old primary keys, rebuild them
+	    			this.removeSecDb(indexes[i]);
+	    		}
+	    		SecondaryDatabase secDb = this.openSecDb(indexes[i]);
+	    		if(this.hasLegacyKeys(secDb))
+	    		{
+	    			//Index still holds the old serialized string keys, rebuild it
+	    			secDb.close();
+	    			this.secDbs.remove(indexes[i].name);
+	    			this.removeSecDb(indexes[i]);
 	    			this.openSecDb(indexes[i]);
 	    		}
-	    		status = cursor.getNext(theKey, theData, LockMode.DEFAULT);
 	    	}
-	    	while(status == OperationStatus.SUCCESS);
+	    	status = cursor.getNext(theKey, theData, LockMode.DEFAULT);
 	    }
 	    
 	    cursor.close();
+	    
+	    if(upgrade)
+	    {
+	    	//Only marked once the indexes of rekeyed objects are rebuilt
+	    	this.putRecordFormat(WDBTupleBinding.FORMAT_VERSION);
+	    }
+	}
+	
+	/**
+	 * @return the record format the databases were converted to, 0 if they
+	 * never were
+	 */
+	private int getRecordFormat() throws Exception
+	{
+		DatabaseEntry theKey = new DatabaseEntry();
+		DatabaseEntry theData = new DatabaseEntry();
+		SleepyCatKey.sequenceKey(RECORD_FORMAT, theKey);
+		if(this.ordinalDb.get(null, theKey, theData, LockMode.DEFAULT) == OperationStatus.SUCCESS)
+		{
+			return this.classIdBinding.entryToObject(theData).intValue();
+		}
+		return 0;
+	}
+	
+	private void putRecordFormat(int format) throws Exception
+	{
+		DatabaseEntry theKey = new DatabaseEntry();
+		DatabaseEntry theData = new DatabaseEntry();
+		SleepyCatKey.sequenceKey(RECORD_FORMAT, theKey);
+		this.classIdBinding.objectToEntry(Integer.valueOf(format), theData);
+		this.ordinalDb.put(null, theKey, theData);
+	}
+	
+	/**
+	 * @return the number of old objects left unconverted when the database
+	 * was opened because their class is not defined
+	 */
+	public int getOrphanedObjects()
+	{
+		return this.orphanedObjects;
+	}
+	
+	/**
+	 * Opens the sequence UIDs are taken from, creating it the first time.
+	 * UIDs used to be random, so a database that already has objects then
+	 * gets marked and new UIDs are checked against its objects.
+	 */
+	private void openUidSequence() throws Exception
+	{
+		DatabaseEntry theKey = new DatabaseEntry();
+		DatabaseEntry theData = new DatabaseEntry();
+		SleepyCatKey.sequenceKey(UID_SEQUENCE, theKey);
+		if(this.ordinalDb.get(null, theKey, theData, LockMode.DEFAULT) == OperationStatus.NOTFOUND
+				&& this.objectDb.count() > 0)
+		{
+			SleepyCatKey.sequenceKey(LEGACY_UIDS, theKey);
+			theData.setData(new byte[0]);
+			this.ordinalDb.put(null, theKey, theData);
+		}
+		SleepyCatKey.sequenceKey(LEGACY_UIDS, theKey);
+		this.legacyUids = this.ordinalDb.get(null, theKey, theData, LockMode.DEFAULT) == OperationStatus.SUCCESS;
+		
+		SequenceConfig config = new SequenceConfig();
+		config.setAllowCreate(true);
+		config.setRange(1, Integer.MAX_VALUE);
+		config.setInitialValue(1);
+		config.setCacheSize(this.profile.getUidBlockSize(DEFAULT_UID_BLOCK_SIZE));
+		//A lost block only leaves a gap in the UIDs
+		config.setAutoCommitNoSync(true);
+		SleepyCatKey.sequenceKey(UID_SEQUENCE, theKey);
+		this.uidSequence = this.ordinalDb.openSequence(null, theKey, config);
+	}
+	
+	/**
+	 * @return a new UID for an object of the class. UIDs increase, so new
+	 * objects are appended at the end of their class in the object database.
+	 */
+	public int nextUid(Integer classId) throws Exception
+	{
+		DatabaseEntry theKey = new DatabaseEntry();
+		DatabaseEntry theData = new DatabaseEntry();
+		theData.setPartial(0, 0, true);
+		while(true)
+		{
+			int uid = (int)this.uidSequence.get(null, 1);
+			if(!this.legacyUids)
+			{
+				return uid;
+			}
+			SleepyCatKey.objectKey(classId, new Integer(uid), theKey);
+			if(this.objectDb.get(null, theKey, theData, LockMode.READ_UNCOMMITTED) == OperationStatus.NOTFOUND)
+			{
+				return uid;
+			}
+		}
+	}
+	
+	private void removeSecDb(IndexDef index) throws Exception
+	{
+		try
+		{
+			this.env.removeDatabase(null, index.name);
+		}
+		catch(DatabaseNotFoundException dnfe)
+		{
+			//Nothing to remove, it will be created and populated when opened
+		}
+	}
+	
+	private boolean hasLegacyKeys(SecondaryDatabase secDb) throws Exception
+	{
+		SecondaryCursor cursor = secDb.openCursor(null, null);
+		DatabaseEntry theKey = new DatabaseEntry();
+		DatabaseEntry theData = new DatabaseEntry();
+		boolean legacy = cursor.getNext(theKey, theData, LockMode.DEFAULT) == OperationStatus.SUCCESS
+			&& SleepyCatKey.isLegacy(theKey);
+		cursor.close();
+		return legacy;
+	}
+	
+	private void loadClassIds() throws Exception
+	{
+		Cursor cursor = this.classDb.openCursor(null, null);
+		
+		DatabaseEntry theKey = new DatabaseEntry();
+		DatabaseEntry theData = new DatabaseEntry();
+		while(cursor.getNext(theKey, theData, LockMode.DEFAULT) == OperationStatus.SUCCESS)
+		{
+			if(SleepyCatKey.getTag(theKey) == SleepyCatKey.CLASS_NAME_TAG)
+			{
+				Integer classId = this.classIdBinding.entryToObject(theData);
+				this.classIds.put(SleepyCatKey.getClassName(theKey), classId);
+				this.nextClassId = Math.max(this.nextClassId, classId.intValue() + 1);
+			}
+		}
+		cursor.close();
+	}
+	
+	/**
+	 * Rewrites records that still use the old "class:name"/"object:uid" string
+	 * keys or the old serialized data under the binary keys and tuple format.
+	 * The class database has to be converted first so every object's class
+	 * already has an id. Objects of classes that are not defined are
+	 * counted and left as they are.
+	 */
+	protected <E> int upgradeRecords(Database db, WDBTupleBinding<E> binding) throws Exception
+	{
+		int upgraded = 0;
+		DatabaseEntry theKey = new DatabaseEntry();
+		DatabaseEntry theData = new DatabaseEntry();
+		OperationStatus status = null;
+		do
+		{
+			//Each batch is committed on its own. Converting a record twice
+			//is harmless, the legacy checks are made per record.
+			Transaction txn = this.env.beginTransaction(null, null);
+			Cursor cursor = db.openCursor(txn, null);
+			try
+			{
+				if(status == null)
+				{
+					status = cursor.getFirst(theKey, theData, LockMode.RMW);
+				}
+				else
+				{
+					//Continue from the first record the last batch did not reach
+					status = cursor.getSearchKeyRange(theKey, theData, LockMode.RMW);
+				}
+				int seen = 0;
+				while(status == OperationStatus.SUCCESS && seen < UPGRADE_BATCH_SIZE)
+				{
+					if(SleepyCatKey.isLegacy(theKey))
+					{
+						E record = binding.entryToObject(theData);
+						DatabaseEntry newKey = new DatabaseEntry();
+						if(record instanceof ClassDef)
+						{
+							String className = ((ClassDef)record).name;
+							SleepyCatKey.classKey(this.putClassId(className, txn), newKey);
+						}
+						else
+						{
+							WDBObject object = (WDBObject)record;
+							Integer classId = this.getClassId(object.getClassName(), txn);
+							if(classId == null)
+							{
+								//No query can reach an object of an undefined class, leave it as it is
+								this.orphanedObjects++;
+								newKey = null;
+							}
+							else
+							{
+								SleepyCatKey.objectKey(classId, object.getUid(), newKey);
+							}
+						}
+						if(newKey != null)
+						{
+							//New keys sort before the old ones so the cursor won't see them again
+							DatabaseEntry newData = new DatabaseEntry();
+							binding.objectToEntry(record, newData);
+							db.put(txn, newKey, newData);
+							cursor.delete();
+							upgraded++;
+						}
+					}
+					else if(WDBTupleBinding.isLegacy(theData))
+					{
+						DatabaseEntry newData = new DatabaseEntry();
+						binding.objectToEntry(binding.entryToObject(theData), newData);
+						cursor.putCurrent(newData);
+						upgraded++;
+					}
+					seen++;
+					status = cursor.getNext(theKey, theData, LockMode.RMW);
+				}
+				cursor.close();
+				txn.commit();
+				this.commitClassIds(txn);
+			}
+			catch(Exception e)
+			{
+				cursor.close();
+				txn.abort();
+				this.abortClassIds(txn);
+				throw e;
+			}
+		}
+		while(status == OperationStatus.SUCCESS);
+		
+		return upgraded;
+	}
+	
+	/**
+	 * @return the id of the class, or null if the class is not defined
+	 */
+	public Integer getClassId(String className, Transaction txn) throws Exception
+	{
+		Integer classId = this.classIds.get(className);
+		if(classId == null && txn != null)
+		{
+			classId = this.getPendingClassIds(txn).get(className);
+		}
+		if(classId == null)
+		{
+			DatabaseEntry theKey = new DatabaseEntry();
+			SleepyCatKey.classNameKey(className, theKey);
+			DatabaseEntry theData = new DatabaseEntry();
+			if(this.classDb.get(txn, theKey, theData, LockMode.DEFAULT) == OperationStatus.SUCCESS)
+			{
+				classId = this.classIdBinding.entryToObject(theData);
+				this.putCachedClassId(className, classId, txn);
+			}
+		}
+		return classId;
+	}
+	
+	/**
+	 * Returns the id of the class, assigning a new one and storing the
+	 * name record in the given transaction if the class has none yet.
+	 */
+	public Integer putClassId(String className, Transaction txn) throws Exception
+	{
+		Integer classId = this.getClassId(className, txn);
+		if(classId == null)
+		{
+			synchronized(this)
+			{
+				classId = new Integer(this.nextClassId++);
+			}
+			DatabaseEntry theKey = new DatabaseEntry();
+			SleepyCatKey.classNameKey(className, theKey);
+			DatabaseEntry theData = new DatabaseEntry();
+			this.classIdBinding.objectToEntry(classId, theData);
+			this.classDb.put(txn, theKey, theData);
+			this.putCachedClassId(className, classId, txn);
+		}
+		return classId;
+	}
+	
+	//An id seen inside a transaction is only shared once the transaction commits
+	private void putCachedClassId(String className, Integer classId, Transaction txn)
+	{
+		if(txn == null)
+		{
+			this.classIds.put(className, classId);
+		}
+		else
+		{
+			this.getPendingClassIds(txn).put(className, classId);
+		}
+	}
+	
+	private Hashtable<String, Integer> getPendingClassIds(Transaction txn)
+	{
+		Hashtable<String, Integer> pending = this.pendingClassIds.get(txn);
+		if(pending == null)
+		{
+			pending = new Hashtable<String, Integer>();
+			this.pendingClassIds.put(txn, pending);
+		}
+		return pending;
+	}
+	
+	/**
+	 * Shares the class ids of the transaction. Called after it committed.
+	 */
+	public void commitClassIds(Transaction txn)
+	{
+		Hashtable<String, Integer> pending = this.pendingClassIds.remove(txn);
+		if(pending != null)
+		{
+			this.classIds.putAll(pending);
+		}
+	}
+	
+	/**
+	 * Forgets the class ids of the transaction. Called after it aborted, its
+	 * name records are gone.
+	 */
+	public void abortClassIds(Transaction txn)
+	{
+		this.pendingClassIds.remove(txn);
 	}
 	
 	public SecondaryDatabase openSecDb(IndexDef index) throws Exception
 	{
+		if(this.bulkAdapter != null)
+		{
+			//Populating now would read the objects the bulk load still holds locked
+			this.deferredIndexes.put(index.name, index);
+			return null;
+		}
+		
 		this.secDbConfig = new SecondaryConfig();
 		this.secDbConfig.setTransactional(true);
 		this.secDbConfig.setAllowCreate(true);
@@ -121,12 +561,309 @@ public class SleepyCatDataBase {
 		return secDb;
 	}
 	
+	/**
+	 * Opens the bitmap database of an index, filling it from the extent of
+	 * its class if it is new.
+	 */
+	public SleepyCatBitmapIndex openBitmapIndex(IndexDef index) throws Exception
+	{
+		if(this.bulkAdapter != null)
+		{
+			this.deferredIndexes.put(index.name, index);
+			return null;
+		}
+		
+		DatabaseConfig bitmapDbConfig = new DatabaseConfig();
+		bitmapDbConfig.setTransactional(true);
+		bitmapDbConfig.setAllowCreate(true);
+		bitmapDbConfig.setSortedDuplicates(false);
+		Database bitmapDb = this.env.openDatabase(null, index.name, bitmapDbConfig);
+		
+		SleepyCatBitmapIndex bitmapIndex = new SleepyCatBitmapIndex(index, bitmapDb);
+		if(bitmapDb.count() == 0)
+		{
+			this.populateBitmapIndex(bitmapIndex);
+		}
+		this.bitmapIndexes.put(index.name, bitmapIndex);
+		return bitmapIndex;
+	}
+	
+	private void populateBitmapIndex(SleepyCatBitmapIndex bitmapIndex) throws Exception
+	{
+		Integer classId = this.getClassId(bitmapIndex.getIndex().className, null);
+		if(classId == null)
+		{
+			return;
+		}
+		
+		//Collect the bitmaps in memory, there are only a few distinct values
+		Hashtable<List<Object>, RoaringBitmap> bitmaps = new Hashtable<List<Object>, RoaringBitmap>();
+		SleepyCatExtentCursor extent = new SleepyCatExtentCursor(this.objectDb.openCursor(null, null), this.objectBinding, classId, this.queryStats);
+		try
+		{
+			WDBObject object;
+			while((object = extent.next()) != null)
+			{
+				List<Object> values = Arrays.asList(bitmapIndex.getValues(object));
+				RoaringBitmap ordinals = bitmaps.get(values);
+				if(ordinals == null)
+				{
+					ordinals = new RoaringBitmap();
+					bitmaps.put(values, ordinals);
+				}
+				ordinals.add(this.putOrdinal(classId, object.getUid()));
+			}
+		}
+		finally
+		{
+			extent.close();
+		}
+		
+		Enumeration<List<Object>> e = bitmaps.keys();
+		while(e.hasMoreElements())
+		{
+			List<Object> values = e.nextElement();
+			bitmapIndex.put(null, values.toArray(), bitmaps.get(values));
+		}
+	}
+	
+	public SleepyCatBitmapIndex getBitmapIndex(IndexDef index) throws Exception
+	{
+		SleepyCatBitmapIndex bitmapIndex = this.bitmapIndexes.get(index.name);
+		
+		if(bitmapIndex == null)
+		{
+			throw new Exception("Index \"" + index.name + "\" is not defined");
+		}
+		
+		return bitmapIndex;
+	}
+	
+	/**
+	 * @return the ordinal of an object, or null if it has none yet
+	 */
+	public Integer getOrdinal(Integer classId, Integer Uid) throws Exception
+	{
+		DatabaseEntry theKey = new DatabaseEntry();
+		SleepyCatKey.ordinalKey(classId, Uid, theKey);
+		DatabaseEntry theData = new DatabaseEntry();
+		if(this.ordinalDb.get(null, theKey, theData, LockMode.DEFAULT) == OperationStatus.SUCCESS)
+		{
+			return this.classIdBinding.entryToObject(theData);
+		}
+		return null;
+	}
+	
+	/**
+	 * Returns the ordinal of an object, giving it the next free one of its
+	 * class if it has none. Ordinals of a class are dense from 0, so bitmaps
+	 * of them stay small. Like the objects, they are written outside of
+	 * transactions.
+	 */
+	public Integer putOrdinal(Integer classId, Integer Uid) throws Exception
+	{
+		Integer ordinal = this.getOrdinal(classId, Uid);
+		if(ordinal == null)
+		{
+			synchronized(this)
+			{
+				ordinal = new Integer(this.getOrdinalCount(classId));
+				this.nextOrdinals.put(classId, new Integer(ordinal.intValue() + 1));
+			}
+			DatabaseEntry theKey = new DatabaseEntry();
+			DatabaseEntry theData = new DatabaseEntry();
+			SleepyCatKey.ordinalKey(classId, Uid, theKey);
+			this.classIdBinding.objectToEntry(ordinal, theData);
+			this.ordinalDb.put(null, theKey, theData);
+			SleepyCatKey.ordinalUidKey(classId, ordinal.intValue(), theKey);
+			this.classIdBinding.objectToEntry(Uid, theData);
+			this.ordinalDb.put(null, theKey, theData);
+		}
+		return ordinal;
+	}
+	
+	/**
+	 * @return the number of ordinals given out for a class, all below it are in use
+	 */
+	public synchronized int getOrdinalCount(Integer classId) throws Exception
+	{
+		Integer next = this.nextOrdinals.get(classId);
+		if(next == null)
+		{
+			//The last ordinal UID key of the class holds the highest ordinal
+			Cursor cursor = this.ordinalDb.openCursor(null, null);
+			DatabaseEntry theKey = new DatabaseEntry();
+			SleepyCatKey.ordinalUidKey(new Integer(classId.intValue() + 1), Integer.MIN_VALUE, theKey);
+			DatabaseEntry theData = new DatabaseEntry();
+			OperationStatus status = cursor.getSearchKeyRange(theKey, theData, LockMode.DEFAULT);
+			if(status == OperationStatus.SUCCESS)
+			{
+				status = cursor.getPrev(theKey, theData, LockMode.DEFAULT);
+			}
+			else
+			{
+				status = cursor.getLast(theKey, theData, LockMode.DEFAULT);
+			}
+			next = new Integer(0);
+			if(status == OperationStatus.SUCCESS
+					&& SleepyCatKey.getTag(theKey) == SleepyCatKey.ORDINAL_UID_TAG
+					&& SleepyCatKey.getClassId(theKey).equals(classId))
+			{
+				next = new Integer(SleepyCatKey.getUid(theKey).intValue() + 1);
+			}
+			cursor.close();
+			this.nextOrdinals.put(classId, next);
+		}
+		return next.intValue();
+	}
+	
+	/**
+	 * @return the UIDs of the objects with the given ordinals, in ascending order
+	 */
+	public int[] getOrdinalUids(Integer classId, RoaringBitmap ordinals) throws Exception
+	{
+		int[] uids = new int[ordinals.getCardinality()];
+		int count = 0;
+		DatabaseEntry theKey = new DatabaseEntry();
+		DatabaseEntry theData = new DatabaseEntry();
+		for(Iterator<Integer> i = ordinals.iterator(); i.hasNext(); )
+		{
+			SleepyCatKey.ordinalUidKey(classId, i.next().intValue(), theKey);
+			if(this.ordinalDb.get(null, theKey, theData, LockMode.DEFAULT) == OperationStatus.SUCCESS)
+			{
+				uids[count++] = this.classIdBinding.entryToObject(theData).intValue();
+			}
+		}
+		uids = Arrays.copyOf(uids, count);
+		Arrays.sort(uids);
+		return uids;
+	}
+	
 	public SleepyCatDataAdapter newTransaction() throws Exception
 	{
+		if(this.bulkAdapter != null)
+		{
+			return this.bulkAdapter;
+		}
 		Transaction txn = env.beginTransaction(null, null);
 		return new SleepyCatDataAdapter(this, txn);
 	}
 	
+	/**
+	 * Starts grouping statements for a bulk load. Until endBulkLoad every
+	 * newTransaction returns the same adapter, which commits once every
+	 * batchSize statements with the given durability (null for the
+	 * environment's default). The secondary and bitmap indexes are dropped
+	 * so the load only writes the objects, and rebuilt at the end.
+	 */
+	public SleepyCatDataAdapter beginBulkLoad(int batchSize, Durability durability) throws Exception
+	{
+		if(this.bulkAdapter != null)
+		{
+			throw new IllegalStateException("A bulk load is already running");
+		}
+		if(batchSize < 1)
+		{
+			throw new IllegalArgumentException("Bulk load batch size must be at least 1, not " + batchSize);
+		}
+		
+		Enumeration<String> names = this.secDbs.keys();
+		while(names.hasMoreElements())
+		{
+			String name = names.nextElement();
+			this.secDbs.get(name).close();
+		}
+		Enumeration<SleepyCatBitmapIndex> bitmapIndexes = this.bitmapIndexes.elements();
+		while(bitmapIndexes.hasMoreElements())
+		{
+			bitmapIndexes.nextElement().getDb().close();
+		}
+		this.deferIndexes();
+		
+		this.bulkTxnConfig = new TransactionConfig();
+		if(durability != null)
+		{
+			this.bulkTxnConfig.setDurability(durability);
+		}
+		this.bulkAdapter = new SleepyCatDataAdapter(this, this.beginBulkTransaction(), batchSize);
+		return this.bulkAdapter;
+	}
+	
+	//Removes the closed index databases, keeping their definitions to reopen
+	private void deferIndexes() throws Exception
+	{
+		Cursor cursor = this.classDb.openCursor(null, null);
+		DatabaseEntry theKey = new DatabaseEntry();
+		SleepyCatKey.classKey(new Integer(Integer.MIN_VALUE), theKey);
+		DatabaseEntry theData = new DatabaseEntry();
+		try
+		{
+			OperationStatus status = cursor.getSearchKeyRange(theKey, theData, LockMode.DEFAULT);
+			while(status == OperationStatus.SUCCESS && SleepyCatKey.getTag(theKey) == SleepyCatKey.CLASS_TAG)
+			{
+				IndexDef[] indexes = this.classBinding.entryToObject(theData).getIndexes();
+				for(int i = 0; i < indexes.length; i++)
+				{
+					if(this.secDbs.remove(indexes[i].name) != null || this.bitmapIndexes.remove(indexes[i].name) != null)
+					{
+						this.removeSecDb(indexes[i]);
+						this.deferredIndexes.put(indexes[i].name, indexes[i]);
+					}
+				}
+				status = cursor.getNext(theKey, theData, LockMode.DEFAULT);
+			}
+		}
+		finally
+		{
+			cursor.close();
+		}
+	}
+	
+	Transaction beginBulkTransaction() throws Exception
+	{
+		return this.env.beginTransaction(null, this.bulkTxnConfig);
+	}
+	
+	/**
+	 * Commits what is left of a bulk load and rebuilds the indexes it
+	 * dropped or that were defined during it.
+	 */
+	public void endBulkLoad() throws Exception
+	{
+		if(this.bulkAdapter == null)
+		{
+			return;
+		}
+		SleepyCatDataAdapter bulkAdapter = this.bulkAdapter;
+		this.bulkAdapter = null;
+		try
+		{
+			bulkAdapter.flush();
+		}
+		finally
+		{
+			Enumeration<IndexDef> indexes = this.deferredIndexes.elements();
+			while(indexes.hasMoreElements())
+			{
+				IndexDef index = indexes.nextElement();
+				if(index.isBitmap())
+				{
+					this.openBitmapIndex(index);
+				}
+				else
+				{
+					this.openSecDb(index);
+				}
+			}
+			this.deferredIndexes.clear();
+		}
+	}
+	
+	public boolean isIndexOpen(IndexDef index)
+	{
+		return this.secDbs.containsKey(index.name) || this.bitmapIndexes.containsKey(index.name);
+	}
+	
 	public Database getObjectDb() throws Exception
 	{
 		return this.objectDb;
@@ -142,9 +879,308 @@ public class SleepyCatDataBase {
 		return this.classCatalog;
 	}
 	
+	/**
+	 * @return Returns the number of objects and classes each transaction keeps deserialized.
+	 */
+	public int getCacheSize()
+	{
+		return this.cacheSize;
+	}
+	
+	public void setCacheSize(int cacheSize)
+	{
+		this.cacheSize = cacheSize;
+	}
+	
+	public int getScanParallelism()
+	{
+		return this.scanParallelism;
+	}
+	
+	/**
+	 * Sets the number of threads unindexed searches of this session use,
+	 * 1 to scan on the calling thread.
+	 */
+	public synchronized void setScanParallelism(int scanParallelism)
+	{
+		if(scanParallelism != this.scanParallelism && this.scanPool != null)
+		{
+			this.scanPool.shutdown();
+			this.scanPool = null;
+		}
+		this.scanParallelism = Math.max(1, scanParallelism);
+	}
+	
+	public synchronized ForkJoinPool getScanPool()
+	{
+		if(this.scanPool == null)
+		{
+			this.scanPool = new ForkJoinPool(this.scanParallelism);
+		}
+		return this.scanPool;
+	}
+	
+	/**
+	 * Splits the objects of a class into UID ranges of about the same size.
+	 * The keys of the extent are walked without reading their data and every
+	 * step-th UID is kept as a sample, the step doubling whenever the sample
+	 * is full. The UIDs don't have to be spread evenly, old random ones are
+	 * not.
+	 *
+	 * @return the first UID of each range followed by the last UID of the
+	 * class, or null if it has no objects
+	 */
+	public int[] getUidSplits(Integer classId, int partitions) throws Exception
+	{
+		int[] sample = new int[UID_SAMPLE_SIZE];
+		int sampled = 0;
+		int step = 1;
+		long seen = 0;
+		int last = 0;
+		DatabaseEntry theKey = new DatabaseEntry();
+		DatabaseEntry theData = new DatabaseEntry();
+		theData.setPartial(0, 0, true);
+		Cursor cursor = this.objectDb.openCursor(null, null);
+		try
+		{
+			SleepyCatKey.objectKey(classId, new Integer(Integer.MIN_VALUE), theKey);
+			OperationStatus status = cursor.getSearchKeyRange(theKey, theData, LockMode.READ_UNCOMMITTED);
+			while(status == OperationStatus.SUCCESS
+					&& SleepyCatKey.getTag(theKey) == SleepyCatKey.OBJECT_TAG
+					&& SleepyCatKey.getClassId(theKey).equals(classId))
+			{
+				last = SleepyCatKey.getUid(theKey).intValue();
+				if(seen % step == 0 && sampled == sample.length)
+				{
+					//Keep every other sample and take half as many from now on
+					for(int i = 0; i < sampled / 2; i++)
+					{
+						sample[i] = sample[2 * i];
+					}
+					sampled /= 2;
+					step *= 2;
+				}
+				if(seen % step == 0)
+				{
+					sample[sampled++] = last;
+				}
+				seen++;
+				status = cursor.getNext(theKey, theData, LockMode.READ_UNCOMMITTED);
+			}
+		}
+		finally
+		{
+			cursor.close();
+		}
+		if(sampled == 0)
+		{
+			return null;
+		}
+		
+		//Keys come in UID order, so the sample is sorted
+		partitions = Math.min(partitions, sampled);
+		int[] splits = new int[partitions + 1];
+		for(int i = 0; i < partitions; i++)
+		{
+			splits[i] = sample[(int)((long)sampled * i / partitions)];
+		}
+		splits[partitions] = last;
+		return splits;
+	}
+	
+	/**
+	 * Prints the tuning profile and the settings the environment ended up with.
+	 */
+	public void printSettings(PrintStream out) throws Exception
+	{
+		this.profile.print(this.env.getConfig(), this.cacheSize, out);
+	}
+	
+	/**
+	 * @return the JE cache, log, lock and cleaner statistics, optionally
+	 * starting new counts
+	 */
+	public EnvironmentStats getEnvironmentStats(boolean clear) throws Exception
+	{
+		StatsConfig statsConfig = new StatsConfig();
+		statsConfig.setClear(clear);
+		return this.env.getStats(statsConfig);
+	}
+	
+	/**
+	 * Starts counting for a new query. The counts of the previous one are
+	 * added to the session totals.
+	 */
+	public void startQueryStats()
+	{
+		this.totalStats.add(this.queryStats);
+		this.queryStats.clear();
+	}
+	
+	/**
+	 * @return the counters of the current (or last) query, updated as the
+	 * adapters work
+	 */
+	public SleepyCatStats getQueryStats()
+	{
+		return this.queryStats;
+	}
+	
+	/**
+	 * @return a copy of the counters summed over the session
+	 */
+	public SleepyCatStats getTotalStats()
+	{
+		SleepyCatStats total = new SleepyCatStats(this.totalStats);
+		total.add(this.queryStats);
+		return total;
+	}
+	
+	public WDBObjectBinding getObjectBinding()
+	{
+		return this.objectBinding;
+	}
+	
+	public ClassDefBinding getClassBinding()
+	{
+		return this.classBinding;
+	}
+	
+	/**
+	 * Counts a put of an object so the index statistics of its class can
+	 * tell when they are out of date.
+	 */
+	public synchronized void noteWrite(String className) throws Exception
+	{
+		this.classWrites.put(className, new Long(this.getClassWrites(className) + 1));
+	}
+	
+	//Writes of the class, counted on from the last session
+	private long getClassWrites(String className) throws Exception
+	{
+		Long writes = this.classWrites.get(className);
+		if(writes == null)
+		{
+			DatabaseEntry theKey = new DatabaseEntry();
+			DatabaseEntry theData = new DatabaseEntry();
+			SleepyCatKey.writesKey(className, theKey);
+			boolean found = this.ordinalDb.get(null, theKey, theData, LockMode.DEFAULT) == OperationStatus.SUCCESS;
+			writes = new Long(found ? LongBinding.entryToLong(theData) : 0);
+			this.classWrites.put(className, writes);
+		}
+		return writes.longValue();
+	}
+	
+	//Keeps the write counts for the next session, done when the database closes
+	private void saveClassWrites() throws Exception
+	{
+		DatabaseEntry theKey = new DatabaseEntry();
+		DatabaseEntry theData = new DatabaseEntry();
+		Enumeration<String> classNames = this.classWrites.keys();
+		while(classNames.hasMoreElements())
+		{
+			String className = classNames.nextElement();
+			SleepyCatKey.writesKey(className, theKey);
+			LongBinding.longToEntry(this.classWrites.get(className).longValue(), theData);
+			this.ordinalDb.put(null, theKey, theData);
+		}
+	}
+	
+	/**
+	 * @return the statistics of an open index. They are gathered when first
+	 * asked for and again once the class has seen more writes than a tenth
+	 * of the entries they counted. Gathered statistics are stored in the
+	 * ordinal database, so a new session starts with the ones of the last.
+	 * If the database was not closed the write counts stored with it may be
+	 * behind, statistics newer than them are then gathered again.
+	 */
+	public synchronized SleepyCatIndexStats getIndexStats(IndexDef index) throws Exception
+	{
+		long writes = this.getClassWrites(index.className);
+		SleepyCatIndexStats stats = this.indexStats.get(index.name);
+		if(stats == null)
+		{
+			stats = this.loadIndexStats(index);
+		}
+		if(stats != null && stats.getWrites() <= writes
+				&& writes - stats.getWrites() <= STALE_STATS_WRITES + stats.getEntries() / 10)
+		{
+			this.indexStats.put(index.name, stats);
+			return stats;
+		}
+		
+		if(index.isBitmap())
+		{
+			stats = this.getBitmapIndex(index).getStats();
+		}
+		else
+		{
+			stats = this.getSecDbStats(index);
+		}
+		stats.setWrites(writes);
+		this.indexStats.put(index.name, stats);
+		this.saveIndexStats(index, stats);
+		return stats;
+	}
+	
+	//The stored statistics of the index, null if there are none for its DVAs
+	private SleepyCatIndexStats loadIndexStats(IndexDef index) throws Exception
+	{
+		DatabaseEntry theKey = new DatabaseEntry();
+		DatabaseEntry theData = new DatabaseEntry();
+		SleepyCatKey.statsKey(index.name, theKey);
+		if(this.ordinalDb.get(null, theKey, theData, LockMode.DEFAULT) != OperationStatus.SUCCESS)
+		{
+			return null;
+		}
+		SleepyCatIndexStats stats = SleepyCatIndexStats.read(TupleBase.entryToInput(theData));
+		if(stats.getDvaCount() != index.getDvas().size())
+		{
+			//Left by an index of the same name that was dropped
+			return null;
+		}
+		return stats;
+	}
+	
+	private void saveIndexStats(IndexDef index, SleepyCatIndexStats stats) throws Exception
+	{
+		DatabaseEntry theKey = new DatabaseEntry();
+		DatabaseEntry theData = new DatabaseEntry();
+		SleepyCatKey.statsKey(index.name, theKey);
+		TupleOutput output = new TupleOutput();
+		stats.write(output);
+		TupleBase.outputToEntry(output, theData);
+		this.ordinalDb.put(null, theKey, theData);
+	}
+	
+	private SleepyCatIndexStats getSecDbStats(IndexDef index) throws Exception
+	{
+		SleepyCatIndexStats stats = new SleepyCatIndexStats(index.getDvas().size());
+		DatabaseEntry theKey = new DatabaseEntry();
+		DatabaseEntry thePrimaryKey = new DatabaseEntry();
+		//Read the keys only, as SleepyCatDataAdapter.getUids does
+		DatabaseEntry theData = new DatabaseEntry();
+		theData.setPartial(0, 0, true);
+		SecondaryCursor cursor = this.getSecDb(index).openCursor(null, null);
+		try
+		{
+			OperationStatus status = cursor.getFirst(theKey, thePrimaryKey, theData, LockMode.READ_UNCOMMITTED);
+			while(status == OperationStatus.SUCCESS)
+			{
+				stats.addKey(SleepyCatIndexKey.fromEntry(theKey), cursor.count());
+				status = cursor.getNextNoDup(theKey, thePrimaryKey, theData, LockMode.READ_UNCOMMITTED);
+			}
+		}
+		finally
+		{
+			cursor.close();
+		}
+		return stats;
+	}
+	
 	public SecondaryDatabase getSecDb(IndexDef index) throws Exception
 	{
-		SecondaryDatabase secDb = (SecondaryDatabase)this.secDbs.get(index.name);
+		SecondaryDatabase secDb = this.secDbs.get(index.name);
 		
 		if(secDb == null)
 		{
@@ -156,30 +1192,28 @@ public class SleepyCatDataBase {
 	
 	public void closeDb() throws Exception
 	{
-		Enumeration secDbKeys = this.secDbs.keys();
+		this.endBulkLoad();
+		if(this.scanPool != null)
+		{
+			this.scanPool.shutdown();
+		}
+		Enumeration<String> secDbKeys = this.secDbs.keys();
 		while(secDbKeys.hasMoreElements())
 		{
-			SecondaryDatabase secDb = (SecondaryDatabase)secDbs.get(secDbKeys.nextElement());
+			SecondaryDatabase secDb = secDbs.get(secDbKeys.nextElement());
 			secDb.close();
 		}
+		Enumeration<SleepyCatBitmapIndex> bitmapIndexes = this.bitmapIndexes.elements();
+		while(bitmapIndexes.hasMoreElements())
+		{
+			bitmapIndexes.nextElement().getDb().close();
+		}
+		this.uidSequence.close();
+		this.saveClassWrites();
+		this.ordinalDb.close();
 		this.objectDb.close();
 		this.classDb.close();
 		this.classCatalog.close();
 		this.env.close();
 	}
-
-	/**
-	 * @return Returns the classKeyPrefix.
-	 */
-	public String getClassKeyPrefix() {
-		return classKeyPrefix;
-	}
-
-	/**
-	 * @return Returns the objectKeyPrefix.
-	 */
-	public String getObjectKeyPrefix() {
-		return objectKeyPrefix;
-	}
-	
 }
@@ -0,0 +1,187 @@
+package wdb;
+
+import com.sleepycat.je.EnvironmentConfig;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.util.*;
+
+/**
+ * Tuning of the JE environment, read from properties.
+ *
+ * wdb.profile picks a preset (default, read-heavy, ingest or low-memory).
+ * Any je.* property is handed to EnvironmentConfig.setConfigParam and
+ * overrides the preset, so every JE parameter can be set without code
+ * changes. wdb.cacheSize sets the number of objects and classes each
+ * transaction keeps deserialized, wdb.uidBlockSize the number of UIDs
+ * taken from the UID sequence at a time and wdb.scanParallelism the number
+ * of threads a search without a usable index scans the class with.
+ *
+ * Properties come from a file (wdb.properties in the instance root) and
+ * then from system properties of the same names, which win.
+ */
+public class SleepyCatEnvironmentProfile {
+	public static final String PROFILE = "wdb.profile";
+	public static final String CACHE_SIZE = "wdb.cacheSize";
+	public static final String UID_BLOCK_SIZE = "wdb.uidBlockSize";
+	public static final String SCAN_PARALLELISM = "wdb.scanParallelism";
+	public static final String DEFAULT_PROFILE = "default";
+
+	//Parameters printed at open besides the ones set by the profile
+	private static final String[] SHOWN_PARAMS = {
+		EnvironmentConfig.LOG_FILE_MAX,
+		EnvironmentConfig.CLEANER_THREADS,
+		EnvironmentConfig.CHECKPOINTER_BYTES_INTERVAL,
+		EnvironmentConfig.LOCK_TIMEOUT,
+		EnvironmentConfig.TXN_DURABILITY
+	};
+
+	private String name;
+	private Properties properties;
+
+	public SleepyCatEnvironmentProfile(Properties settings)
+	{
+		this.name = settings.getProperty(PROFILE, DEFAULT_PROFILE).trim();
+		this.properties = getPreset(this.name);
+		this.properties.putAll(settings);
+	}
+
+	/**
+	 * Reads the settings from a properties file, if it exists, and the
+	 * system properties.
+	 */
+	public static SleepyCatEnvironmentProfile load(File file) throws Exception
+	{
+		Properties settings = new Properties();
+		if(file != null && file.isFile())
+		{
+			InputStream in = new FileInputStream(file);
+			try
+			{
+				settings.load(in);
+			}
+			finally
+			{
+				in.close();
+			}
+		}
+		Properties system = System.getProperties();
+		for(Enumeration<?> e = system.propertyNames(); e.hasMoreElements(); )
+		{
+			String key = (String)e.nextElement();
+			if(key.startsWith("je.") || key.startsWith("wdb."))
+			{
+				settings.setProperty(key, system.getProperty(key));
+			}
+		}
+		return new SleepyCatEnvironmentProfile(settings);
+	}
+
+	private static Properties getPreset(String name)
+	{
+		Properties preset = new Properties();
+		if(name.equals("read-heavy"))
+		{
+			//Most of the heap for the B-tree cache, keep more log files open for random reads
+			preset.setProperty(EnvironmentConfig.MAX_MEMORY_PERCENT, "75");
+			preset.setProperty(EnvironmentConfig.LOG_FILE_CACHE_SIZE, "300");
+			preset.setProperty(EnvironmentConfig.CLEANER_THREADS, "1");
+			preset.setProperty(EnvironmentConfig.LOCK_TIMEOUT, "500 ms");
+			preset.setProperty(CACHE_SIZE, "5000");
+		}
+		else if(name.equals("ingest"))
+		{
+			//Large log files and buffers, fewer checkpoints, no fsync on commit
+			preset.setProperty(EnvironmentConfig.MAX_MEMORY_PERCENT, "60");
+			preset.setProperty(EnvironmentConfig.LOG_FILE_MAX, "100000000");
+			preset.setProperty(EnvironmentConfig.LOG_BUFFER_SIZE, "1048576");
+			preset.setProperty(EnvironmentConfig.CLEANER_THREADS, "2");
+			preset.setProperty(EnvironmentConfig.CHECKPOINTER_BYTES_INTERVAL, "200000000");
+			preset.setProperty(EnvironmentConfig.LOCK_TIMEOUT, "2 s");
+			preset.setProperty(EnvironmentConfig.TXN_DURABILITY, "WRITE_NO_SYNC,NO_SYNC,SIMPLE_MAJORITY");
+			preset.setProperty(UID_BLOCK_SIZE, "1000");
+		}
+		else if(name.equals("low-memory"))
+		{
+			//Small fixed cache and log buffers, small log files so the cleaner works in little steps
+			preset.setProperty(EnvironmentConfig.MAX_MEMORY, "16777216");
+			preset.setProperty(EnvironmentConfig.LOG_NUM_BUFFERS, "2");
+			preset.setProperty(EnvironmentConfig.LOG_BUFFER_SIZE, "65536");
+			preset.setProperty(EnvironmentConfig.LOG_FILE_MAX, "10000000");
+			preset.setProperty(EnvironmentConfig.LOG_FILE_CACHE_SIZE, "20");
+			preset.setProperty(EnvironmentConfig.CLEANER_THREADS, "1");
+			preset.setProperty(CACHE_SIZE, "200");
+		}
+		else if(!name.equals(DEFAULT_PROFILE))
+		{
+			throw new IllegalArgumentException("Unknown environment profile \"" + name + "\"");
+		}
+		return preset;
+	}
+
+	public String getName()
+	{
+		return this.name;
+	}
+
+	/**
+	 * Sets the je.* parameters of the profile on the configuration.
+	 * JE rejects unknown parameters and bad values with an
+	 * IllegalArgumentException.
+	 */
+	public void apply(EnvironmentConfig envConfig)
+	{
+		for(Enumeration<?> e = this.properties.propertyNames(); e.hasMoreElements(); )
+		{
+			String key = (String)e.nextElement();
+			if(key.startsWith("je."))
+			{
+				envConfig.setConfigParam(key, this.properties.getProperty(key).trim());
+			}
+		}
+	}
+
+	public int getCacheSize(int defaultSize)
+	{
+		String cacheSize = this.properties.getProperty(CACHE_SIZE);
+		return (cacheSize == null) ? defaultSize : Integer.parseInt(cacheSize.trim());
+	}
+
+	public int getUidBlockSize(int defaultSize)
+	{
+		String blockSize = this.properties.getProperty(UID_BLOCK_SIZE);
+		return (blockSize == null) ? defaultSize : Integer.parseInt(blockSize.trim());
+	}
+
+	public int getScanParallelism(int defaultParallelism)
+	{
+		String parallelism = this.properties.getProperty(SCAN_PARALLELISM);
+		return (parallelism == null) ? defaultParallelism : Integer.parseInt(parallelism.trim());
+	}
+
+	/**
+	 * Prints the settings an open environment really uses.
+	 */
+	public void print(EnvironmentConfig effective, int cacheSize, PrintStream out)
+	{
+		out.println("JE profile: " + this.name);
+		out.println("  cache size = " + effective.getCacheSize() + " bytes");
+		TreeSet<String> params = new TreeSet<String>(Arrays.asList(SHOWN_PARAMS));
+		for(Enumeration<?> e = this.properties.propertyNames(); e.hasMoreElements(); )
+		{
+			String key = (String)e.nextElement();
+			if(key.startsWith("je."))
+			{
+				params.add(key);
+			}
+		}
+		for(String param : params)
+		{
+			String value = effective.getConfigParam(param);
+			out.println("  " + param + " = " + ((value == null) ? "default" : value));
+		}
+		out.println("  " + CACHE_SIZE + " = " + cacheSize);
+	}
+}
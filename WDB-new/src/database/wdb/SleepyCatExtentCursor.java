@@ -0,0 +1,91 @@
+package wdb;
+
+import wdb.metadata.WDBObject;
+
+import com.sleepycat.bind.EntryBinding;
+import com.sleepycat.je.Cursor;
+import com.sleepycat.je.DatabaseEntry;
+import com.sleepycat.je.LockMode;
+import com.sleepycat.je.OperationStatus;
+
+/**
+ * Walks the instances of one class. The objects of a class share the
+ * key prefix 'O' + class id, so the whole extent is one key range of the
+ * object database and is read with a single cursor in UID order. A cursor
+ * can also be limited to the UIDs between two bounds, to split a scan.
+ */
+public class SleepyCatExtentCursor {
+	private Cursor cursor;
+	private EntryBinding<WDBObject> dataBinding;
+	private Integer classId;
+	private int lowUid;
+	private int highUid;
+	private DatabaseEntry theKey;
+	private DatabaseEntry theData;
+	private boolean started;
+	private SleepyCatStats stats;
+
+	public SleepyCatExtentCursor(Cursor cursor, EntryBinding<WDBObject> dataBinding, Integer classId, SleepyCatStats stats)
+	{
+		this(cursor, dataBinding, classId, Integer.MIN_VALUE, Integer.MAX_VALUE, stats);
+	}
+
+	/**
+	 * Walks the instances whose UIDs lie between lowUid and highUid, both included.
+	 */
+	public SleepyCatExtentCursor(Cursor cursor, EntryBinding<WDBObject> dataBinding, Integer classId, int lowUid, int highUid, SleepyCatStats stats)
+	{
+		this.lowUid = lowUid;
+		this.highUid = highUid;
+		this.stats = stats;
+		this.cursor = cursor;
+		this.dataBinding = dataBinding;
+		this.classId = classId;
+		this.theKey = new DatabaseEntry();
+		this.theData = new DatabaseEntry();
+		this.started = false;
+	}
+
+	/**
+	 * @return the next instance of the class, or null when the extent is exhausted
+	 */
+	public WDBObject next() throws Exception
+	{
+		if(this.cursor == null)
+		{
+			return null;
+		}
+
+		OperationStatus status;
+		if(!this.started)
+		{
+			SleepyCatKey.objectKey(this.classId, new Integer(this.lowUid), this.theKey);
+			status = this.cursor.getSearchKeyRange(this.theKey, this.theData, LockMode.DEFAULT);
+			this.started = true;
+		}
+		else
+		{
+			status = this.cursor.getNext(this.theKey, this.theData, LockMode.DEFAULT);
+		}
+
+		if(status != OperationStatus.SUCCESS
+				|| SleepyCatKey.getTag(this.theKey) != SleepyCatKey.OBJECT_TAG
+				|| !SleepyCatKey.getClassId(this.theKey).equals(this.classId)
+				|| (this.highUid != Integer.MAX_VALUE && SleepyCatKey.getUid(this.theKey).intValue() > this.highUid))
+		{
+			this.close();
+			return null;
+		}
+
+		return (WDBObject)this.stats.deserialize(this.dataBinding, this.theData);
+	}
+
+	public void close() throws Exception
+	{
+		if(this.cursor != null)
+		{
+			this.cursor.close();
+			this.cursor = null;
+		}
+	}
+}
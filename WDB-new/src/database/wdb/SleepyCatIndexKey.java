@@ -0,0 +1,121 @@
+package wdb;
+
+import wdb.metadata.IndexRange;
+
+import com.sleepycat.bind.tuple.TupleBase;
+import com.sleepycat.bind.tuple.TupleInput;
+import com.sleepycat.bind.tuple.TupleOutput;
+import com.sleepycat.je.DatabaseEntry;
+
+import java.util.ArrayList;
+
+/**
+ * Secondary index keys. Each DVA value of the index is written as a type
+ * tag followed by an order preserving encoding of the value, so the keys
+ * of a secondary database sort the same way IndexRange.compareValues orders
+ * the values, column by column.
+ */
+public final class SleepyCatIndexKey {
+	private static final int NULL_TAG = 0;
+	private static final int BOOLEAN_TAG = 1;
+	private static final int INTEGER_TAG = 2;
+	private static final int STRING_TAG = 3;
+
+	private SleepyCatIndexKey()
+	{
+	}
+
+	public static void toEntry(Object[] values, DatabaseEntry entry)
+	{
+		toEntry(values, values.length, entry);
+	}
+
+	/**
+	 * Writes the first count values only, giving the smallest key that
+	 * starts with them.
+	 */
+	public static void toEntry(Object[] values, int count, DatabaseEntry entry)
+	{
+		TupleOutput output = new TupleOutput();
+		for(int i = 0; i < count; i++)
+		{
+			writeValue(output, values[i]);
+		}
+		TupleBase.outputToEntry(output, entry);
+	}
+
+	public static Object[] fromEntry(DatabaseEntry entry)
+	{
+		TupleInput input = TupleBase.entryToInput(entry);
+		ArrayList<Object> values = new ArrayList<Object>();
+		while(input.available() > 0)
+		{
+			values.add(readValue(input));
+		}
+		return values.toArray();
+	}
+
+	/**
+	 * @return true if the first values of key are the ones in prefix
+	 */
+	public static boolean startsWith(Object[] key, Object[] prefix)
+	{
+		if(key.length < prefix.length)
+		{
+			return false;
+		}
+		for(int i = 0; i < prefix.length; i++)
+		{
+			if(IndexRange.compareValues(key[i], prefix[i]) != 0)
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static void writeValue(TupleOutput output, Object value)
+	{
+		if(value == null)
+		{
+			output.writeUnsignedByte(NULL_TAG);
+		}
+		else if(value instanceof Boolean)
+		{
+			output.writeUnsignedByte(BOOLEAN_TAG);
+			output.writeBoolean(((Boolean)value).booleanValue());
+		}
+		else if(value instanceof Integer)
+		{
+			output.writeUnsignedByte(INTEGER_TAG);
+			output.writeInt(((Integer)value).intValue());
+		}
+		else if(value instanceof String)
+		{
+			output.writeUnsignedByte(STRING_TAG);
+			output.writeString((String)value);
+		}
+		else
+		{
+			throw new IllegalArgumentException("Values of type " + value.getClass().getName() + " can not be indexed");
+		}
+	}
+
+	private static Object readValue(TupleInput input)
+	{
+		int tag = input.readUnsignedByte();
+		switch(tag)
+		{
+			case NULL_TAG:
+				return null;
+			case BOOLEAN_TAG:
+				return Boolean.valueOf(input.readBoolean());
+			case INTEGER_TAG:
+				return new Integer(input.readInt());
+			case STRING_TAG:
+				return input.readString();
+			default:
+				throw new IllegalArgumentException("Unknown index key tag " + tag);
+		}
+	}
+}
@@ -0,0 +1,142 @@
+package wdb;
+
+import wdb.metadata.IndexRange;
+
+import com.sleepycat.bind.tuple.TupleInput;
+import com.sleepycat.bind.tuple.TupleOutput;
+
+/**
+ * Statistics of one index used to estimate how many objects a condition
+ * selects: the number of entries, which is the number of objects of the
+ * class, and the number of distinct keys for every prefix of the indexed
+ * DVAs.
+ *
+ * The statistics are gathered by reading the keys of the index in order
+ * and kept in the ordinal database, see SleepyCatDataBase.getIndexStats
+ * for when they are refreshed.
+ */
+public class SleepyCatIndexStats {
+	//Fraction of the entries a range on one DVA is guessed to select
+	public static final double OPEN_RANGE_SELECTIVITY = 1.0 / 3;
+	public static final double BOUNDED_RANGE_SELECTIVITY = 1.0 / 4;
+
+	private long entries;
+	//distinctKeys[i] is the number of distinct values of the first i + 1 DVAs
+	private long[] distinctKeys;
+	private Object[] lastKey;
+	//Writes to the class when the statistics were gathered
+	private long writes;
+
+	public SleepyCatIndexStats(int dvaCount)
+	{
+		this.distinctKeys = new long[dvaCount];
+	}
+
+	/**
+	 * Counts the entries of a key. Keys must be added in index order.
+	 */
+	void addKey(Object[] values, long count)
+	{
+		int first = 0;
+		if(this.lastKey != null)
+		{
+			while(first < this.distinctKeys.length
+					&& IndexRange.compareValues(this.lastKey[first], values[first]) == 0)
+			{
+				first++;
+			}
+		}
+		for(int i = first; i < this.distinctKeys.length; i++)
+		{
+			this.distinctKeys[i]++;
+		}
+		this.entries += count;
+		this.lastKey = values;
+	}
+
+	long getWrites()
+	{
+		return this.writes;
+	}
+
+	void setWrites(long writes)
+	{
+		this.writes = writes;
+		this.lastKey = null;
+	}
+
+	int getDvaCount()
+	{
+		return this.distinctKeys.length;
+	}
+
+	public long getEntries()
+	{
+		return this.entries;
+	}
+
+	/**
+	 * @return the number of distinct values of the first prefixLength DVAs
+	 */
+	public long getDistinctKeys(int prefixLength)
+	{
+		return this.distinctKeys[prefixLength - 1];
+	}
+
+	/**
+	 * @return the estimated number of entries whose first prefixLength DVAs
+	 * equal given values and whose next DVA lies in range, if any
+	 */
+	public double estimateRows(int prefixLength, IndexRange range)
+	{
+		if(this.entries == 0)
+		{
+			return 0;
+		}
+		double rows = this.entries;
+		if(prefixLength > 0)
+		{
+			rows /= this.getDistinctKeys(prefixLength);
+		}
+		if(range != null)
+		{
+			rows *= (range.lower != null && range.upper != null) ? BOUNDED_RANGE_SELECTIVITY : OPEN_RANGE_SELECTIVITY;
+		}
+		return rows;
+	}
+
+	void write(TupleOutput output)
+	{
+		output.writeLong(this.writes);
+		output.writeLong(this.entries);
+		output.writeInt(this.distinctKeys.length);
+		for(int i = 0; i < this.distinctKeys.length; i++)
+		{
+			output.writeLong(this.distinctKeys[i]);
+		}
+	}
+
+	static SleepyCatIndexStats read(TupleInput input)
+	{
+		long writes = input.readLong();
+		long entries = input.readLong();
+		SleepyCatIndexStats stats = new SleepyCatIndexStats(input.readInt());
+		for(int i = 0; i < stats.distinctKeys.length; i++)
+		{
+			stats.distinctKeys[i] = input.readLong();
+		}
+		stats.entries = entries;
+		stats.writes = writes;
+		return stats;
+	}
+
+	public String toString()
+	{
+		StringBuffer s = new StringBuffer(this.entries + " entries, distinct keys");
+		for(int i = 0; i < this.distinctKeys.length; i++)
+		{
+			s.append(" " + this.distinctKeys[i]);
+		}
+		return s.toString();
+	}
+}
@@ -0,0 +1,142 @@
+package wdb;
+
+import com.sleepycat.bind.tuple.TupleBase;
+import com.sleepycat.bind.tuple.TupleInput;
+import com.sleepycat.bind.tuple.TupleOutput;
+import com.sleepycat.je.DatabaseEntry;
+
+import java.io.ObjectStreamConstants;
+
+/**
+ * Fixed width binary keys for the object, class and ordinal databases.
+ *
+ * object:      tag 'O' + class id + UID      (9 bytes)
+ * class:       tag 'C' + class id            (5 bytes)
+ * class name:  tag 'N' + class name          (maps the name to its class id)
+ * ordinal:     tag 'D' + class id + UID      (maps an object to its ordinal)
+ * ordinal UID: tag 'U' + class id + ordinal  (maps an ordinal back to the UID)
+ * sequence:    tag 'Q' + name                (a JE sequence, in the ordinal database)
+ * statistics:  tag 'S' + index name          (planner statistics, in the ordinal database)
+ * writes:      tag 'W' + class name          (object writes of a class, in the ordinal database)
+ *
+ * Integers are written big-endian with the sign bit flipped, so the keys
+ * of one class sort by UID and lie next to each other in the database.
+ * All tags sort before TC_STRING, the first byte of the old serialized
+ * string keys.
+ */
+public final class SleepyCatKey {
+	public static final byte OBJECT_TAG = 'O';
+	public static final byte CLASS_TAG = 'C';
+	public static final byte CLASS_NAME_TAG = 'N';
+	public static final byte ORDINAL_TAG = 'D';
+	public static final byte ORDINAL_UID_TAG = 'U';
+	public static final byte SEQUENCE_TAG = 'Q';
+	public static final byte STATS_TAG = 'S';
+	public static final byte WRITES_TAG = 'W';
+
+	public static final int OBJECT_KEY_SIZE = 9;
+	public static final int CLASS_KEY_SIZE = 5;
+
+	private SleepyCatKey()
+	{
+	}
+
+	public static void objectKey(Integer classId, Integer Uid, DatabaseEntry entry)
+	{
+		TupleOutput output = new TupleOutput(new byte[OBJECT_KEY_SIZE]);
+		output.writeUnsignedByte(OBJECT_TAG);
+		output.writeInt(classId.intValue());
+		output.writeInt(Uid.intValue());
+		TupleBase.outputToEntry(output, entry);
+	}
+
+	public static void ordinalKey(Integer classId, Integer Uid, DatabaseEntry entry)
+	{
+		classIntKey(ORDINAL_TAG, classId, Uid.intValue(), entry);
+	}
+
+	public static void ordinalUidKey(Integer classId, int ordinal, DatabaseEntry entry)
+	{
+		classIntKey(ORDINAL_UID_TAG, classId, ordinal, entry);
+	}
+
+	private static void classIntKey(byte tag, Integer classId, int value, DatabaseEntry entry)
+	{
+		TupleOutput output = new TupleOutput(new byte[OBJECT_KEY_SIZE]);
+		output.writeUnsignedByte(tag);
+		output.writeInt(classId.intValue());
+		output.writeInt(value);
+		TupleBase.outputToEntry(output, entry);
+	}
+
+	public static void classKey(Integer classId, DatabaseEntry entry)
+	{
+		TupleOutput output = new TupleOutput(new byte[CLASS_KEY_SIZE]);
+		output.writeUnsignedByte(CLASS_TAG);
+		output.writeInt(classId.intValue());
+		TupleBase.outputToEntry(output, entry);
+	}
+
+	public static void classNameKey(String className, DatabaseEntry entry)
+	{
+		TupleOutput output = new TupleOutput();
+		output.writeUnsignedByte(CLASS_NAME_TAG);
+		output.writeString(className);
+		TupleBase.outputToEntry(output, entry);
+	}
+
+	public static void sequenceKey(String name, DatabaseEntry entry)
+	{
+		nameKey(SEQUENCE_TAG, name, entry);
+	}
+
+	public static void statsKey(String indexName, DatabaseEntry entry)
+	{
+		nameKey(STATS_TAG, indexName, entry);
+	}
+
+	public static void writesKey(String className, DatabaseEntry entry)
+	{
+		nameKey(WRITES_TAG, className, entry);
+	}
+
+	private static void nameKey(byte tag, String name, DatabaseEntry entry)
+	{
+		TupleOutput output = new TupleOutput();
+		output.writeUnsignedByte(tag);
+		output.writeString(name);
+		TupleBase.outputToEntry(output, entry);
+	}
+
+	public static byte getTag(DatabaseEntry entry)
+	{
+		return entry.getData()[entry.getOffset()];
+	}
+
+	public static Integer getClassId(DatabaseEntry entry)
+	{
+		TupleInput input = TupleBase.entryToInput(entry);
+		input.readUnsignedByte();
+		return new Integer(input.readInt());
+	}
+
+	public static Integer getUid(DatabaseEntry entry)
+	{
+		TupleInput input = TupleBase.entryToInput(entry);
+		input.readUnsignedByte();
+		input.readInt();
+		return new Integer(input.readInt());
+	}
+
+	public static String getClassName(DatabaseEntry entry)
+	{
+		TupleInput input = TupleBase.entryToInput(entry);
+		input.readUnsignedByte();
+		return input.readString();
+	}
+
+	public static boolean isLegacy(DatabaseEntry entry)
+	{
+		return entry.getSize() > 0 && getTag(entry) == ObjectStreamConstants.TC_STRING;
+	}
+}
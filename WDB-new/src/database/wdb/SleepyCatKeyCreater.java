@@ -7,10 +7,10 @@
 package wdb;
 
 import wdb.metadata.WDBObject;
+import wdb.metadata.WDBObjectBinding;
 import wdb.metadata.IndexDef;
 
 import com.sleepycat.bind.EntryBinding;
-import com.sleepycat.bind.serial.SerialBinding;
 import com.sleepycat.bind.serial.StoredClassCatalog;
 import com.sleepycat.je.Database;
 import com.sleepycat.je.DatabaseEntry;
@@ -30,17 +30,13 @@ public class SleepyCatKeyCreater implements SecondaryKeyCreator {
 	private Database db;
 	private StoredClassCatalog classCatalog;
 	private EntryBinding dataBinding; 
-	private EntryBinding keyBinding;
-	private String objectKeyPrefix;
 	
 	public SleepyCatKeyCreater(IndexDef index, Database db, StoredClassCatalog classCatalog)
 	{
 		this.index = index;
 		this.db = db;
 		this.classCatalog = classCatalog;
-		this.dataBinding = new SerialBinding(this.classCatalog, WDBObject.class);
-		this.keyBinding = new SerialBinding(this.classCatalog, String.class);
-		this.objectKeyPrefix = "object";
+		this.dataBinding = new WDBObjectBinding(this.classCatalog);
 	}
 	
 	public boolean createSecondaryKey(SecondaryDatabase secDb,
@@ -49,29 +45,19 @@ public class SleepyCatKeyCreater implements SecondaryKeyCreator {
 			DatabaseEntry resultEntry) // set the key data on this.
 			throws DatabaseException {
 		
-		String primaryKey = ((String)keyBinding.entryToObject(keyEntry));
-		
-		if(primaryKey != null && primaryKey.startsWith(this.objectKeyPrefix))
+		if(SleepyCatKey.getTag(keyEntry) == SleepyCatKey.OBJECT_TAG)
 		{
 			WDBObject object = ((WDBObject)dataBinding.entryToObject(dataEntry));
 			if(object.getClassName().equals(index.className))
 			{
 				ArrayList dvas = index.getDvas();
-				String key = null;
+				Object[] values = new Object[dvas.size()];
 				for(int i = 0; i < dvas.size(); i++)
 				{
-					String value = object.getImmDvaValue(((String)dvas.get(i))).toString();
-					if(key == null)
-					{
-						key = value;
-					}
-					else
-					{
-						key = key + ":" + value;
-					}
+					values[i] = object.getImmDvaValue(((String)dvas.get(i)));
 				}
 				
-				this.keyBinding.objectToEntry(key, resultEntry);
+				SleepyCatIndexKey.toEntry(values, resultEntry);
 				return true;
 			}
 		}
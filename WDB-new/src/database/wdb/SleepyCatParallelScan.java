@@ -0,0 +1,196 @@
+package wdb;
+
+import wdb.metadata.Predicate;
+import wdb.metadata.QueryPlan;
+import wdb.metadata.WDBObject;
+
+import com.sleepycat.je.CursorConfig;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * The objects of a class that match a predicate, found by the threads of
+ * the scan pool of the database. The UIDs of the class are split in ranges
+ * holding about as many objects each, read with read committed cursors,
+ * each by a thread with its own adapter. The matches are handed out range
+ * by range, so in UID order.
+ *
+ * Only a few ranges per thread are read ahead, and a range stops after
+ * MATCHES_PER_CHUNK matches until the ones it has are handed out, so at
+ * most about (ranges ahead + 1) * MATCHES_PER_CHUNK objects are held.
+ */
+public class SleepyCatParallelScan {
+	static final int RANGES_PER_THREAD = 2;
+	static final int MATCHES_PER_CHUNK = 1024;
+
+	private SleepyCatDataBase scdb;
+	private Integer classId;
+	private Predicate predicate;
+	private int[] splits;
+	private int nextRange;
+	private int rangesAhead;
+	//Chunks being read, one per range, in UID order
+	private LinkedList<Future<ScanChunk>> chunks;
+	private ArrayList<WDBObject> matches;
+	private int nextMatch;
+	private SleepyCatStats stats;
+	private QueryPlan plan;
+
+	SleepyCatParallelScan(SleepyCatDataBase scdb, Integer classId, Predicate predicate, SleepyCatStats stats, QueryPlan plan) throws Exception
+	{
+		this.scdb = scdb;
+		this.classId = classId;
+		this.predicate = predicate;
+		this.stats = stats;
+		this.plan = plan;
+		this.chunks = new LinkedList<Future<ScanChunk>>();
+		this.rangesAhead = scdb.getScanParallelism() * RANGES_PER_THREAD;
+		this.splits = scdb.getUidSplits(classId, scdb.getScanParallelism() * SleepyCatDataAdapter.PARTITIONS_PER_THREAD);
+		if(this.splits == null)
+		{
+			this.splits = new int[0];
+		}
+		if(this.plan != null)
+		{
+			this.plan.scanRanges = Math.max(this.splits.length - 1, 0);
+		}
+		this.submitRanges();
+	}
+
+	//Starts ranges until enough are read ahead
+	private void submitRanges()
+	{
+		while(this.chunks.size() < this.rangesAhead && this.nextRange + 1 < this.splits.length)
+		{
+			int i = this.nextRange++;
+			//The last range ends with the last UID, the others just before the next range
+			int high = (i + 2 == this.splits.length) ? this.splits[i + 1] : this.splits[i + 1] - 1;
+			this.chunks.add(this.submit(this.splits[i], high));
+		}
+	}
+
+	private Future<ScanChunk> submit(int lowUid, int highUid)
+	{
+		return this.scdb.getScanPool().submit(new ScanChunk(this.scdb, this.classId, lowUid, highUid, this.predicate));
+	}
+
+	/**
+	 * @return the next matching object, or null when every range is done
+	 */
+	public WDBObject next() throws Exception
+	{
+		while(this.matches == null || this.nextMatch >= this.matches.size())
+		{
+			if(this.chunks.isEmpty())
+			{
+				return null;
+			}
+			ScanChunk chunk;
+			try
+			{
+				chunk = this.chunks.getFirst().get();
+			}
+			catch(ExecutionException ee)
+			{
+				this.close();
+				throw (ee.getCause() instanceof Exception) ? (Exception)ee.getCause() : ee;
+			}
+			if(chunk.resumeUid != null)
+			{
+				//The rest of the range is read while this chunk is handed out
+				this.chunks.set(0, this.submit(chunk.resumeUid.intValue(), chunk.highUid));
+			}
+			else
+			{
+				this.chunks.removeFirst();
+				this.submitRanges();
+			}
+			//Counters of the chunk are added once it is handed out
+			this.stats.add(chunk.stats);
+			if(this.plan != null)
+			{
+				this.plan.candidateRows += chunk.scanned;
+			}
+			this.matches = chunk.matches;
+			this.nextMatch = 0;
+		}
+		return this.matches.get(this.nextMatch++);
+	}
+
+	/**
+	 * Cancels the chunks not handed out yet.
+	 */
+	public void close()
+	{
+		for(Future<ScanChunk> chunk : this.chunks)
+		{
+			chunk.cancel(false);
+		}
+		this.chunks.clear();
+		this.nextRange = this.splits.length;
+		this.matches = null;
+	}
+
+	//Reads a range from lowUid on, until its end or until it has MATCHES_PER_CHUNK matches
+	private static class ScanChunk implements Callable<ScanChunk>
+	{
+		private SleepyCatDataBase scdb;
+		private Integer classId;
+		private int lowUid;
+		private int highUid;
+		private Predicate predicate;
+		private SleepyCatStats stats;
+		private ArrayList<WDBObject> matches;
+		private long scanned;
+		//Where the rest of the range starts, null when the range is done
+		private Integer resumeUid;
+
+		public ScanChunk(SleepyCatDataBase scdb, Integer classId, int lowUid, int highUid, Predicate predicate)
+		{
+			this.scdb = scdb;
+			this.classId = classId;
+			this.lowUid = lowUid;
+			this.highUid = highUid;
+			this.predicate = predicate;
+			this.stats = new SleepyCatStats();
+			this.matches = new ArrayList<WDBObject>();
+		}
+
+		public ScanChunk call() throws Exception
+		{
+			SleepyCatDataAdapter scda = new SleepyCatDataAdapter(this.scdb, null, 0, this.stats);
+			SleepyCatExtentCursor extent = new SleepyCatExtentCursor(this.scdb.getObjectDb().openCursor(null, CursorConfig.READ_COMMITTED),
+					this.scdb.getObjectBinding(), this.classId, this.lowUid, this.highUid, this.stats);
+			try
+			{
+				WDBObject object;
+				while((object = extent.next()) != null)
+				{
+					this.scanned++;
+					if(this.predicate.eval(scda, object))
+					{
+						this.matches.add(object);
+						if(this.matches.size() >= MATCHES_PER_CHUNK)
+						{
+							int uid = object.getUid().intValue();
+							if(uid < this.highUid)
+							{
+								this.resumeUid = Integer.valueOf(uid + 1);
+							}
+							break;
+						}
+					}
+				}
+			}
+			finally
+			{
+				extent.close();
+			}
+			return this;
+		}
+	}
+}
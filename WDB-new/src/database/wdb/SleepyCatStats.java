@@ -0,0 +1,186 @@
+package wdb;
+
+import com.sleepycat.bind.EntryBinding;
+import com.sleepycat.je.DatabaseEntry;
+import com.sleepycat.je.EnvironmentStats;
+
+import java.io.PrintStream;
+
+/**
+ * Counters of the work the data adapters do, kept by SleepyCatDataBase for
+ * the last query and for the whole session.
+ */
+public class SleepyCatStats {
+	private long objectGets;
+	private long objectCacheHits;
+	private long classGets;
+	private long classCacheHits;
+	private long secondaryCursorSteps;
+	private long bitmapChunkReads;
+	private long deserializations;
+	private long deserializedBytes;
+	private long deserializeNanos;
+
+	public SleepyCatStats()
+	{
+	}
+
+	public SleepyCatStats(SleepyCatStats stats)
+	{
+		this.add(stats);
+	}
+
+	void objectGet(boolean cacheHit)
+	{
+		this.objectGets++;
+		if(cacheHit)
+		{
+			this.objectCacheHits++;
+		}
+	}
+
+	void classGet(boolean cacheHit)
+	{
+		this.classGets++;
+		if(cacheHit)
+		{
+			this.classCacheHits++;
+		}
+	}
+
+	void secondaryCursorStep()
+	{
+		this.secondaryCursorSteps++;
+	}
+
+	void bitmapChunkRead()
+	{
+		this.bitmapChunkReads++;
+	}
+
+	void deserialized(int bytes, long nanos)
+	{
+		this.deserializations++;
+		this.deserializedBytes += bytes;
+		this.deserializeNanos += nanos;
+	}
+
+	/**
+	 * Reads a record with the binding, counting its size and the time taken.
+	 */
+	Object deserialize(EntryBinding binding, DatabaseEntry entry)
+	{
+		long start = System.nanoTime();
+		Object record = binding.entryToObject(entry);
+		this.deserialized(entry.getSize(), System.nanoTime() - start);
+		return record;
+	}
+
+	public void add(SleepyCatStats stats)
+	{
+		this.objectGets += stats.objectGets;
+		this.objectCacheHits += stats.objectCacheHits;
+		this.classGets += stats.classGets;
+		this.classCacheHits += stats.classCacheHits;
+		this.secondaryCursorSteps += stats.secondaryCursorSteps;
+		this.bitmapChunkReads += stats.bitmapChunkReads;
+		this.deserializations += stats.deserializations;
+		this.deserializedBytes += stats.deserializedBytes;
+		this.deserializeNanos += stats.deserializeNanos;
+	}
+
+	public void clear()
+	{
+		this.objectGets = 0;
+		this.objectCacheHits = 0;
+		this.classGets = 0;
+		this.classCacheHits = 0;
+		this.secondaryCursorSteps = 0;
+		this.bitmapChunkReads = 0;
+		this.deserializations = 0;
+		this.deserializedBytes = 0;
+		this.deserializeNanos = 0;
+	}
+
+	public long getObjectGets()
+	{
+		return this.objectGets;
+	}
+
+	public long getObjectCacheHits()
+	{
+		return this.objectCacheHits;
+	}
+
+	public long getClassGets()
+	{
+		return this.classGets;
+	}
+
+	public long getClassCacheHits()
+	{
+		return this.classCacheHits;
+	}
+
+	public long getSecondaryCursorSteps()
+	{
+		return this.secondaryCursorSteps;
+	}
+
+	public long getBitmapChunkReads()
+	{
+		return this.bitmapChunkReads;
+	}
+
+	/**
+	 * @return the number of object and class records read from their bytes,
+	 * including the ones read by extent scans
+	 */
+	public long getDeserializations()
+	{
+		return this.deserializations;
+	}
+
+	public long getDeserializedBytes()
+	{
+		return this.deserializedBytes;
+	}
+
+	public long getDeserializeNanos()
+	{
+		return this.deserializeNanos;
+	}
+
+	public void print(PrintStream out)
+	{
+		out.println("  object gets = " + this.objectGets + " (" + this.objectCacheHits + " from cache)");
+		out.println("  class gets = " + this.classGets + " (" + this.classCacheHits + " from cache)");
+		out.println("  secondary cursor steps = " + this.secondaryCursorSteps);
+		out.println("  bitmap chunk reads = " + this.bitmapChunkReads);
+		out.println("  deserialized = " + this.deserializations + " records, " + this.deserializedBytes + " bytes, "
+				+ (this.deserializeNanos / 1000000) + " ms");
+	}
+
+	/**
+	 * Prints the JE cache, lock and log figures most useful to tell why a
+	 * query is slow.
+	 */
+	public static void printEnvironmentStats(EnvironmentStats stats, PrintStream out)
+	{
+		long fetches = stats.getNLNsFetch() + stats.getNBINsFetch() + stats.getNUpperINsFetch();
+		long misses = stats.getNLNsFetchMiss() + stats.getNBINsFetchMiss() + stats.getNUpperINsFetchMiss();
+		long evictions = stats.getNBINsEvictedEvictorThread() + stats.getNBINsEvictedManual()
+				+ stats.getNBINsEvictedCritical() + stats.getNBINsEvictedCacheMode() + stats.getNBINsEvictedDaemon()
+				+ stats.getNUpperINsEvictedEvictorThread() + stats.getNUpperINsEvictedManual()
+				+ stats.getNUpperINsEvictedCritical() + stats.getNUpperINsEvictedCacheMode() + stats.getNUpperINsEvictedDaemon();
+
+		out.println("  cache = " + stats.getCacheTotalBytes() + " bytes used");
+		out.println("  cache hit ratio = " + ((fetches == 0) ? "n/a" : String.format("%.2f%%", 100.0 * (fetches - misses) / fetches))
+				+ " (" + fetches + " fetches, " + misses + " misses)");
+		out.println("  evictions = " + evictions + " nodes in " + stats.getNEvictPasses() + " passes");
+		out.println("  lock waits = " + stats.getNWaits() + " of " + stats.getNRequests() + " requests");
+		out.println("  log reads = " + stats.getNRandomReads() + " random (" + stats.getNRandomReadBytes() + " bytes), "
+				+ stats.getNSequentialReads() + " sequential (" + stats.getNSequentialReadBytes() + " bytes), "
+				+ stats.getNCacheMiss() + " log buffer misses");
+	}
+}
@@ -1,7 +1,10 @@
 package wdb;
 
 import com.thinkaurelius.titan.core.*;
+import com.thinkaurelius.titan.core.schema.SchemaAction;
 import com.thinkaurelius.titan.core.schema.TitanManagement;
+import com.thinkaurelius.titan.graphdb.database.management.ManagementSystem;
+import org.apache.tinkerpop.gremlin.process.traversal.P;
 import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.GraphTraversal;
 import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.GraphTraversalSource;
 import org.apache.tinkerpop.gremlin.structure.*;
@@ -24,6 +27,10 @@ public class TitanWDB {
     private static QueryParser parser = null;
     private static TitanGraph graph = null;
     private static Object rootID = null;
+    // the classDef and attribute vertices, read once at startup and again after every CLASS,
+    // so schema lookups do not traverse the graph
+    private static Map<String, ClassEntry> classes = new HashMap<>();
+    private static Map<Object, ClassEntry> classesById = new HashMap<>();
 
     public static void main(String[] args) {
         try {
@@ -42,25 +49,123 @@ public class TitanWDB {
         graph = config.open();
         TitanManagement mg = graph.openManagement();
         boolean initGraph = mg.getGraphIndex("byClassDef") == null;
+        VertexLabel classLabel = getVertexLabel(mg, "classDef");
+        VertexLabel entityLabel = getVertexLabel(mg, "entity");
+        VertexLabel attributeLabel = getVertexLabel(mg, "attribute");
+        PropertyKey name = getPropertyKey(mg, "name", String.class);
+        PropertyKey className = getPropertyKey(mg, "class", String.class);
+        EdgeLabel eva = getEdgeLabel(mg, "eva");
+        // entities are found by their class, attributes by their name, classes by their name
+        List<String> newIndexes = new ArrayList<>();
         if (initGraph) {
-            VertexLabel classLabel = mg.makeVertexLabel("classDef").make();
-            PropertyKey name = mg.makePropertyKey("name").dataType(String.class).make();
             mg.buildIndex("byClassDef", Vertex.class).addKey(name).indexOnly(classLabel).buildCompositeIndex();
         }
+        if (!mg.containsGraphIndex("byEntityClass")) {
+            mg.buildIndex("byEntityClass", Vertex.class).addKey(className).indexOnly(entityLabel).buildCompositeIndex();
+            newIndexes.add("byEntityClass");
+        }
+        if (!mg.containsGraphIndex("byAttributeName")) {
+            mg.buildIndex("byAttributeName", Vertex.class).addKey(name).indexOnly(attributeLabel).buildCompositeIndex();
+            newIndexes.add("byAttributeName");
+        }
+        // the eva edges of a vertex are kept sorted by name and then target, so one EVA's
+        // edges, or the edge to one target, are read without going through the others
+        boolean newEvaIndex = !mg.containsRelationIndex(eva, "evaByName");
+        if (newEvaIndex) {
+            mg.buildEdgeIndex(eva, "evaByName", Direction.OUT, name);
+        }
         mg.commit();
+        if (!initGraph) {
+            // indexes added to an existing graph only cover the vertices written after them until reindexed
+            for (String indexName : newIndexes) {
+                reindex(indexName);
+            }
+            if (newEvaIndex) {
+                reindexEdges("eva", "evaByName");
+            }
+        }
         if (initGraph) {
             Vertex root = graph.addVertex(T.label, "classDef", "name", "root node");
             graph.tx().commit();
             rootID = root.id();
         } else {
             GraphTraversalSource g = graph.traversal();
-            g.V().hasLabel("classDef").forEachRemaining(n -> {
-                if (n.property("name").value().equals("root node")) {
-                    rootID = n.id();
+            rootID = g.V().has(T.label, "classDef").has("name", "root node").next().id();
+            graph.tx().commit();
+        }
+        loadCatalog();
+    }
+
+    // every class hangs off the root node through "superclasses" edges
+    private static void loadCatalog() {
+        Map<String, ClassEntry> byName = new HashMap<>();
+        Map<Object, ClassEntry> byId = new HashMap<>();
+        Deque<Vertex> pending = new ArrayDeque<>();
+        pending.add(graph.traversal().V(rootID).next());
+        while (!pending.isEmpty()) {
+            Iterator<Vertex> subclasses = pending.remove().vertices(Direction.OUT, "superclasses");
+            while (subclasses.hasNext()) {
+                Vertex classDef = subclasses.next();
+                if (!byId.containsKey(classDef.id())) {
+                    ClassEntry entry = new ClassEntry(classDef);
+                    byName.put(entry.name, entry);
+                    byId.put(entry.id, entry);
+                    pending.add(classDef);
                 }
-            });
+            }
+        }
+        graph.tx().rollback();
+        for (ClassEntry entry : byName.values()) {
+            addFamily(byName, entry, entry.family);
+        }
+        classes = byName;
+        classesById = byId;
+    }
+
+    // a class and every class under it, each once however many paths lead to it
+    private static void addFamily(Map<String, ClassEntry> byName, ClassEntry entry, Set<String> family) {
+        family.add(entry.name);
+        for (String subclass : entry.subclasses) {
+            if (!family.contains(subclass) && byName.containsKey(subclass)) {
+                addFamily(byName, byName.get(subclass), family);
+            }
+        }
+    }
+
+    private static VertexLabel getVertexLabel(TitanManagement mg, String label) {
+        return mg.containsVertexLabel(label) ? mg.getVertexLabel(label) : mg.makeVertexLabel(label).make();
+    }
+
+    private static PropertyKey getPropertyKey(TitanManagement mg, String key, Class<?> dataType) {
+        return mg.containsPropertyKey(key) ? mg.getPropertyKey(key) : mg.makePropertyKey(key).dataType(dataType).make();
+    }
+
+    private static EdgeLabel getEdgeLabel(TitanManagement mg, String label) {
+        return mg.containsEdgeLabel(label) ? mg.getEdgeLabel(label) : mg.makeEdgeLabel(label).make();
+    }
+
+    private static void reindexEdges(String label, String indexName) {
+        try {
+            ManagementSystem.awaitRelationIndexStatus(graph, indexName, label).call();
+            TitanManagement mg = graph.openManagement();
+            mg.updateIndex(mg.getRelationIndex(mg.getEdgeLabel(label), indexName), SchemaAction.REINDEX).get();
+            mg.commit();
+        } catch (Exception e) {
+            throw new RuntimeException("Could not build index " + indexName + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static void reindex(String indexName) {
+        try {
+            ManagementSystem.awaitGraphIndexStatus(graph, indexName).call();
+            TitanManagement mg = graph.openManagement();
+            mg.updateIndex(mg.getGraphIndex(indexName), SchemaAction.REINDEX).get();
+            mg.commit();
+        } catch (Exception e) {
+            throw new RuntimeException("Could not build index " + indexName + ": " + e.getMessage(), e);
         }
     }
+
     private static void processInput() {
         System.out.println("WDB + TitanDB 2.0");
         System.out.println("Implemented by: Alvin Deng");
@@ -125,57 +230,31 @@ public class TitanWDB {
     }
 
     private static Vertex getVertex(String classDef, String attribute, String value) {
-        Iterator<Vertex> vertices = graph.vertices();
-
-        while (vertices.hasNext()) {
-            Vertex nextV = vertices.next();
-            String currentLabel = nextV.label();
-            if (currentLabel.equals("entity") && nextV.property("class").value().equals(classDef)) {
-                if (nextV.property(attribute).value().toString().equals(value)) {
-                    return nextV;
-                }
+        GraphTraversal<Vertex, Vertex> instances = graph.traversal().V().has(T.label, "entity").has("class", classDef);
+        while (instances.hasNext()) {
+            Vertex nextV = instances.next();
+            if (nextV.property(attribute).isPresent() && nextV.property(attribute).value().toString().equals(value)) {
+                return nextV;
             }
         }
         return null;
     }
 
     private static String findInverseEdgeName(String classDefName, String edgeName) {
-        Iterator<Vertex> iter = graph.vertices();
-        while (iter.hasNext()) {
-            Vertex currentVertex = iter.next();
-            if (currentVertex.label().equals("attribute")) {
-                if (currentVertex.property("name").value().equals(edgeName)) {
-                    Iterator<Edge> edges = currentVertex.edges(Direction.OUT);
-                    while (edges.hasNext()) {
-                        Edge currentE = edges.next();
-                        String inverseEdgeName = currentE.inVertex().property("name").value().toString();
-                        if (currentE.inVertex().property("class").value().equals(classDefName)) {
-                            return inverseEdgeName;
-                        }
-                    }
-                }
-            }
-        }
-        return null;
+        ClassEntry entry = classes.get(classDefName);
+        AttributeEntry eva = (entry == null) ? null : entry.attributes.get(edgeName);
+        return (eva == null) ? null : eva.inverseName;
     }
 
     private static void processModifyQuery(ModifyQuery mq) {
         GraphTraversalSource g = graph.traversal();
-        ArrayList<Vertex> instanceList = new ArrayList<>();
-        Iterator<Vertex> vertices = graph.vertices();
+        List<Vertex> instanceList = g.V().has(T.label, "entity").has("class", mq.className).toList();
         ArrayList<Vertex> modifyingVertex = new ArrayList<>();
 
-        while (vertices.hasNext()) {
-            Vertex nextV = vertices.next();
-            String currentLabel = nextV.label();
-            if (currentLabel.equals("entity") && nextV.property("class").value().equals(mq.className)) {
-                instanceList.add(nextV);
-            }
-        }
-
-        Vertex classDef = lookupClass(g, mq.className);
+        Predicate predicate = Predicate.forExpression(mq.expression);
+        ClassEntry entry = classes.get(mq.className);
         for (Vertex instance : instanceList) {
-            if (matches(g, classDef, mq.expression, instance)) {
+            if (matches(entry, predicate, instance)) {
                 modifyingVertex.add(instance);
             }
         }
@@ -233,32 +312,10 @@ public class TitanWDB {
 
 
     private static void recurRetrieve(String classDef, ArrayList<Vertex> overall) {
-        Iterator<Vertex> vertices = graph.vertices();
-        HashSet<String> children = new HashSet<>();
-
-        while (vertices.hasNext()) {
-            Vertex nextV = vertices.next();
-            String currentLabel = nextV.label();
-            if (currentLabel.equals("classDef")) {
-                Iterator<Edge> iter = nextV.edges(Direction.OUT);
-                while (iter.hasNext()) {
-                    Edge currentE = iter.next();
-                    if (currentE.label().equals("subclasses")) {
-                        String inbound = currentE.inVertex().property("name").value().toString();
-                        if (inbound.equals(classDef)) {
-                            children.add(currentE.outVertex().property("name").value().toString());
-                        }
-                    }
-                }
-            }
-            if (currentLabel.equals("entity") && nextV.property("class").value().equals(classDef)) {
-                overall.add(nextV);
-            }
-        }
-
-        for (String x : children) {
-            recurRetrieve(x, overall);
-        }
+        GraphTraversalSource g = graph.traversal();
+        ClassEntry entry = classes.get(classDef);
+        Set<String> family = (entry == null) ? Collections.singleton(classDef) : entry.family;
+        overall.addAll(g.V().has(T.label, "entity").has("class", P.within(family)).toList());
     }
 
     private static void processRetrieveQuery(RetrieveQuery rq) {
@@ -371,24 +428,20 @@ public class TitanWDB {
     }
 
     private static void setDefaultDVAs(GraphTraversalSource g, Vertex classDef, Vertex entity) {
-        GraphTraversal<Vertex, Vertex> dvas = g.V(classDef.id()).outE("has").has("isDVA").inV().has("default_value");
-        while (dvas.hasNext()) {
-            Vertex dvaVertex = dvas.next();
-            Object initValue = dvaVertex.property("default_value").value();
-            String dvaName = (String) dvaVertex.property("name").value();
-            if (!entity.property(dvaName).isPresent()) {
-                entity.property(dvaName, initValue);
+        for (AttributeEntry dva : classesById.get(classDef.id()).attributes.values()) {
+            if (dva.isDVA && dva.defaultValue != null && !entity.property(dva.name).isPresent()) {
+                entity.property(dva.name, dva.defaultValue);
             }
         }
     }
 
     private static void checkRequiredInserts(InsertQuery iq, GraphTraversalSource g, Vertex classDef, Vertex entity) {
-        GraphTraversal<Vertex, Edge> requiredAttrs = g.V(classDef.id()).outE("has").has("required");
-        while (requiredAttrs.hasNext()) {
-            Edge attr = requiredAttrs.next();
-            Vertex required = attr.inVertex();
-            String name = (String) required.property("name").value();
-            if (attr.property("isDVA").isPresent()) {
+        for (AttributeEntry attr : classesById.get(classDef.id()).attributes.values()) {
+            if (!attr.required) {
+                continue;
+            }
+            String name = attr.name;
+            if (attr.isDVA) {
                 // didn't insert a required DVA
                 if (!entity.property(name).isPresent()) {
                     throwException("Did not insert required value %s into an instance of class %s!",
@@ -477,7 +530,7 @@ public class TitanWDB {
         int[] counts = new int[3];
         for (Assignment assignment : query.assignmentList) {
             if (assignment instanceof DvaAssignment) {
-                Vertex dvaVertex = getAttribute(g, classDef, true, assignment.AttributeName);
+                AttributeEntry dvaVertex = getAttribute(classDef, true, assignment.AttributeName);
                 if (dvaVertex == null) {
                     throwException("Class %s does not have an dva %s!", query.className, assignment.AttributeName);
                 }
@@ -485,12 +538,12 @@ public class TitanWDB {
                 checkAssignmentType(query, assignment.AttributeName, dvaVertex, dvaAssignment);
                 entity.property(assignment.AttributeName, dvaAssignment.Value);
             } else if (assignment instanceof EvaAssignment) {
-                Vertex evaVertex = getAttribute(g, classDef, false, assignment.AttributeName);
+                AttributeEntry evaVertex = getAttribute(classDef, false, assignment.AttributeName);
                 if (evaVertex == null) {
                     throwException("Class %s does not have an eva %s!", query.className, assignment.AttributeName);
                 }
                 EvaAssignment evaAssignment = (EvaAssignment) assignment;
-                String evaClass = (String) evaVertex.property("class").value();
+                String evaClass = evaVertex.evaClass;
                 if (!evaClass.equals(evaAssignment.targetClass) &&
                         !isSubclass(g, lookupClass(g, evaClass), evaAssignment.targetClass)) {
                     throwException("EVA %s cannot be assigned from class %s to class %s!",
@@ -503,15 +556,15 @@ public class TitanWDB {
                 }
                 System.out.println("Getting Instances");
                 Set<Vertex> instances = getInstances(g, evaClassDef, query.expression);
-                String evaInverseName = (String) g.V(evaClassDef.id()).out("inverse").next().property("name").value();
+                String evaInverseName = evaVertex.inverseName;
                 switch (evaAssignment.mode) {
                     case 0: { // REPLACE_MODE
                         // remove existing edges between entity and instances
                         for (Vertex instance : instances) {
                             // may want to remove at the end in case it messes up graph traversals
                             List<Edge> toRemove = new ArrayList<>();
-                            scheduleDisconnect(g, entity, instance, toRemove);
-                            scheduleDisconnect(g, instance, entity, toRemove);
+                            scheduleDisconnect(entity, evaAssignment.AttributeName, instance, toRemove);
+                            scheduleDisconnect(instance, evaInverseName, entity, toRemove);
                             for (Edge e : toRemove) {
                                 e.remove();
                                 counts[0]++;
@@ -529,25 +582,12 @@ public class TitanWDB {
                     }
                     case 2: { // EXCLUDE_MODE
                         for (Vertex instance : instances) {
-                            GraphTraversal<Vertex, Edge> evas =
-                                    g.V(instance.id()).outE("eva").has("name");
-                            while (evas.hasNext()) {
-                                Edge edge = evas.next();
-                                if (edge.property("name").value().equals(evaAssignment.AttributeName)) {
-                                    GraphTraversal<Edge, Edge> connected = g.E(edge.id()).inV().outE("eva").has("name");
-                                    List<Edge> toRemove = new ArrayList<>();
-                                    toRemove.add(edge);
-                                    while (connected.hasNext()) {
-                                        Edge next = connected.next();
-                                        if (next.property("name").value().equals(evaInverseName)) {
-                                            toRemove.add(next);
-                                        }
-                                    }
-                                    for (Edge e : toRemove) {
-                                        e.remove();
-                                        counts[2]++;
-                                    }
-                                }
+                            List<Edge> toRemove = new ArrayList<>();
+                            scheduleDisconnect(entity, evaAssignment.AttributeName, instance, toRemove);
+                            scheduleDisconnect(instance, evaInverseName, entity, toRemove);
+                            for (Edge e : toRemove) {
+                                e.remove();
+                                counts[2]++;
                             }
                         }
                     }
@@ -558,145 +598,120 @@ public class TitanWDB {
         return counts;
     }
 
-    private static void scheduleDisconnect(GraphTraversalSource g, Vertex start, Vertex end, List<Edge> toRemove) {
-        GraphTraversal<Vertex, Edge> forwards = g.V(start.id()).outE("eva");
-        while (forwards.hasNext()) {
-            Edge e = forwards.next();
-            if (e.inVertex().id().equals(end.id())) {
-                toRemove.add(e);
-            }
+    // the eva edges named evaName from start to end, read through the evaByName index
+    private static void scheduleDisconnect(Vertex start, String evaName, Vertex end, List<Edge> toRemove) {
+        if (evaName == null) {
+            return;
+        }
+        for (TitanEdge e : ((TitanVertex) start).query().direction(Direction.OUT).labels("eva")
+                .has("name", evaName).adjacent(end).edges()) {
+            toRemove.add(e);
         }
     }
 
     private static Set<Vertex> getInstances(GraphTraversalSource g, Vertex classDef, SimpleNode expression) {
+        return getInstances(g, classDef, Predicate.forExpression(expression));
+    }
+
+    private static Set<Vertex> getInstances(GraphTraversalSource g, Vertex classDef, Predicate predicate) {
         Set<Vertex> res = new HashSet<>();
-        GraphTraversal<Vertex, Vertex> instances = g.V(classDef.id()).out("instance");
-        while (instances.hasNext()) {
-            Vertex instance = instances.next();
-            System.out.println("getInstances Instance: " + instance.property("name").value());
-            if (matches(g, classDef, expression, instance)) {
-                res.add(instance);
+        for (String member : classesById.get(classDef.id()).family) {
+            ClassEntry entry = classes.get(member);
+            GraphTraversal<Vertex, Vertex> instances = g.V(entry.id).out("instance");
+            while (instances.hasNext()) {
+                Vertex instance = instances.next();
+                System.out.println("getInstances Instance: " + instance.property("name").value());
+                if (matches(entry, predicate, instance)) {
+                    res.add(instance);
+                }
             }
         }
-
-        GraphTraversal<Vertex, Vertex> subclasses = g.V(classDef.id()).out("superclasses");
-        while (subclasses.hasNext()) {
-            System.out.println("yes");
-            res.addAll(getInstances(g, subclasses.next(), expression));
-        }
         return res;
     }
 
-    private static boolean matches(GraphTraversalSource g, Vertex classDef, Node expression, Vertex instance) {
-        if (expression instanceof Root) {
-            return matches(g, classDef, expression.jjtGetChild(0), instance);
-        }
-        if (expression instanceof Cond) {
-            String[] split = expression.toString().split(" ", 3);
-            String attributeName = split[0];
-            Vertex attrVertex = getAttribute(g, classDef, true, attributeName);
-//            System.out.println("Condition Attribute Name: " + attributeName);
-//            System.out.println("Condition classDef Name: " + classDef.property("name").value());
+    // Walks the terms in the order they were written, so a condition is only checked against the
+    // class when it is reached, the way the WHERE clause was evaluated on the parse tree
+    private static boolean matches(ClassEntry classDef, Predicate predicate, Vertex instance) {
+        if (predicate instanceof Predicate.Condition) {
+            Predicate.Condition condition = (Predicate.Condition) predicate;
+            String attributeName = condition.getAttributeName();
+            AttributeEntry attrVertex = getAttribute(classDef, true, attributeName);
             if (attrVertex == null) {
-                throwException("Class %s doesn't have attribute %s!", classDef.property("name"), attributeName);
+                throwException("Class %s doesn't have attribute %s!", classDef.name, attributeName);
             }
-            Property<Object> property = instance.property(attributeName);
-            Object attribute = property.isPresent() ? property.value() : null;
-            String quantifier = split[1];
-            String value = split[2];
-            switch (quantifier) {
-                case "=": {
-                    return attribute == null && value.equals("NULL") ||
-                            attribute != null && attribute.toString().equals(value);
-                }
-                case "<>": {
-                    return attribute == null && !value.equals("NULL") ||
-                            attribute != null && !attribute.toString().equals(value);
-                }
-                case "<": {
-                    checkAttributeIsInteger(attributeName, attrVertex, quantifier);
-                    return attribute != null && ((Integer) attribute) < Integer.parseInt(value);
-                }
-                case ">": {
-                    checkAttributeIsInteger(attributeName, attrVertex, quantifier);
-                    return attribute != null && ((Integer) attribute) > Integer.parseInt(value);
-                }
-                case "<=": {
-                    checkAttributeIsInteger(attributeName, attrVertex, quantifier);
-                    return attribute != null && ((Integer) attribute) <= Integer.parseInt(value);
-                }
-                case ">=": {
-                    checkAttributeIsInteger(attributeName, attrVertex, quantifier);
-                    return attribute != null && ((Integer) attribute) >= Integer.parseInt(value);
-                }
-                default: {
-                    throwException("Invalid quantifier %s!", quantifier);
-                }
+            if (condition.isOrdered()) {
+                checkAttributeIsInteger(attributeName, attrVertex, condition.getQuantifier());
             }
+            return matches(condition, instance);
         }
-        if (expression instanceof And) {
-            int numChildren = expression.jjtGetNumChildren();
-            for (int i = 0; i < numChildren; i++) {
-                if (!matches(g, classDef, expression.jjtGetChild(i), instance)) {
+        if (predicate instanceof Predicate.Conjunction) {
+            for (Predicate term : ((Predicate.Conjunction) predicate).getTerms()) {
+                if (!matches(classDef, term, instance)) {
                     return false;
                 }
             }
             return true;
         }
-        if (expression instanceof Or) {
-            int numChildren = expression.jjtGetNumChildren();
-            for (int i = 0; i < numChildren; i++) {
-                if (matches(g, classDef, expression.jjtGetChild(i), instance)) {
+        if (predicate instanceof Predicate.Disjunction) {
+            for (Predicate term : ((Predicate.Disjunction) predicate).getTerms()) {
+                if (matches(classDef, term, instance)) {
                     return true;
                 }
             }
             return false;
         }
-        if (expression instanceof Not) {
-            return !matches(g, classDef, expression.jjtGetChild(0), instance);
+        if (predicate instanceof Predicate.Negation) {
+            return !matches(classDef, ((Predicate.Negation) predicate).getTerm(), instance);
         }
-        if (expression instanceof False) {
-            return false;
+        if (predicate instanceof Predicate.Constant) {
+            return ((Predicate.Constant) predicate).getValue();
         }
-        if (expression instanceof True) {
-            return true;
+        throw new IllegalStateException("Unknown type of Predicate! " + predicate);
+    }
+
+    private static boolean matches(Predicate.Condition condition, Vertex instance) {
+        Property<Object> property = instance.property(condition.getAttributeName());
+        Object attribute = property.isPresent() ? property.value() : null;
+        switch (condition.getOperator()) {
+            case Predicate.Condition.EQ:
+                return attribute == null && condition.isNullLiteral() ||
+                        attribute != null && attribute.toString().equals(condition.getValueString());
+            case Predicate.Condition.NE:
+                return attribute == null && !condition.isNullLiteral() ||
+                        attribute != null && !attribute.toString().equals(condition.getValueString());
+            case Predicate.Condition.LT:
+                return attribute != null && ((Integer) attribute) < condition.getIntValue();
+            case Predicate.Condition.LE:
+                return attribute != null && ((Integer) attribute) <= condition.getIntValue();
+            case Predicate.Condition.GT:
+                return attribute != null && ((Integer) attribute) > condition.getIntValue();
+            default:
+                return attribute != null && ((Integer) attribute) >= condition.getIntValue();
         }
-        throw new IllegalStateException("Unknown type of Node! " + expression);
     }
 
     private static void throwException(String format, Object... args) {
         throw new RuntimeException(String.format(format, args));
     }
 
-    private static void checkAttributeIsInteger(String attributeName, Vertex attrVertex, String quantifier) {
-        String data_type = (String) attrVertex.property("data_type").value();
+    private static void checkAttributeIsInteger(String attributeName, AttributeEntry attrVertex, String quantifier) {
+        String data_type = attrVertex.dataType;
         if (!data_type.equals("integer")) {
             throwException("Cannot compare attribute %s of type %s with quantifier '%s'",
                     attributeName, data_type, quantifier);
         }
     }
 
-    private static Vertex getSubclass(GraphTraversalSource g, Object classID, String targetClassName) {
-        GraphTraversal<Vertex, Vertex> subclasses = g.V(classID).out("superclasses");
-        while (subclasses.hasNext()) {
-            Vertex subclass = subclasses.next();
-            String subclassName = (String) subclass.property("name").value();
-            Vertex temp;
-            if (subclassName.equals(targetClassName)) {
-                return subclass;
-            } else if ((temp = getSubclass(g, subclass, targetClassName)) != null) {
-                return temp;
-            }
-        }
-        return null;
+    private static boolean isSubclass(GraphTraversalSource g, Vertex classDef, String targetClassName) {
+        return isSubclass(classesById.get(classDef.id()), targetClassName);
     }
 
-    private static boolean isSubclass(GraphTraversalSource g, Vertex classDef, String targetClassName) {
-        return getSubclass(g, classDef.id(), targetClassName) != null;
+    private static boolean isSubclass(ClassEntry classDef, String targetClassName) {
+        return !classDef.name.equals(targetClassName) && classDef.family.contains(targetClassName);
     }
 
-    private static void checkAssignmentType(UpdateQuery query, String name, Vertex attrVertex, DvaAssignment dvaAssignment) {
-        String type = (String) attrVertex.property("data_type").value();
+    private static void checkAssignmentType(UpdateQuery query, String name, AttributeEntry attrVertex, DvaAssignment dvaAssignment) {
+        String type = attrVertex.dataType;
         switch (type) {
             case "boolean": {
                 if (!(dvaAssignment.Value instanceof Boolean)) {
@@ -722,20 +737,13 @@ public class TitanWDB {
         }
     }
 
-    private static Vertex getAttribute(GraphTraversalSource g, Vertex classDef, boolean isDVA, String attributeName) {
-        GraphTraversal<Vertex, Vertex> attrs;
-        if (isDVA) {
-            attrs = g.V(classDef.id()).outE("has").has("isDVA").inV().has("name");
-        } else {
-            attrs = g.V(classDef.id()).outE("has").hasNot("isDVA").inV().has("name");
-        }
-        while (attrs.hasNext()) {
-            Vertex v = attrs.next();
-            if (v.property("name").isPresent() && v.property("name").value().equals(attributeName)) {
-                return v;
-            }
-        }
-        return null;
+    private static AttributeEntry getAttribute(Vertex classDef, boolean isDVA, String attributeName) {
+        return getAttribute(classesById.get(classDef.id()), isDVA, attributeName);
+    }
+
+    private static AttributeEntry getAttribute(ClassEntry classDef, boolean isDVA, String attributeName) {
+        AttributeEntry attr = classDef.attributes.get(attributeName);
+        return (attr != null && attr.isDVA == isDVA) ? attr : null;
     }
 
     private static void processIndexDef(IndexDef indexQ) {
@@ -753,6 +761,8 @@ public class TitanWDB {
             TitanVertex newClass;
             if (currentVertex == null) {
                 newClass = graph.addVertex(T.label, "classDef", "name", cd.name);
+                // EVAs of the class may refer to the class itself
+                registerClass(newClass);
             } else {
                 currentVertex.property("ForwardInit", "No");
                 newClass = currentVertex;
@@ -791,6 +801,8 @@ public class TitanWDB {
                     if (targetClass == null) {
                         targetClass = graph.addVertex(T.label, "classDef", "name", eva.baseClassName);
                         targetClass.property("ForwardInit", "Yes");
+                        // later EVAs of this class may refer to it before the catalog is reloaded
+                        registerClass(targetClass);
 
                         GraphTraversal<Vertex, Vertex> traversal = g.V().hasLabel("classDef").has("name", "root node");
                         Vertex root = traversal.next();
@@ -882,6 +894,9 @@ public class TitanWDB {
         } catch (RuntimeException e) {
             graph.tx().rollback();
             throw e;
+        } finally {
+            // attributes are committed one EVA at a time, so reload even after a failure
+            loadCatalog();
         }
     }
 
@@ -920,6 +935,57 @@ public class TitanWDB {
     }
 
     private static Vertex lookupClass(GraphTraversalSource g, String name) {
-        return getSubclass(g, rootID, name);
+        ClassEntry entry = classes.get(name);
+        return (entry == null) ? null : g.V(entry.id).next();
+    }
+
+    // makes a class created during a CLASS visible to lookupClass until the catalog is reloaded
+    private static void registerClass(Vertex classDef) {
+        ClassEntry entry = new ClassEntry(classDef);
+        entry.family.add(entry.name);
+        classes.put(entry.name, entry);
+        classesById.put(entry.id, entry);
+    }
+
+    private static class ClassEntry {
+        String name;
+        Object id;
+        List<String> subclasses = new ArrayList<>();
+        Map<String, AttributeEntry> attributes = new HashMap<>();
+        // this class and all its subclasses, direct or not
+        Set<String> family = new LinkedHashSet<>();
+
+        ClassEntry(Vertex classDef) {
+            name = (String) classDef.property("name").value();
+            id = classDef.id();
+            classDef.vertices(Direction.OUT, "superclasses").forEachRemaining(n -> subclasses.add((String) n.property("name").value()));
+            classDef.edges(Direction.OUT, "has").forEachRemaining(e -> {
+                AttributeEntry attr = new AttributeEntry(e);
+                attributes.put(attr.name, attr);
+            });
+        }
+    }
+
+    // an attribute as a class has it; required and isDVA are on the "has" edge, the rest on the attribute vertex
+    private static class AttributeEntry {
+        String name;
+        boolean isDVA;
+        boolean required;
+        String dataType;
+        Object defaultValue;
+        String evaClass;
+        String inverseName;
+
+        AttributeEntry(Edge has) {
+            Vertex attr = has.inVertex();
+            name = (String) attr.property("name").value();
+            isDVA = has.property("isDVA").isPresent();
+            required = has.property("required").isPresent();
+            dataType = (String) attr.property("data_type").orElse(null);
+            defaultValue = attr.property("default_value").orElse(null);
+            evaClass = (String) attr.property("class").orElse(null);
+            Iterator<Vertex> inverses = attr.vertices(Direction.OUT, "inverse");
+            inverseName = inverses.hasNext() ? (String) inverses.next().property("name").value() : null;
+        }
     }
 }
\ No newline at end of file
@@ -1,7 +1,12 @@
 package wdb;
 
 import com.thinkaurelius.titan.core.*;
+import com.thinkaurelius.titan.core.attribute.Cmp;
+import com.thinkaurelius.titan.core.attribute.Contain;
+import com.thinkaurelius.titan.core.schema.Mapping;
+import com.thinkaurelius.titan.core.schema.SchemaAction;
 import com.thinkaurelius.titan.core.schema.TitanManagement;
+import com.thinkaurelius.titan.graphdb.database.management.ManagementSystem;
 import org.apache.commons.io.FileUtils;
 import org.apache.log4j.Level;
 import org.apache.log4j.LogManager;
@@ -24,6 +29,7 @@ public class TitanWDBBasic {
     public static TitanGraph graph = null;
     public static TitanTransaction tx = null;
     private static Map<String, ClassDefNode> classDefs = new HashMap<>();
+    private static final String CLASS_KEY = "class1234512345";
 
     public static void main(String[] args) {
         try {
@@ -39,9 +45,12 @@ public class TitanWDBBasic {
             TitanFactory.Builder config = TitanFactory.build();
             config.set("storage.backend", "berkeleyje");
             config.set("storage.directory", "db/cannata");
+            // INDEX statements become mixed indexes here, which can answer range conditions
+            config.set("index.search.backend", "lucene");
+            config.set("index.search.directory", "db/searchindex");
             graph = config.open();
             TitanManagement mg = graph.openManagement();
-            PropertyKey className = mg.makePropertyKey("class1234512345").dataType(String.class).make();
+            PropertyKey className = mg.makePropertyKey(CLASS_KEY).dataType(String.class).make();
             VertexLabel label = mg.makeVertexLabel("entity").make();
             mg.buildIndex("byClassName", Vertex.class).addKey(className).indexOnly(label).buildCompositeIndex();
             mg.commit();
@@ -159,7 +168,7 @@ public class TitanWDBBasic {
                     Iterator<VertexProperty<Object>> it = v.properties();
                     while (it.hasNext()) {
                         VertexProperty<Object> property = it.next();
-                        if (!property.key().equals("class1234512345")) {
+                        if (!property.key().equals(CLASS_KEY)) {
                             System.out.print(property.key() + "->" + property.value() + (it.hasNext() ? " | " : "\n"));
                         }
                     }
@@ -176,13 +185,13 @@ public class TitanWDBBasic {
             int newVertexCount = 0, edgeCounts[] = new int[3];
             if (iq.fromClassName == null) {
                 // just inserting a new entity
-                Vertex newVertex = tx.addVertex(T.label, "entity", "class1234512345", iq.className);
+                Vertex newVertex = tx.addVertex(T.label, "entity", CLASS_KEY, iq.className);
                 newVertexCount++;
                 edgeCounts = doInsert(iq, g, newVertex, iq.className);
             } else {
                 // inserting a subclass into an existing superclass
                 for (Vertex instance : getInstances(g, iq.fromClassName, iq.expression)) {
-                    instance.property("class1234512345", iq.className);
+                    instance.property(CLASS_KEY, iq.className);
                     int[] arr = doInsert(iq, g, instance, iq.className);
                     for (int i = 0; i < 3; i++) {
                         edgeCounts[i] += arr[i];
@@ -199,41 +208,130 @@ public class TitanWDBBasic {
     }
 
     private static Iterable<Vertex> getInstances(GraphTraversalSource g, String className, SimpleNode expression) {
+        return getInstances(tx, className, Predicate.forExpression(expression));
+    }
+
+    private static Iterable<Vertex> getInstancesRetrieve(GraphTraversalSource g, String className, SimpleNode expression) {
+        return getInstances(graph, className, Predicate.forExpression(expression));
+    }
+
+    // instances of a class and its subclasses in one query over the class's family, read through
+    // the byClassName index or a mixed index from INDEX
+    private static List<Vertex> getInstances(TitanGraphTransaction source, String className, Predicate predicate) {
         List<Vertex> list = new ArrayList<>();
-        Iterable<TitanVertex> traversal = tx.getVertices();
-        traversal.forEach(n -> {
-            if (n.property("class1234512345").value().equals(className) && matches(expression, n)) {
-                list.add(n);
-            }
-        });
         ClassDefNode cd = classDefs.get(className);
         if (cd == null) {
             System.out.println(className);
             System.exit(1);
         }
-        for (String subclassName : cd.children) {
-            getInstances(g, subclassName, expression).forEach(list::add);
+        for (TitanVertex n : queryInstances(source, cd, predicate).vertices()) {
+            if (matches(predicate, n)) {
+                list.add(n);
+            }
         }
         return list;
     }
 
-    private static Iterable<Vertex> getInstancesRetrieve(GraphTraversalSource g, String className, SimpleNode expression) {
-        List<Vertex> list = new ArrayList<>();
-        GraphTraversal<Vertex, Vertex> traversal = g.V().hasLabel("entity").has("class1234512345");
-        traversal.forEachRemaining(n -> {
-            if (n.property("class1234512345").value().equals(className) && matches(expression, n)) {
-                list.add(n);
+    // walks the terms in the order they were written, like the WHERE clause's parse tree
+    private static boolean matches(Predicate predicate, Vertex instance) {
+        if (predicate instanceof Predicate.Condition) {
+            return matches((Predicate.Condition) predicate, instance);
+        }
+        if (predicate instanceof Predicate.Conjunction) {
+            for (Predicate term : ((Predicate.Conjunction) predicate).getTerms()) {
+                if (!matches(term, instance)) {
+                    return false;
+                }
             }
-        });
-        ClassDefNode cd = classDefs.get(className);
-        if (cd == null) {
-            System.out.println(className);
-            System.exit(1);
+            return true;
+        }
+        if (predicate instanceof Predicate.Disjunction) {
+            for (Predicate term : ((Predicate.Disjunction) predicate).getTerms()) {
+                if (matches(term, instance)) {
+                    return true;
+                }
+            }
+            return false;
         }
-        for (String subclassName : cd.children) {
-            getInstancesRetrieve(g, subclassName, expression).forEach(list::add);
+        if (predicate instanceof Predicate.Negation) {
+            return !matches(((Predicate.Negation) predicate).getTerm(), instance);
+        }
+        if (predicate instanceof Predicate.Constant) {
+            return ((Predicate.Constant) predicate).getValue();
+        }
+        throw new IllegalStateException("Unknown type of Predicate! " + predicate);
+    }
+
+    private static boolean matches(Predicate.Condition condition, Vertex instance) {
+        Property<Object> property = instance.property(condition.getAttributeName());
+        Object attribute = property.isPresent() ? property.value() : null;
+        switch (condition.getOperator()) {
+            case Predicate.Condition.EQ:
+                return attribute == null && condition.isNullLiteral() ||
+                        attribute != null && attribute.toString().equals(condition.getValueString());
+            case Predicate.Condition.NE:
+                return attribute == null && !condition.isNullLiteral() ||
+                        attribute != null && !attribute.toString().equals(condition.getValueString());
+            case Predicate.Condition.LT:
+                return attribute != null && ((Integer) attribute) < condition.getIntValue();
+            case Predicate.Condition.LE:
+                return attribute != null && ((Integer) attribute) <= condition.getIntValue();
+            case Predicate.Condition.GT:
+                return attribute != null && ((Integer) attribute) > condition.getIntValue();
+            default:
+                return attribute != null && ((Integer) attribute) >= condition.getIntValue();
         }
-        return list;
+    }
+
+    // binds the classes and pushes the conditions every match has to meet into the query, so
+    // Titan can pick an index for them; the predicate is still checked on what comes back
+    private static TitanGraphQuery<?> queryInstances(TitanGraphTransaction source, ClassDefNode cd, Predicate predicate) {
+        Set<String> classNames = cd.family;
+        TitanGraphQuery<?> query = (classNames.size() == 1)
+                ? entities(source).has(CLASS_KEY, classNames.iterator().next())
+                : entities(source).has(CLASS_KEY, Contain.IN, classNames);
+        List<Predicate.Condition> conditions = new ArrayList<>();
+        predicate.getRequiredConditions(conditions);
+        for (Predicate.Condition condition : conditions) {
+            if (condition.getAttributePath().levelsOfIndirection() > 0 || condition.isNullLiteral()) {
+                continue;
+            }
+            String attribute = condition.getAttributeName();
+            Object value = condition.getValue();
+            // Titan compares values of different types as unequal, the predicate compares their text,
+            // so only a literal of the declared type can be left to Titan
+            if (value.getClass() != getDvaType(cd.className, attribute)) {
+                continue;
+            }
+            switch (condition.getOperator()) {
+                case Predicate.Condition.EQ:
+                    query = query.has(attribute, value);
+                    break;
+                case Predicate.Condition.LT:
+                    query = pushRange(query, attribute, Cmp.LESS_THAN, value);
+                    break;
+                case Predicate.Condition.LE:
+                    query = pushRange(query, attribute, Cmp.LESS_THAN_EQUAL, value);
+                    break;
+                case Predicate.Condition.GT:
+                    query = pushRange(query, attribute, Cmp.GREATER_THAN, value);
+                    break;
+                case Predicate.Condition.GE:
+                    query = pushRange(query, attribute, Cmp.GREATER_THAN_EQUAL, value);
+                    break;
+            }
+        }
+        return query;
+    }
+
+    // the class indexes only cover entities, so a query has to say so to be served by them
+    private static TitanGraphQuery<?> entities(TitanGraphTransaction source) {
+        return source.query().has(T.label.getAccessor(), "entity");
+    }
+
+    private static TitanGraphQuery<?> pushRange(TitanGraphQuery<?> query, String attribute, Cmp cmp, Object value) {
+        // ordered comparisons are only made between integers
+        return (value instanceof Integer) ? query.has(attribute, cmp, value) : query;
     }
 
     private static void printUpdateQueryResults(int newVertexCount, int[] edgeCounts) {
@@ -287,14 +385,11 @@ public class TitanWDBBasic {
                         // continue on to insert
                     }
                     case 1: { // INSERT_MODE
-                        Iterator<Vertex> targets = tx.vertices();
-                        targets.forEachRemaining(v -> {
-                            if (v.property("class1234512345").value().equals(evaAssignment.targetClass)) {
-                                entity.addEdge(evaAssignment.AttributeName, v);
-                                v.addEdge(getInverse(className, evaAssignment.AttributeName), entity);
-                                counts[1]++;
-                            }
-                        });
+                        for (TitanVertex v : entities(tx).has(CLASS_KEY, evaAssignment.targetClass).vertices()) {
+                            entity.addEdge(evaAssignment.AttributeName, v);
+                            v.addEdge(getInverse(className, evaAssignment.AttributeName), entity);
+                            counts[1]++;
+                        }
                         break;
                     }
                     case 2: { // EXCLUDE_MODE
@@ -319,81 +414,108 @@ public class TitanWDBBasic {
         return cd.inverses.get(attributeName);
     }
 
-    private static boolean matches(Node expression, Vertex instance) {
-        if (expression == null) {
-            return true;
+    private static void throwException(String format, Object... args) {
+        throw new RuntimeException(String.format(format, args));
+    }
+
+    // A mixed index over the class and the DVAs, so range conditions can be answered from it.
+    // Mixed indexes need typed keys; if a DVA already has an untyped key (it was written before
+    // the INDEX) a composite index is built instead, which only serves equality.
+    private static void processIndexDef(IndexDef indexQ) {
+        // the index is only registered once no transaction from before it is open, and the
+        // reindex only covers committed vertices
+        boolean reopen = tx != null;
+        if (reopen) {
+            tx.commit();
+            tx = null;
         }
-        if (expression instanceof Root) {
-            return matches(expression.jjtGetChild(0), instance);
-        }
-        if (expression instanceof Cond) {
-            String[] split = expression.toString().split(" ", 3);
-            String attributeName = split[0];
-            Property<Object> property = instance.property(attributeName);
-            Object attribute = property.isPresent() ? property.value() : null;
-            String quantifier = split[1];
-            String value = split[2];
-            switch (quantifier) {
-                case "=" : {
-                    return attribute == null && value.equals("NULL") ||
-                            attribute != null && attribute.toString().equals(value);
-                }
-                case "<>" : {
-                    return attribute == null && !value.equals("NULL") ||
-                            attribute != null && !attribute.toString().equals(value);
-                }
-                case "<" : {
-                    return attribute != null && ((Integer) attribute) < Integer.parseInt(value);
-                }
-                case ">" : {
-                    return attribute != null && ((Integer) attribute) > Integer.parseInt(value);
-                }
-                case "<=" : {
-                    return attribute != null && ((Integer) attribute) <= Integer.parseInt(value);
-                }
-                case ">=" : {
-                    return attribute != null && ((Integer) attribute) >= Integer.parseInt(value);
-                }
-                default : {
-                    throwException("Invalid quantifier %s!", quantifier);
-                }
-            }
+        String indexName = indexQ.name.toLowerCase();
+        TitanManagement mg = graph.openManagement();
+        if (mg.containsGraphIndex(indexName)) {
+            mg.rollback();
+            throwException("Index %s already exists!", indexName);
         }
-        if (expression instanceof And) {
-            int numChildren = expression.jjtGetNumChildren();
-            for (int i = 0; i < numChildren; i++) {
-                if (!matches(expression.jjtGetChild(i), instance)) {
-                    return false;
-                }
+        List<PropertyKey> keys = new ArrayList<>();
+        boolean typed = true;
+        for (Object dva : indexQ.getDvas()) {
+            String dvaName = (String) dva;
+            Class<?> type = getDvaType(indexQ.className, dvaName);
+            // a property key is shared by every class, a type other classes declare differently
+            // can't be given to it, and the index falls back to a composite one
+            if (!isSharedDvaType(dvaName, type)) {
+                type = Object.class;
             }
-            return true;
-        }
-        if (expression instanceof Or) {
-            int numChildren = expression.jjtGetNumChildren();
-            for (int i = 0; i < numChildren; i++) {
-                if (matches(expression.jjtGetChild(i), instance)) {
-                    return true;
-                }
+            PropertyKey key;
+            if (mg.containsPropertyKey(dvaName)) {
+                key = mg.getPropertyKey(dvaName);
+            } else {
+                key = mg.makePropertyKey(dvaName).dataType(type).make();
             }
-            return false;
+            typed = typed && type != Object.class && key.dataType() == type;
+            keys.add(key);
         }
-        if (expression instanceof Not) {
-            return !matches(expression.jjtGetChild(0), instance);
+        TitanManagement.IndexBuilder builder = mg.buildIndex(indexName, Vertex.class);
+        if (typed) {
+            builder.addKey(mg.getPropertyKey(CLASS_KEY), Mapping.STRING.asParameter());
+        } else {
+            builder.addKey(mg.getPropertyKey(CLASS_KEY));
         }
-        if (expression instanceof False) {
-            return false;
+        for (PropertyKey key : keys) {
+            if (typed && key.dataType() == String.class) {
+                // strings default to TEXT, which is tokenized and can't answer equality
+                builder.addKey(key, Mapping.STRING.asParameter());
+            } else {
+                builder.addKey(key);
+            }
         }
-        if (expression instanceof True) {
-            return true;
+        builder.indexOnly(mg.getVertexLabel("entity"));
+        if (typed) {
+            builder.buildMixedIndex("search");
+        } else {
+            builder.buildCompositeIndex();
+        }
+        mg.commit();
+        try {
+            ManagementSystem.awaitGraphIndexStatus(graph, indexName).call();
+            mg = graph.openManagement();
+            mg.updateIndex(mg.getGraphIndex(indexName), SchemaAction.REINDEX).get();
+            mg.commit();
+        } catch (Exception e) {
+            throwException("Could not build index %s: %s", indexName, e.getMessage());
+        } finally {
+            if (reopen) {
+                tx = graph.newTransaction();
+            }
         }
-        throw new IllegalStateException("Unknown type of Node! " + expression);
+        System.out.printf("Index %s created\n", indexName);
     }
 
-    private static void throwException(String format, Object... args) {
-        throw new RuntimeException(String.format(format, args));
+    // true if no class declares the DVA with a type other than the given one
+    private static boolean isSharedDvaType(String dvaName, Class<?> type) {
+        for (ClassDefNode cd : classDefs.values()) {
+            Class<?> declared = cd.types.get(dvaName);
+            if (declared != null && declared != type) {
+                return false;
+            }
+        }
+        return true;
     }
 
-    private static void processIndexDef(IndexDef indexQ) {
+    private static Class<?> getDvaType(String className, String dvaName) {
+        ClassDefNode cd = classDefs.get(className);
+        if (cd == null) {
+            throwException("Class %s does not exist!", className);
+        }
+        if (cd.types.containsKey(dvaName)) {
+            return cd.types.get(dvaName);
+        }
+        for (String parent : cd.parents) {
+            Class<?> type = getDvaType(parent, dvaName);
+            if (type != Object.class) {
+                return type;
+            }
+        }
+        return Object.class;
     }
 
     private static void processClassDef(ClassDef cd) {
@@ -435,23 +557,43 @@ public class TitanWDBBasic {
         }
     }
 
+    private static Class<?> getType(String dvaType) {
+        switch (dvaType.toLowerCase()) {
+            case "integer":
+                return Integer.class;
+            case "string":
+                return String.class;
+            case "boolean":
+                return Boolean.class;
+            default:
+                return Object.class;
+        }
+    }
+
     private static class ClassDefNode {
         List<String> parents;
         List<String> children;
+        // this class and every class under it, kept up to date as subclasses are defined
+        Set<String> family;
         String className;
         Map<String, Object> defaults;
         Map<String, String> inverses;
+        Map<String, Class<?>> types;
 
         public ClassDefNode(ClassDef cd) {
             parents = new ArrayList<>();
             children = new ArrayList<>();
+            family = new LinkedHashSet<>();
             defaults = new HashMap<>();
             inverses = new HashMap<>();
+            types = new HashMap<>();
             className = cd.name;
+            family.add(className);
             for (int i = 0; i < cd.numberOfAttributes(); i++) {
                 Attribute attr = cd.getAttribute(i);
                 if (attr instanceof DVA) {
                     DVA dva = (DVA) attr;
+                    types.put(dva.name, getType(dva.type));
                     if (dva.initialValue != null) {
                         defaults.put(dva.name, dva.initialValue);
                     }
@@ -471,6 +613,16 @@ public class TitanWDBBasic {
                     String sup = scd.getSuperClass(i);
                     parents.add(sup);
                     classDefs.get(sup).children.add(className);
+                    joinFamily(sup);
+                }
+            }
+        }
+
+        private void joinFamily(String ancestor) {
+            ClassDefNode node = classDefs.get(ancestor);
+            if (node.family.add(className)) {
+                for (String parent : node.parents) {
+                    joinFamily(parent);
                 }
             }
         }
@@ -15,6 +15,7 @@ import java.io.Serializable;
  * Window - Preferences - Java - Code Style - Code Templates
  */
 public class Attribute implements Serializable  {
+	private static final long serialVersionUID = 7031355604465192317L;
 	public String name;
 	public String comment;
 	public Boolean required;
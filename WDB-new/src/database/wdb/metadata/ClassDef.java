@@ -2,9 +2,9 @@ package wdb.metadata;
 
 import java.io.*;
 import java.util.*;
-import java.rmi.server.*;
 
 import wdb.SleepyCatDataAdapter;
+import wdb.SleepyCatExtentCursor;
 
 import wdb.parser.SimpleNode;
 
@@ -15,17 +15,16 @@ import wdb.parser.SimpleNode;
  * Window - Preferences - Java - Code Style - Code Templates
  */
 public class ClassDef extends Query implements Serializable {
+	private static final long serialVersionUID = -7260548342190670299L;
 	public String name;
 	public String comment;
 	protected ArrayList<Attribute> attributes;
-	protected ArrayList<Integer> instances;
 	protected ArrayList<IndexDef> indexes;
 	
 	public ClassDef()
 	{
 		super();
 		attributes = new ArrayList<Attribute>();
-		instances = new ArrayList<Integer>();
 		indexes = new ArrayList<IndexDef>();
 	}
 	
@@ -33,7 +32,6 @@ public class ClassDef extends Query implements Serializable {
 	{
 		super();
 		attributes = new ArrayList<Attribute>();
-		instances = new ArrayList<Integer>();
 		name = _name;
 		comment = _comment;
 	}
@@ -42,7 +40,6 @@ public class ClassDef extends Query implements Serializable {
 	{
 		super();
 		attributes = new ArrayList<Attribute>();
-		instances = new ArrayList<Integer>();
 		name = _name;
 		comment = _comment;
 		
@@ -63,26 +60,6 @@ public class ClassDef extends Query implements Serializable {
 		indexes.add(index);
 		this.commit(scda);
 	}
-	protected void addInstance(Integer uid)
-	{
-		instances.add(uid);
-	}
-	
-	protected void removeInstance(Integer uid)
-	{
-		instances.remove(uid);
-	}
-	
-	public WDBObject getInstance(int index, SleepyCatDataAdapter da) throws Exception
-	{
-		return da.getObject(this.name, (Integer)instances.get(index));
-	}
-	
-	public int numberOfInstances()
-	{
-		return instances.size();
-	}
-	
 	public void addAttribute(Attribute _attribute)
 	{
 		attributes.add(_attribute);
@@ -139,11 +116,11 @@ public class ClassDef extends Query implements Serializable {
 		{
 			throw new IllegalArgumentException("Failed to add parent object of class \"" + parent.getClassName() + "\" to base class " + this.name);
 		}
-		Integer newUid = new Integer(Math.abs((new UID()).hashCode()));
-		WDBObject newObject = new WDBObject(new Hashtable<String, Integer>(), new Hashtable<String, Integer>(), new Hashtable<String, Object>(), new Hashtable<String, Object>(), this.name, newUid);
+		Integer newUid = scda.newUid(this.name);
+		WDBObject newObject = new WDBObject(new Hashtable<String, Integer>(), new Hashtable<String, Integer>(), new Hashtable<String, EvaReferences>(), new Hashtable<String, Object>(), this.name, newUid);
 		
-		this.addInstance(newUid);
-		this.commit(scda);
+		//Storing the object puts it in this class's extent
+		newObject.commit(scda);
 		
 		return newObject;
 	}
@@ -153,46 +130,66 @@ public class ClassDef extends Query implements Serializable {
 	}
 	public WDBObject[] search(SimpleNode expression, SleepyCatDataAdapter scda) throws Exception
 	{
-        boolean hasWhereClause = (expression != null);
-		WDBObject[] matchesArray = new WDBObject[0];
+		return this.search(expression, scda, null);
+	}
+	/**
+	 * Finds the objects of this class matching the expression. If plan is
+	 * not null, the access path chosen and the rows seen are recorded in it.
+	 */
+	public WDBObject[] search(SimpleNode expression, SleepyCatDataAdapter scda, QueryPlan plan) throws Exception
+	{
 		ArrayList<WDBObject> matchesList = new ArrayList<WDBObject>();
-		WDBObject[] indexFilteredArray;
-        if (hasWhereClause) {
-		    indexFilteredArray = expression.filterObjectsWithIndexes(scda, this.indexes).getFilteredResults(scda, this.indexes);
-        }
-        else {
-            indexFilteredArray = null;
-        }
-		if(indexFilteredArray == null)
+		SearchCursor cursor = this.open(expression, scda, plan, -1);
+		try
 		{
-			//Simple for loop for search
 			WDBObject object;
-			for(int i = 0; i < this.instances.size(); i++)
+			while((object = cursor.next()) != null)
 			{
-				object = this.getInstance(i, scda);
-				if( !hasWhereClause 
-                    || (hasWhereClause && expression.eval(scda, object)) )
-				{
-					matchesList.add(object);
-				}
+				matchesList.add(object);
 			}
 		}
-		else
+		finally
+		{
+			cursor.close();
+		}
+		return (WDBObject[])matchesList.toArray(new WDBObject[0]);
+	}
+	/**
+	 * Picks the indexes for a WHERE clause and returns a cursor that reads
+	 * the matching objects one at a time, at most limit of them unless
+	 * limit is -1. Without a usable index and without a limit the extent is
+	 * scanned in parallel if the adapter allows it.
+	 */
+	public SearchCursor open(SimpleNode expression, SleepyCatDataAdapter scda, QueryPlan plan, long limit) throws Exception
+	{
+		Predicate predicate = Predicate.forExpression(expression);
+		int[] uids = null;
+		if(expression != null)
 		{
-			//Simple for loop for search
-			for(int i = 0; i < indexFilteredArray.length; i++)
+			IndexSelectResult isr = expression.filterObjectsWithIndexes(scda, this.indexes);
+			uids = isr.getFilteredUids(scda, this.indexes);
+			if(plan != null)
 			{
-				if(!hasWhereClause
-                    || (hasWhereClause && expression.eval(scda, indexFilteredArray[i])))
-				{
-					matchesList.add(indexFilteredArray[i]);
-				}
+				plan.setIndexResult(isr);
 			}
 		}
-
-		return (WDBObject[])matchesList.toArray(matchesArray);
+		if(plan != null)
+		{
+			plan.className = this.name;
+			plan.indexed = (uids != null);
+		}
+		if(uids != null)
+		{
+			return new SearchCursor(this.name, predicate, null, null, uids, limit, scda, plan);
+		}
+		//Scan the whole extent of this class
+		if(limit < 0 && scda.isParallelScan())
+		{
+			return new SearchCursor(this.name, predicate, null, scda.openParallelScan(this.name, predicate, plan), null, limit, scda, plan);
+		}
+		return new SearchCursor(this.name, predicate, scda.openExtentCursor(this.name), null, null, limit, scda, plan);
 	}
-	public void padAttribute(PrintNode row, AttributePath attributePath, SleepyCatDataAdapter scda) throws Exception
+	public void padAttribute(RowGroup row, AttributePath attributePath, SleepyCatDataAdapter scda) throws Exception
 	{
 		for(int j = 0; j < attributes.size(); j++)
 		{	
@@ -204,15 +201,11 @@ public class ClassDef extends Query implements Serializable {
 				//If the attribute we want is found or we just want everything, output
 				if(attributePath.attribute.equals("*"))
 				{
-					PrintCell cell = new PrintCell();
-					cell.setOutput(String.format(""));
-					row.addCell(cell);
+					row.addCell(null);
 				}
 				else if(attributePath.attribute.equals(currentAttribute.name))
 				{
-					PrintCell cell = new PrintCell();
-					cell.setOutput(String.format(""));
-					row.addCell(cell);
+					row.addCell(null);
 					return;
 				}
 			}
@@ -248,7 +241,7 @@ public class ClassDef extends Query implements Serializable {
 			}
 		}
 	}
-	public void printAttributeName(PrintNode row, AttributePath attributePath, SleepyCatDataAdapter scda) throws Exception
+	public void printAttributeName(RowGroup row, AttributePath attributePath, SleepyCatDataAdapter scda) throws Exception
 	{
 		for(int j = 0; j < attributes.size(); j++)
 		{	
@@ -260,15 +253,11 @@ public class ClassDef extends Query implements Serializable {
 				//If the attribute we want is found or we just want everything, output
 				if(attributePath.attribute.equals("*"))
 				{
-					PrintCell cell = new PrintCell();
-					cell.setOutput(String.format("%s", currentAttribute.name));
-					row.addCell(cell);
+					row.addCell(String.format("%s", currentAttribute.name));
 				}
 				else if(attributePath.attribute.equals(currentAttribute.name))
 				{
-					PrintCell cell = new PrintCell();
-					cell.setOutput(String.format("%s", currentAttribute.name));
-					row.addCell(cell);
+					row.addCell(String.format("%s", currentAttribute.name));
 					return;
 				}
 			}
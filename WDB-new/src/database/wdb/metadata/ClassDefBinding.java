@@ -0,0 +1,219 @@
+package wdb.metadata;
+
+import com.sleepycat.bind.serial.StoredClassCatalog;
+import com.sleepycat.bind.tuple.TupleInput;
+import com.sleepycat.bind.tuple.TupleOutput;
+
+import java.util.*;
+
+/**
+ * Record format of a ClassDef or SubclassDef:
+ * version, kind, name, comment, attributes, indexes and, for subclasses,
+ * the superclass names. Version 1 records also held the instance UIDs,
+ * which now come from the key range of the class in the object database.
+ * Version 3 added the bitmap flag of each index. Version 5 added the names
+ * of all the classes a subclass is under, -1 if they were not known yet.
+ */
+public class ClassDefBinding extends WDBTupleBinding<ClassDef> {
+	private static final byte BASE_CLASS = 'C';
+	private static final byte SUBCLASS = 'S';
+	private static final byte DVA_ATTRIBUTE = 'D';
+	private static final byte EVA_ATTRIBUTE = 'E';
+	private static final int ANCESTORS_VERSION = 5;
+
+	public ClassDefBinding(StoredClassCatalog classCatalog)
+	{
+		super(classCatalog, ClassDef.class);
+	}
+
+	public ClassDef entryToObject(TupleInput input)
+	{
+		int version = readVersion(input);
+		byte kind = input.readByte();
+		ClassDef classDef = (kind == SUBCLASS) ? new SubclassDef() : new ClassDef();
+		classDef.name = input.readString();
+		classDef.comment = input.readString();
+
+		int attributeCount = input.readInt();
+		for(int i = 0; i < attributeCount; i++)
+		{
+			classDef.addAttribute(readAttribute(input));
+		}
+
+		if(version < 2)
+		{
+			int instanceCount = input.readInt();
+			input.skipFast(instanceCount * 4);
+		}
+
+		int indexCount = input.readInt();
+		for(int i = 0; i < indexCount; i++)
+		{
+			classDef.indexes.add(readIndex(input, version));
+		}
+
+		if(kind == SUBCLASS)
+		{
+			int superClassCount = input.readInt();
+			for(int i = 0; i < superClassCount; i++)
+			{
+				((SubclassDef)classDef).addSuperClass(input.readString());
+			}
+			int ancestorCount = (version >= ANCESTORS_VERSION) ? input.readInt() : -1;
+			if(ancestorCount >= 0)
+			{
+				HashSet<String> ancestors = new HashSet<String>();
+				for(int i = 0; i < ancestorCount; i++)
+				{
+					ancestors.add(input.readString());
+				}
+				((SubclassDef)classDef).ancestors = ancestors;
+			}
+		}
+
+		return classDef;
+	}
+
+	public void objectToEntry(ClassDef classDef, TupleOutput output)
+	{
+		writeVersion(output);
+		output.writeByte(classDef.getClass() == SubclassDef.class ? SUBCLASS : BASE_CLASS);
+		output.writeString(classDef.name);
+		output.writeString(classDef.comment);
+
+		output.writeInt(classDef.numberOfAttributes());
+		for(int i = 0; i < classDef.numberOfAttributes(); i++)
+		{
+			writeAttribute(output, classDef.getAttribute(i));
+		}
+
+		IndexDef[] indexes = classDef.getIndexes();
+		output.writeInt(indexes.length);
+		for(int i = 0; i < indexes.length; i++)
+		{
+			writeIndex(output, indexes[i]);
+		}
+
+		if(classDef.getClass() == SubclassDef.class)
+		{
+			SubclassDef subclassDef = (SubclassDef)classDef;
+			output.writeInt(subclassDef.numberOfSuperClasses());
+			for(int i = 0; i < subclassDef.numberOfSuperClasses(); i++)
+			{
+				output.writeString(subclassDef.getSuperClass(i));
+			}
+			if(subclassDef.ancestors == null)
+			{
+				output.writeInt(-1);
+			}
+			else
+			{
+				output.writeInt(subclassDef.ancestors.size());
+				Iterator<String> i = subclassDef.ancestors.iterator();
+				while(i.hasNext())
+				{
+					output.writeString(i.next());
+				}
+			}
+		}
+	}
+
+	private static Attribute readAttribute(TupleInput input)
+	{
+		byte kind = input.readByte();
+		String name = input.readString();
+		String comment = input.readString();
+		Boolean required = (Boolean)readValue(input);
+
+		if(kind == DVA_ATTRIBUTE)
+		{
+			String type = input.readString();
+			Integer size = (Integer)readValue(input);
+			Object initialValue = readValue(input);
+			return new DVA(name, comment, required, type, size, initialValue);
+		}
+		else if(kind == EVA_ATTRIBUTE)
+		{
+			EVA eva = new EVA();
+			eva.name = name;
+			eva.comment = comment;
+			eva.required = required;
+			eva.baseClassName = input.readString();
+			eva.inverseEVA = input.readString();
+			eva.cardinality = (Integer)readValue(input);
+			eva.distinct = (Boolean)readValue(input);
+			eva.max = (Integer)readValue(input);
+			return eva;
+		}
+		else
+		{
+			throw new IllegalArgumentException("Unknown attribute kind " + kind);
+		}
+	}
+
+	private static void writeAttribute(TupleOutput output, Attribute attribute)
+	{
+		if(attribute.getClass() == DVA.class)
+		{
+			DVA dva = (DVA)attribute;
+			output.writeByte(DVA_ATTRIBUTE);
+			output.writeString(dva.name);
+			output.writeString(dva.comment);
+			writeValue(output, dva.required);
+			output.writeString(dva.type);
+			writeValue(output, dva.size);
+			writeValue(output, dva.initialValue);
+		}
+		else if(attribute.getClass() == EVA.class)
+		{
+			EVA eva = (EVA)attribute;
+			output.writeByte(EVA_ATTRIBUTE);
+			output.writeString(eva.name);
+			output.writeString(eva.comment);
+			writeValue(output, eva.required);
+			output.writeString(eva.baseClassName);
+			output.writeString(eva.inverseEVA);
+			writeValue(output, eva.cardinality);
+			writeValue(output, eva.distinct);
+			writeValue(output, eva.max);
+		}
+		else
+		{
+			throw new IllegalArgumentException("Attribute \"" + attribute.name + "\" is neither a DVA nor an EVA");
+		}
+	}
+
+	private static IndexDef readIndex(TupleInput input, int version)
+	{
+		IndexDef index = new IndexDef();
+		index.name = input.readString();
+		index.className = input.readString();
+		index.comment = input.readString();
+		index.unique = (Boolean)readValue(input);
+		if(version >= 3)
+		{
+			index.bitmap = (Boolean)readValue(input);
+		}
+		int dvaCount = input.readInt();
+		for(int i = 0; i < dvaCount; i++)
+		{
+			index.addDva(input.readString());
+		}
+		return index;
+	}
+
+	private static void writeIndex(TupleOutput output, IndexDef index)
+	{
+		output.writeString(index.name);
+		output.writeString(index.className);
+		output.writeString(index.comment);
+		writeValue(output, index.unique);
+		writeValue(output, index.bitmap);
+		ArrayList dvas = index.getDvas();
+		output.writeInt(dvas.size());
+		for(int i = 0; i < dvas.size(); i++)
+		{
+			output.writeString((String)dvas.get(i));
+		}
+	}
+}
@@ -14,6 +14,7 @@ package wdb.metadata;
  * Window - Preferences - Java - Code Style - Code Templates
  */
 public final class DVA extends Attribute {
+	private static final long serialVersionUID = 7121002313797489444L;
 	public String type;
 	public Integer size;
 	public Object initialValue;
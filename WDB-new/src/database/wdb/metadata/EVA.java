@@ -14,6 +14,7 @@ package wdb.metadata;
  * Window - Preferences - Java - Code Style - Code Templates
  */
 public final class EVA extends Attribute {
+	private static final long serialVersionUID = -640145355436641024L;
 	public static final Integer SINGLEVALUED = 0;
 	public static final Integer MULTIVALUED = 1;
 	
@@ -0,0 +1,210 @@
+package wdb.metadata;
+
+import com.sleepycat.bind.tuple.TupleInput;
+import com.sleepycat.bind.tuple.TupleOutput;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The objects one EVA of an object refers to. The classes of the targets
+ * are kept once in a small table, and each reference is a long holding the
+ * ordinal of its class in the table in the high 32 bits and the UID in the
+ * low 32 bits. References keep the order they were added in, which is the
+ * order RETRIEVE prints them in, and a sorted copy of them is kept for the
+ * binary search that finds one.
+ */
+public class EvaReferences implements Serializable {
+	private static final long serialVersionUID = 4418530944163210587L;
+
+	private String[] classNames;
+	private long[] references;
+	private int size;
+	//The references sorted, built again when read
+	private transient long[] sorted;
+
+	public EvaReferences()
+	{
+		this.classNames = new String[0];
+		this.references = new long[4];
+		this.sorted = new long[4];
+	}
+
+	public int size()
+	{
+		return this.size;
+	}
+
+	public String getClassName(int i)
+	{
+		return this.classNames[(int)(this.references[i] >>> 32)];
+	}
+
+	public int getUid(int i)
+	{
+		return (int)this.references[i];
+	}
+
+	public boolean contains(String className, int uid)
+	{
+		int ordinal = this.getOrdinal(className);
+		return ordinal >= 0 && this.find(reference(ordinal, uid)) >= 0;
+	}
+
+	/**
+	 * Adds a reference. If distinct, a reference that is already there is
+	 * not added again.
+	 *
+	 * @return true if the reference was added
+	 */
+	public boolean add(String className, int uid, boolean distinct)
+	{
+		int ordinal = this.getOrdinal(className);
+		if(ordinal < 0)
+		{
+			ordinal = this.classNames.length;
+			this.classNames = Arrays.copyOf(this.classNames, ordinal + 1);
+			this.classNames[ordinal] = className;
+		}
+		long reference = reference(ordinal, uid);
+		int i = this.find(reference);
+		if(i >= 0 && distinct)
+		{
+			return false;
+		}
+		if(i < 0)
+		{
+			i = -(i + 1);
+		}
+		if(this.size == this.references.length)
+		{
+			this.references = Arrays.copyOf(this.references, this.size * 2);
+			this.sorted = Arrays.copyOf(this.sorted, this.size * 2);
+		}
+		System.arraycopy(this.sorted, i, this.sorted, i + 1, this.size - i);
+		this.sorted[i] = reference;
+		this.references[this.size++] = reference;
+		return true;
+	}
+
+	/**
+	 * Removes the first reference to an object.
+	 *
+	 * @return true if there was one
+	 */
+	public boolean remove(String className, int uid)
+	{
+		int ordinal = this.getOrdinal(className);
+		if(ordinal < 0)
+		{
+			return false;
+		}
+		long reference = reference(ordinal, uid);
+		int i = this.find(reference);
+		if(i < 0)
+		{
+			return false;
+		}
+		System.arraycopy(this.sorted, i + 1, this.sorted, i, this.size - i - 1);
+		int j = 0;
+		while(this.references[j] != reference)
+		{
+			j++;
+		}
+		System.arraycopy(this.references, j + 1, this.references, j, this.size - j - 1);
+		this.size--;
+		return true;
+	}
+
+	/**
+	 * Writes the class table, then the references as packed differences
+	 * from the previous one.
+	 */
+	public void write(TupleOutput output)
+	{
+		output.writePackedInt(this.classNames.length);
+		for(int i = 0; i < this.classNames.length; i++)
+		{
+			output.writeString(this.classNames[i]);
+		}
+		output.writePackedInt(this.size);
+		long previous = 0;
+		for(int i = 0; i < this.size; i++)
+		{
+			output.writePackedLong(this.references[i] - previous);
+			previous = this.references[i];
+		}
+	}
+
+	public static EvaReferences read(TupleInput input)
+	{
+		EvaReferences references = new EvaReferences();
+		references.classNames = new String[input.readPackedInt()];
+		for(int i = 0; i < references.classNames.length; i++)
+		{
+			references.classNames[i] = input.readString();
+		}
+		references.size = input.readPackedInt();
+		references.references = new long[Math.max(references.size, 4)];
+		long previous = 0;
+		for(int i = 0; i < references.size; i++)
+		{
+			previous += input.readPackedLong();
+			references.references[i] = previous;
+		}
+		references.sorted = null;
+		return references;
+	}
+
+	/**
+	 * Converts the references of records written before this class existed,
+	 * a "class:uid" string or a list of them. Serialized objects written
+	 * since hold the references themselves.
+	 */
+	static EvaReferences fromStrings(Object reference)
+	{
+		if(reference instanceof EvaReferences)
+		{
+			return (EvaReferences)reference;
+		}
+		EvaReferences references = new EvaReferences();
+		List<?> strings = (reference instanceof List) ? (List<?>)reference : Collections.singletonList(reference);
+		for(int i = 0; i < strings.size(); i++)
+		{
+			String[] targetKey = ((String)strings.get(i)).split(":");
+			references.add(targetKey[0], Integer.parseInt(targetKey[1]), false);
+		}
+		return references;
+	}
+
+	//UIDs are compared unsigned, which is all the binary search needs
+	private static long reference(int ordinal, int uid)
+	{
+		return ((long)ordinal << 32) | (uid & 0xFFFFFFFFL);
+	}
+
+	private int getOrdinal(String className)
+	{
+		for(int i = 0; i < this.classNames.length; i++)
+		{
+			if(this.classNames[i].equals(className))
+			{
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private int find(long reference)
+	{
+		if(this.sorted == null)
+		{
+			//Read from a record or deserialized
+			this.sorted = Arrays.copyOf(this.references, this.references.length);
+			Arrays.sort(this.sorted, 0, this.size);
+		}
+		return Arrays.binarySearch(this.sorted, 0, this.size, reference);
+	}
+}
@@ -15,18 +15,22 @@ import java.util.*;
  * Window - Preferences - Java - Code Style - Code Templates
  */
 public class IndexDef extends Query implements Serializable {
+	private static final long serialVersionUID = -7848728705148441254L;
 	public String name;
 	public String className;
 	public String comment;
 	public Boolean unique;
+	//Posting lists kept as bitmaps of class ordinals instead of one row per object
+	public Boolean bitmap;
 	
-	private ArrayList dvas;
+	private ArrayList<String> dvas;
 	
 	public IndexDef()
 	{
 		super();
-		this.dvas = new ArrayList();
+		this.dvas = new ArrayList<String>();
 		this.unique = false;
+		this.bitmap = false;
 	}
 	
 	public void addDva(String dva)
@@ -34,7 +38,7 @@ public class IndexDef extends Query implements Serializable {
 		this.dvas.add(dva);
 	}
 	
-	public ArrayList getDvas()
+	public ArrayList<String> getDvas()
 	{
 		return this.dvas;
 	}
@@ -43,4 +47,10 @@ public class IndexDef extends Query implements Serializable {
 	{
 		this.dvas.remove(dva);
 	}
+	
+	public boolean isBitmap()
+	{
+		//Indexes stored before bitmaps existed have no value here
+		return this.bitmap != null && this.bitmap.booleanValue();
+	}
 }
@@ -0,0 +1,170 @@
+package wdb.metadata;
+
+/**
+ * Range of values allowed for one DVA by the conditions anded together in
+ * a WHERE clause. A null bound means the range is open on that side. An
+ * equality is a range whose bounds are the same value, both inclusive.
+ *
+ * Values are ordered the same way index keys are encoded: null, then
+ * booleans, then integers, then strings, each in their natural order.
+ */
+public class IndexRange {
+	public Object lower;
+	public boolean lowerInclusive;
+	public Object upper;
+	public boolean upperInclusive;
+
+	public IndexRange(Object lower, boolean lowerInclusive, Object upper, boolean upperInclusive)
+	{
+		this.lower = lower;
+		this.lowerInclusive = lowerInclusive;
+		this.upper = upper;
+		this.upperInclusive = upperInclusive;
+	}
+
+	/**
+	 * @return the range selected by "dva quantifier value", or null if the
+	 * quantifier can not be answered by a range (like "<>")
+	 */
+	public static IndexRange forQuantifier(String quantifier, Object value)
+	{
+		if(quantifier.equals("="))
+		{
+			return new IndexRange(value, true, value, true);
+		}
+		if(quantifier.equals("<"))
+		{
+			return new IndexRange(null, false, value, false);
+		}
+		if(quantifier.equals("<="))
+		{
+			return new IndexRange(null, false, value, true);
+		}
+		if(quantifier.equals(">"))
+		{
+			return new IndexRange(value, false, null, false);
+		}
+		if(quantifier.equals(">="))
+		{
+			return new IndexRange(value, true, null, false);
+		}
+		return null;
+	}
+
+	public boolean isPoint()
+	{
+		return this.lower != null && this.lowerInclusive && this.upperInclusive && compareValues(this.lower, this.upper) == 0;
+	}
+
+	public boolean contains(Object value)
+	{
+		if(this.lower != null)
+		{
+			int c = compareValues(value, this.lower);
+			if(c < 0 || (c == 0 && !this.lowerInclusive))
+			{
+				return false;
+			}
+		}
+		return !this.isAbove(value);
+	}
+
+	/**
+	 * @return true if value lies past the upper bound of this range
+	 */
+	public boolean isAbove(Object value)
+	{
+		if(this.upper == null)
+		{
+			return false;
+		}
+		int c = compareValues(value, this.upper);
+		return c > 0 || (c == 0 && !this.upperInclusive);
+	}
+
+	/**
+	 * Narrows this range to the part it shares with another one.
+	 */
+	public IndexRange intersect(IndexRange range)
+	{
+		if(range.lower != null)
+		{
+			int c = (this.lower == null) ? -1 : compareValues(this.lower, range.lower);
+			if(c < 0 || (c == 0 && !range.lowerInclusive))
+			{
+				this.lower = range.lower;
+				this.lowerInclusive = range.lowerInclusive;
+			}
+		}
+		if(range.upper != null)
+		{
+			int c = (this.upper == null) ? 1 : compareValues(this.upper, range.upper);
+			if(c > 0 || (c == 0 && !range.upperInclusive))
+			{
+				this.upper = range.upper;
+				this.upperInclusive = range.upperInclusive;
+			}
+		}
+		return this;
+	}
+
+	public static int compareValues(Object a, Object b)
+	{
+		int rankA = typeRank(a);
+		int rankB = typeRank(b);
+		if(rankA != rankB)
+		{
+			return rankA - rankB;
+		}
+		switch(rankA)
+		{
+			case 0:
+				return 0;
+			case 1:
+				return ((Boolean)a).compareTo((Boolean)b);
+			case 2:
+				return ((Integer)a).compareTo((Integer)b);
+			default:
+				return ((String)a).compareTo((String)b);
+		}
+	}
+
+	private static int typeRank(Object value)
+	{
+		if(value == null)
+		{
+			return 0;
+		}
+		if(value instanceof Boolean)
+		{
+			return 1;
+		}
+		if(value instanceof Integer)
+		{
+			return 2;
+		}
+		if(value instanceof String)
+		{
+			return 3;
+		}
+		throw new ClassCastException("Values of type " + value.getClass().getName() + " can not be indexed");
+	}
+
+	public String toString()
+	{
+		if(this.isPoint())
+		{
+			return "= " + this.lower;
+		}
+		String s = "";
+		if(this.lower != null)
+		{
+			s = (this.lowerInclusive ? ">= " : "> ") + this.lower;
+		}
+		if(this.upper != null)
+		{
+			s = s + (s.length() > 0 ? " and " : "") + (this.upperInclusive ? "<= " : "< ") + this.upper;
+		}
+		return s;
+	}
+}
@@ -1,52 +1,237 @@
 package wdb.metadata;
 
 import wdb.SleepyCatDataAdapter;
+import wdb.SleepyCatIndexStats;
 import wdb.metadata.*;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
 import java.util.Hashtable;
 import java.util.ArrayList;
+import java.util.HashSet;
+
+import org.roaringbitmap.RoaringBitmap;
 
 public class IndexSelectResult {
+	//Planner costs, relative to fetching and deserializing one object by its UID
+	public static final double FETCH_COST = 1.0;
+	public static final double SCAN_COST = 0.5;
+	public static final double KEY_COST = 0.05;
+	//Intersections gallop through the longer list when it is this many times longer
+	public static final int GALLOP_RATIO = 32;
+	
 	
-	//list of currently found objects using indexes. 
+	//UIDs of the currently found objects using indexes, in ascending order.
 	//Null means can't filter. 
-	private ArrayList<WDBObject> filteredList;
+	private int[] filteredList;
+	//Ordinals of the currently found objects using bitmap indexes, anded with the filtered list.
+	//Null means the bitmap indexes didn't narrow it down.
+	private RoaringBitmap filteredBitmap;
+	//class of the objects in the filtered list and bitmap
+	private String className;
+	//True while the filtered bitmap and the pending DVAs select exactly the matching objects
+	//instead of a superset of them. Only then can a NOT be answered with the bitmap.
+	private boolean exact;
 	//list of DVAs that are anded together collecting until we have to resolve it to a list from index(if possible)
-	private Hashtable<String, Object> andDvaList;
+	//Each DVA maps to the range of values the conditions on it allow
+	private Hashtable<String, IndexRange> andDvaList;
+	//Objects in the class according to the index statistics, 0 if no index was looked at
+	private long classSize;
+	//Estimated size of the filtered list, -1 while it is a scan
+	private double estimatedRows;
+	//What the planner did, for EXPLAIN
+	private ArrayList<String> planSteps;
 	
 	public IndexSelectResult()
 	{
-		this.andDvaList = new Hashtable<String, Object>();
+		this.andDvaList = new Hashtable<String, IndexRange>();
+		this.exact = false;
+		this.estimatedRows = -1;
+		this.planSteps = new ArrayList<String>();
 	}
-	public WDBObject[] getFilteredResults(SleepyCatDataAdapter scda, ArrayList indexes) throws Exception
+	public ArrayList<String> getPlanSteps()
 	{
-		this.doDelayedAnd(scda, indexes);
-		if(filteredList != null)
+		return this.planSteps;
+	}
+	public long getClassSize()
+	{
+		return this.classSize;
+	}
+	public double getEstimatedRows()
+	{
+		return this.estimatedRows;
+	}
+	public WDBObject[] getFilteredResults(SleepyCatDataAdapter scda, ArrayList<?> indexes) throws Exception
+	{
+		int[] uids = this.getFilteredUids(scda, indexes);
+		if(uids != null)
 		{
-			return (WDBObject[])filteredList.toArray(new WDBObject[0]);
+			//Only now fetch the objects that survived all the ands and ors
+			String[] classNames = new String[uids.length];
+			Arrays.fill(classNames, this.className);
+			return scda.getObjects(classNames, uids);
 		}
 		
 		return null;
 	}
+	/**
+	 * @return the UIDs of the objects that survived all the ands and ors in
+	 * ascending order, or null if the class has to be scanned
+	 */
+	public int[] getFilteredUids(SleepyCatDataAdapter scda, ArrayList<?> indexes) throws Exception
+	{
+		this.doDelayedAnd(scda, indexes);
+		this.resolveBitmap(scda);
+		return filteredList;
+	}
 	public void clearResults()
 	{
 		this.filteredList = null;
+		this.filteredBitmap = null;
+		this.exact = false;
+		this.estimatedRows = -1;
 	}
 	public void addDva(String dva, Object value)
 	{
-		this.andDvaList.put(dva, value);
+		this.addDva(dva, new IndexRange(value, true, value, true));
+	}
+	public void addDva(String dva, IndexRange range)
+	{
+		IndexRange current = this.andDvaList.get(dva);
+		if(current == null)
+		{
+			if(this.andDvaList.isEmpty() && this.filteredList == null && this.filteredBitmap == null)
+			{
+				//A lone condition is exact until an index can only answer it with a superset
+				this.exact = true;
+			}
+			this.andDvaList.put(dva, range);
+		}
+		else
+		{
+			current.intersect(range);
+		}
 	}
 	public IndexSelectResult and(IndexSelectResult isr)
 	{
+		boolean exact = this.exact && isr.exact;
+		this.planSteps.addAll(isr.planSteps);
+		this.classSize = Math.max(this.classSize, isr.classSize);
+		if(isr.estimatedRows >= 0 && (this.estimatedRows < 0 || isr.estimatedRows < this.estimatedRows))
+		{
+			this.estimatedRows = isr.estimatedRows;
+		}
 		this.filteredList = this.andFilteredList(isr.filteredList);
-		this.andDvaList.putAll(isr.andDvaList);
+		this.filteredBitmap = this.andFilteredBitmap(isr.filteredBitmap);
+		this.className = (this.className != null) ? this.className : isr.className;
+		Enumeration<String> e = isr.andDvaList.keys();
+		while(e.hasMoreElements())
+		{
+			String dva = e.nextElement();
+			this.addDva(dva, isr.andDvaList.get(dva));
+		}
+		this.exact = exact;
 		return this;
 	}
-	public IndexSelectResult or(IndexSelectResult isr)
+	public IndexSelectResult or(IndexSelectResult isr, SleepyCatDataAdapter scda) throws Exception
 	{
+		this.className = (this.className != null) ? this.className : isr.className;
+		this.exact = this.exact && isr.exact;
+		this.planSteps.addAll(isr.planSteps);
+		this.classSize = Math.max(this.classSize, isr.classSize);
+		this.estimatedRows = (this.estimatedRows < 0 || isr.estimatedRows < 0) ? -1 : this.estimatedRows + isr.estimatedRows;
+		if(this.filteredList == null && isr.filteredList == null
+				&& this.filteredBitmap != null && isr.filteredBitmap != null)
+		{
+			//Both sides come from bitmap indexes only
+			this.filteredBitmap = RoaringBitmap.or(this.filteredBitmap, isr.filteredBitmap);
+			this.planSteps.add("bitmap union, " + this.filteredBitmap.getCardinality() + " rows");
+			return this;
+		}
+		this.resolveBitmap(scda);
+		isr.resolveBitmap(scda);
 		this.filteredList = this.orFilteredList(isr.filteredList);
+		if(this.filteredList == null)
+		{
+			this.estimatedRows = -1;
+			this.planSteps.add("union with a side that needs a scan, scan");
+		}
+		else if(this.filteredList.length * FETCH_COST > this.classSize * SCAN_COST)
+		{
+			//Fetching the union one by one costs more than reading the extent
+			this.planSteps.add("union of " + this.filteredList.length + " rows costs more than a scan of "
+					+ this.classSize + ", scan");
+			this.clearResults();
+		}
+		else
+		{
+			this.planSteps.add("union, " + this.filteredList.length + " rows");
+		}
 		return this;
 	}
-	private ArrayList<WDBObject> andFilteredList(ArrayList<WDBObject> objectsList)
+	/**
+	 * Complements the result within the extent of its class. Only an exact
+	 * result can be complemented: a bitmap is flipped, a UID list is taken
+	 * from the UIDs of the extent. Anything else becomes a scan.
+	 */
+	public IndexSelectResult not(SleepyCatDataAdapter scda) throws Exception
+	{
+		if(!this.exact || !this.andDvaList.isEmpty() || (this.filteredList == null && this.filteredBitmap == null))
+		{
+			this.andDvaList.clear();
+			this.clearResults();
+			this.planSteps.add("not of an inexact result, scan");
+		}
+		else if(this.filteredList == null)
+		{
+			this.filteredBitmap = RoaringBitmap.flip(this.filteredBitmap, 0, scda.getOrdinalCount(this.className));
+			this.estimatedRows = this.filteredBitmap.getCardinality();
+			this.planSteps.add("bitmap complement, " + this.filteredBitmap.getCardinality() + " rows");
+		}
+		else
+		{
+			this.resolveBitmap(scda);
+			int[] extent = scda.getExtentUids(this.className);
+			this.classSize = Math.max(this.classSize, extent.length);
+			this.filteredList = difference(extent, this.filteredList);
+			if(this.filteredList.length * FETCH_COST > extent.length * SCAN_COST)
+			{
+				//The extent keys are already read, but fetching most of it one by one still costs more
+				this.planSteps.add("difference of " + this.filteredList.length + " rows costs more than a scan of "
+						+ extent.length + ", scan");
+				this.clearResults();
+			}
+			else
+			{
+				this.estimatedRows = this.filteredList.length;
+				this.planSteps.add("difference from the extent of " + extent.length + ", " + this.filteredList.length + " rows");
+			}
+		}
+		return this;
+	}
+	private RoaringBitmap andFilteredBitmap(RoaringBitmap ordinals)
+	{
+		if(this.filteredBitmap == null)
+		{
+			return ordinals;
+		}
+		else if(ordinals == null)
+		{
+			return this.filteredBitmap;
+		}
+		return RoaringBitmap.and(this.filteredBitmap, ordinals);
+	}
+	//Turns the bitmap into UIDs and ands them into the filtered list
+	private void resolveBitmap(SleepyCatDataAdapter scda) throws Exception
+	{
+		if(this.filteredBitmap != null)
+		{
+			this.filteredList = this.andFilteredList(scda.getUids(this.className, this.filteredBitmap));
+			this.filteredBitmap = null;
+		}
+	}
+	private int[] andFilteredList(int[] objectsList)
 	{
 		if(this.filteredList == null && objectsList == null)
 		{
@@ -61,56 +246,124 @@ public class IndexSelectResult {
 		{
 			return this.filteredList;
 		}
-		else
+		return intersect(this.filteredList, objectsList);
+	}
+	private int[] orFilteredList(int[] objectsList)
+	{
+		if(this.filteredList == null || objectsList == null)
 		{
-			int i;
-			int j;
-			ArrayList<WDBObject> newAndedList = new ArrayList<WDBObject>();
-			for(i = 0; i < objectsList.size(); i++)
+			return null;
+		}
+		
+		//Both lists are sorted, walk them together and keep every UID once
+		int i = 0;
+		int j = 0;
+		int count = 0;
+		int[] newOredList = new int[objectsList.length + this.filteredList.length];
+		while(i < objectsList.length || j < this.filteredList.length)
+		{
+			if(j >= this.filteredList.length || (i < objectsList.length && objectsList[i] < this.filteredList[j]))
 			{
-				for(j = 0; j < this.filteredList.size(); j++)
-				{
-					if(((WDBObject)objectsList.get(i)).getUid().equals(((WDBObject)this.filteredList.get(j)).getUid()))
-					{
-						newAndedList.add(objectsList.get(i));
-						break;
-					}
-				}
+				newOredList[count++] = objectsList[i++];
+			}
+			else if(i >= objectsList.length || objectsList[i] > this.filteredList[j])
+			{
+				newOredList[count++] = this.filteredList[j++];
+			}
+			else
+			{
+				newOredList[count++] = objectsList[i];
+				i++;
+				j++;
 			}
-			
-			return newAndedList;
 		}
+
+		return Arrays.copyOf(newOredList, count);
 	}
-	private ArrayList<WDBObject> orFilteredList(ArrayList<WDBObject> objectsList)
+	/**
+	 * @return the UIDs in both sorted lists. When one list is much shorter,
+	 * each of its UIDs is looked up in the longer one by galloping forward
+	 * from the last match instead of walking every UID of the longer list.
+	 */
+	static int[] intersect(int[] uids1, int[] uids2)
 	{
-		if(this.filteredList == null || objectsList == null)
+		int[] small = (uids1.length <= uids2.length) ? uids1 : uids2;
+		int[] large = (uids1.length <= uids2.length) ? uids2 : uids1;
+		int[] newAndedList = new int[small.length];
+		int count = 0;
+		if(small.length * GALLOP_RATIO < large.length)
 		{
-			return null;
+			int from = 0;
+			for(int i = 0; i < small.length && from < large.length; i++)
+			{
+				//Double the step until past the UID, then search the last step
+				int step = 1;
+				int to = from;
+				while(to < large.length && large[to] < small[i])
+				{
+					from = to + 1;
+					to += step;
+					step <<= 1;
+				}
+				int found = Arrays.binarySearch(large, from, Math.min(to + 1, large.length), small[i]);
+				if(found >= 0)
+				{
+					newAndedList[count++] = small[i];
+					from = found + 1;
+				}
+				else
+				{
+					from = -(found + 1);
+				}
+			}
 		}
-		
-		int i;
-		int j;
-		int objectsListSize = objectsList.size();
-		for(i = 0; i < objectsListSize; i++)
+		else
 		{
-			Boolean found = false;
-			for(j = 0; j < this.filteredList.size(); j++)
+			//Both lists are sorted, walk them together and keep the UIDs in both
+			int i = 0;
+			int j = 0;
+			while(i < small.length && j < large.length)
 			{
-				if(((WDBObject)objectsList.get(i)).getUid().equals(((WDBObject)this.filteredList.get(j)).getUid()))
+				if(small[i] < large[j])
+				{
+					i++;
+				}
+				else if(small[i] > large[j])
+				{
+					j++;
+				}
+				else
 				{
-					found = true;
-					break;
+					newAndedList[count++] = small[i];
+					i++;
+					j++;
 				}
 			}
-			if(!found)
+		}
+		return Arrays.copyOf(newAndedList, count);
+	}
+	/**
+	 * @return the UIDs of the first sorted list that are not in the second
+	 */
+	static int[] difference(int[] uids, int[] removed)
+	{
+		int[] newList = new int[uids.length];
+		int count = 0;
+		int j = 0;
+		for(int i = 0; i < uids.length; i++)
+		{
+			while(j < removed.length && removed[j] < uids[i])
+			{
+				j++;
+			}
+			if(j >= removed.length || removed[j] != uids[i])
 			{
-				this.filteredList.add(objectsList.get(i));
+				newList[count++] = uids[i];
 			}
 		}
-
-		return this.filteredList;
+		return Arrays.copyOf(newList, count);
 	}
-	public void doDelayedAnd(SleepyCatDataAdapter scda, ArrayList indexes) throws Exception
+	public void doDelayedAnd(SleepyCatDataAdapter scda, ArrayList<?> indexes) throws Exception
 	{
 		if(andDvaList.isEmpty())
 		{
@@ -119,52 +372,178 @@ public class IndexSelectResult {
 		}
 		else 
 		{
-			IndexDef bestIndex = null;
-			String bestIndexKey = null;
+			//DVAs whose conditions the bitmaps used answer exactly
+			HashSet<String> exactDvas = new HashSet<String>();
+			ArrayList<IndexAccess> candidates = new ArrayList<IndexAccess>();
 			IndexDef currentIndex = null;
-			String currentIndexKey = null;
 			String dvaName = null;
 			int j;
 			int i;
-			//alright, find the best usuable index!
+			//Find the usable indexes. Leading DVAs of an index tested for equality
+			//form the key prefix, the DVA after them may be limited by a range
 			for(i = 0; i < indexes.size(); i++)
 			{
 				currentIndex = ((IndexDef)indexes.get(i));
+				if(!scda.isIndexOpen(currentIndex))
+				{
+					//Dropped until a bulk load ends
+					continue;
+				}
+				ArrayList<Object> prefix = new ArrayList<Object>();
+				IndexRange range = null;
 				for(j = 0; j < currentIndex.getDvas().size(); j++)
 				{
-					dvaName = ((String)((IndexDef)indexes.get(i)).getDvas().get(j));
-					if(andDvaList.containsKey(dvaName))
+					dvaName = currentIndex.getDvas().get(j);
+					IndexRange dvaRange = andDvaList.get(dvaName);
+					if(dvaRange == null)
 					{
-						if(currentIndexKey == null)
-						{
-							currentIndexKey = andDvaList.get(dvaName).toString();
-						}
-						else
-						{
-							currentIndexKey = currentIndexKey + ":" + andDvaList.get(dvaName).toString();
-						}
+						break;
+					}
+					else if(dvaRange.isPoint())
+					{
+						prefix.add(dvaRange.lower);
 					}
 					else
 					{
+						range = dvaRange;
 						break;
 					}
 				}
-				if(j >= currentIndex.getDvas().size() && (bestIndex == null || currentIndex.getDvas().size() > bestIndex.getDvas().size()))
+				SleepyCatIndexStats stats = scda.getIndexStats(currentIndex);
+				this.classSize = Math.max(this.classSize, stats.getEntries());
+				if(prefix.size() == 0 && range == null)
 				{
-					//All the required DVAs for that index were there
-					//And this index has more DVAs so it will produce a smaller set of matches
-					bestIndex = currentIndex;
-					bestIndexKey = currentIndexKey;
+					continue;
 				}
+				IndexAccess access = new IndexAccess(currentIndex, prefix.toArray(), range, stats.estimateRows(prefix.size(), range));
+				if(currentIndex.isBitmap())
+				{
+					//Bitmaps are cheap to combine, so use every bitmap index that applies
+					RoaringBitmap ordinals = scda.getOrdinals(currentIndex, access.prefix, range);
+					this.filteredBitmap = andFilteredBitmap(ordinals);
+					this.className = currentIndex.className;
+					this.planSteps.add("bitmap " + access + ", actual " + ordinals.getCardinality() + " rows");
+					if(range == null && prefix.size() == currentIndex.getDvas().size())
+					{
+						exactDvas.addAll(currentIndex.getDvas());
+					}
+					continue;
+				}
+				candidates.add(access);
 			}
 			
-			if(bestIndex != null)
+			boolean exact = this.exact;
+			this.exact = exact && exactDvas.containsAll(this.andDvaList.keySet());
+			if(this.filteredBitmap != null)
+			{
+				this.estimatedRows = this.filteredBitmap.getCardinality();
+			}
+			if(!this.exact && !candidates.isEmpty())
 			{
-				//We found a usable index. Get the index we get from it
-				this.filteredList = andFilteredList(scda.getObjects(bestIndex, bestIndexKey));
-				
+				this.chooseIndexes(scda, candidates, exactDvas);
+				this.exact = exact && exactDvas.containsAll(this.andDvaList.keySet());
 			}
 			this.andDvaList.clear();
 		}
 	}
+	/**
+	 * Picks the B-tree indexes to intersect. Starting with the most selective,
+	 * an index is used while reading its keys costs less than the object
+	 * fetches it saves. If no index beats reading the whole extent, the
+	 * result stays a scan. DVAs a chosen index answers exactly are added to
+	 * exactDvas.
+	 */
+	private void chooseIndexes(SleepyCatDataAdapter scda, ArrayList<IndexAccess> candidates, HashSet<String> exactDvas) throws Exception
+	{
+		Collections.sort(candidates, new Comparator<IndexAccess>() {
+			public int compare(IndexAccess a1, IndexAccess a2)
+			{
+				return Double.compare(a1.estimatedRows, a2.estimatedRows);
+			}
+		});
+		
+		boolean narrowed = (this.filteredList != null || this.filteredBitmap != null);
+		double rows = this.classSize;
+		if(this.filteredList != null)
+		{
+			rows = Math.min(rows, this.filteredList.length);
+		}
+		if(this.estimatedRows >= 0)
+		{
+			rows = Math.min(rows, this.estimatedRows);
+		}
+		double cost = narrowed ? rows * FETCH_COST : this.classSize * SCAN_COST;
+		double keyCost = 0;
+		ArrayList<IndexAccess> chosen = new ArrayList<IndexAccess>();
+		for(int i = 0; i < candidates.size(); i++)
+		{
+			IndexAccess access = candidates.get(i);
+			//Conditions on different DVAs are taken to be independent
+			double newRows = (this.classSize == 0) ? 0 : rows * access.estimatedRows / this.classSize;
+			double newCost = keyCost + access.estimatedRows * KEY_COST + newRows * FETCH_COST;
+			if(newCost < cost)
+			{
+				chosen.add(access);
+				keyCost += access.estimatedRows * KEY_COST;
+				rows = newRows;
+				cost = newCost;
+			}
+			else
+			{
+				this.planSteps.add("skip " + access);
+			}
+		}
+		
+		for(int i = 0; i < chosen.size(); i++)
+		{
+			IndexAccess access = chosen.get(i);
+			int[] uids = scda.getUids(access.index, access.prefix, access.range);
+			this.filteredList = andFilteredList(uids);
+			this.className = access.index.className;
+			this.planSteps.add((i == 0 ? "index " : "intersect index ") + access + ", actual " + uids.length + " rows");
+			if(access.range == null && access.prefix.length == access.index.getDvas().size())
+			{
+				exactDvas.addAll(access.index.getDvas());
+			}
+		}
+		if(!chosen.isEmpty() || narrowed)
+		{
+			this.estimatedRows = rows;
+		}
+		else
+		{
+			this.planSteps.add("scan of " + this.classSize + " objects is cheapest");
+		}
+	}
+	
+	//One way to answer some of the pending DVAs with an index
+	private static class IndexAccess
+	{
+		IndexDef index;
+		Object[] prefix;
+		IndexRange range;
+		double estimatedRows;
+		
+		IndexAccess(IndexDef index, Object[] prefix, IndexRange range, double estimatedRows)
+		{
+			this.index = index;
+			this.prefix = prefix;
+			this.range = range;
+			this.estimatedRows = estimatedRows;
+		}
+		
+		public String toString()
+		{
+			String s = this.index.name + " (";
+			for(int i = 0; i < this.prefix.length; i++)
+			{
+				s += ((i > 0) ? ", " : "") + this.index.getDvas().get(i) + " = " + this.prefix[i];
+			}
+			if(this.range != null)
+			{
+				s += ((this.prefix.length > 0) ? ", " : "") + this.index.getDvas().get(this.prefix.length) + " " + this.range;
+			}
+			return s + "), estimated " + Math.round(this.estimatedRows) + " rows";
+		}
+	}
 }
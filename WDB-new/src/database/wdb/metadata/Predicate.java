@@ -0,0 +1,413 @@
+package wdb.metadata;
+
+import wdb.SleepyCatDataAdapter;
+import wdb.parser.*;
+
+import java.util.*;
+
+/**
+ * A WHERE expression compiled once per query. Literals are parsed and
+ * ranges built up front, and nested ANDs and ORs are flattened.
+ *
+ * eval is the SleepyCat engine's test of a WDBObject and runs the terms
+ * of an AND or OR cheapest first (no EVA indirection). getTerms keeps
+ * the order the terms were written in, for the Titan engines, which walk
+ * the predicate themselves and test vertices with their own rules.
+ */
+public abstract class Predicate {
+	public static final Predicate TRUE = new Constant(true);
+	public static final Predicate FALSE = new Constant(false);
+
+	/**
+	 * @return the predicate of a parsed expression, taken from the Root of
+	 * the query when there is one so it is only compiled once. A missing
+	 * expression matches everything.
+	 */
+	public static Predicate forExpression(Node expression)
+	{
+		if(expression == null)
+		{
+			return TRUE;
+		}
+		if(expression instanceof Root)
+		{
+			return ((Root)expression).getPredicate();
+		}
+		return compile(expression);
+	}
+
+	public static Predicate compile(Node expression)
+	{
+		if(expression instanceof Root)
+		{
+			return compile(expression.jjtGetChild(0));
+		}
+		if(expression instanceof Cond)
+		{
+			return ((Cond)expression).getCondition();
+		}
+		if(expression instanceof And || expression instanceof Or)
+		{
+			boolean and = (expression instanceof And);
+			ArrayList<Predicate> terms = new ArrayList<Predicate>();
+			for(int i = 0; i < expression.jjtGetNumChildren(); i++)
+			{
+				Predicate term = compile(expression.jjtGetChild(i));
+				if(and && term instanceof Conjunction)
+				{
+					terms.addAll(Arrays.asList(((Conjunction)term).terms));
+				}
+				else if(!and && term instanceof Disjunction)
+				{
+					terms.addAll(Arrays.asList(((Disjunction)term).terms));
+				}
+				else
+				{
+					terms.add(term);
+				}
+			}
+			Predicate[] termArray = terms.toArray(new Predicate[terms.size()]);
+			return and ? (Predicate)new Conjunction(termArray) : (Predicate)new Disjunction(termArray);
+		}
+		if(expression instanceof Not)
+		{
+			return new Negation(compile(expression.jjtGetChild(0)));
+		}
+		if(expression instanceof True)
+		{
+			return TRUE;
+		}
+		if(expression instanceof False)
+		{
+			return FALSE;
+		}
+		throw new IllegalStateException("Unknown type of Node! " + expression);
+	}
+
+	public abstract boolean eval(SleepyCatDataAdapter da, WDBObject object) throws Exception;
+
+	/**
+	 * Adds the conditions every match has to meet, the terms of the top
+	 * level AND, so an engine can answer them with its indexes. Conditions
+	 * under an OR or a NOT are left out.
+	 */
+	public void getRequiredConditions(List<Condition> conditions)
+	{
+	}
+
+	/**
+	 * Rough relative cost of evaluating the predicate once.
+	 */
+	protected abstract int cost();
+
+	public static class Condition extends Predicate {
+		public static final int EQ = 0;
+		public static final int NE = 1;
+		public static final int LT = 2;
+		public static final int LE = 3;
+		public static final int GT = 4;
+		public static final int GE = 5;
+
+		private AttributePath attributePath;
+		private String quantifier;
+		private int op;
+		private Object value;
+		private IndexRange range;
+		//The literal as text and as an integer, for engines that compare those
+		private String valueString;
+		private boolean nullLiteral;
+		private Integer intValue;
+
+		public Condition(AttributePath attributePath, String quantifier, Object value)
+		{
+			this.attributePath = attributePath;
+			this.quantifier = quantifier;
+			this.value = value;
+			this.op = parseQuantifier(quantifier);
+			this.range = IndexRange.forQuantifier(quantifier, value);
+			this.valueString = String.valueOf(value);
+			this.nullLiteral = this.valueString.equals("NULL");
+			if(value instanceof Integer)
+			{
+				this.intValue = (Integer)value;
+			}
+			else
+			{
+				try
+				{
+					this.intValue = Integer.valueOf(this.valueString);
+				}
+				catch(NumberFormatException e)
+				{
+					//Only an error if an ordered comparison is made
+					this.intValue = null;
+				}
+			}
+		}
+
+		private static int parseQuantifier(String quantifier)
+		{
+			if(quantifier.equals("="))
+			{
+				return EQ;
+			}
+			if(quantifier.equals("<>"))
+			{
+				return NE;
+			}
+			if(quantifier.equals("<"))
+			{
+				return LT;
+			}
+			if(quantifier.equals("<="))
+			{
+				return LE;
+			}
+			if(quantifier.equals(">"))
+			{
+				return GT;
+			}
+			if(quantifier.equals(">="))
+			{
+				return GE;
+			}
+			throw new IllegalStateException("Symbol \"" + quantifier + "\" is not a vaid quantifier");
+		}
+
+		public AttributePath getAttributePath()
+		{
+			return this.attributePath;
+		}
+
+		public String getAttributeName()
+		{
+			return this.attributePath.attribute;
+		}
+
+		public String getQuantifier()
+		{
+			return this.quantifier;
+		}
+
+		public Object getValue()
+		{
+			return this.value;
+		}
+
+		/**
+		 * @return EQ, NE, LT, LE, GT or GE
+		 */
+		public int getOperator()
+		{
+			return this.op;
+		}
+
+		/**
+		 * @return true if the literal is NULL
+		 */
+		public boolean isNullLiteral()
+		{
+			return this.nullLiteral;
+		}
+
+		/**
+		 * @return true for <, <=, > and >=
+		 */
+		public boolean isOrdered()
+		{
+			return this.op >= LT;
+		}
+
+		public boolean eval(SleepyCatDataAdapter da, WDBObject object) throws Exception
+		{
+			ArrayList<Object> values = object.getAttributeValue(this.attributePath, da);
+			if(this.op == EQ)
+			{
+				return values.contains(this.value);
+			}
+			if(this.op == NE)
+			{
+				for(int i = 0; i < values.size(); i++)
+				{
+					if(!this.value.equals(values.get(i)))
+						return true;
+				}
+				return false;
+			}
+			//Ordered comparison, true if any of the values compares the right way
+			for(int i = 0; i < values.size(); i++)
+			{
+				Object v = values.get(i);
+				if(v != null && v.getClass() == this.value.getClass() && this.range.contains(v))
+					return true;
+			}
+			return false;
+		}
+
+		/**
+		 * @return the literal as it is printed
+		 */
+		public String getValueString()
+		{
+			return this.valueString;
+		}
+
+		/**
+		 * @return the literal as an integer, for an ordered comparison
+		 * @throws NumberFormatException if the literal is not an integer
+		 */
+		public Integer getIntValue()
+		{
+			if(this.intValue == null)
+			{
+				//Throws the NumberFormatException
+				Integer.parseInt(this.valueString);
+			}
+			return this.intValue;
+		}
+
+		public void getRequiredConditions(List<Condition> conditions)
+		{
+			conditions.add(this);
+		}
+
+		protected int cost()
+		{
+			//Every level of indirection loads more objects
+			return 1 + 10 * this.attributePath.levelsOfIndirection();
+		}
+
+		public String toString()
+		{
+			return this.attributePath.attribute + " " + this.quantifier + " " + this.value;
+		}
+	}
+
+	//AND and OR of two or more terms
+	public static abstract class Junction extends Predicate {
+		protected Predicate[] terms;
+		//The terms cheapest first, the order eval runs them in
+		protected Predicate[] evalOrder;
+
+		Junction(Predicate[] terms)
+		{
+			this.terms = terms;
+			this.evalOrder = terms.clone();
+			//Stable, so terms of the same cost keep the order they were written in
+			Arrays.sort(this.evalOrder, new Comparator<Predicate>() {
+				public int compare(Predicate p1, Predicate p2)
+				{
+					return p1.cost() - p2.cost();
+				}
+			});
+		}
+
+		/**
+		 * @return the terms in the order they were written in
+		 */
+		public Predicate[] getTerms()
+		{
+			return this.terms;
+		}
+
+		protected int cost()
+		{
+			int cost = 0;
+			for(int i = 0; i < this.terms.length; i++)
+			{
+				cost += this.terms[i].cost();
+			}
+			return cost;
+		}
+	}
+
+	public static class Conjunction extends Junction {
+		Conjunction(Predicate[] terms)
+		{
+			super(terms);
+		}
+
+		public boolean eval(SleepyCatDataAdapter da, WDBObject object) throws Exception
+		{
+			for(int i = 0; i < this.evalOrder.length; i++)
+			{
+				if(!this.evalOrder[i].eval(da, object))
+					return false;
+			}
+			return true;
+		}
+
+		public void getRequiredConditions(List<Condition> conditions)
+		{
+			for(int i = 0; i < this.terms.length; i++)
+			{
+				this.terms[i].getRequiredConditions(conditions);
+			}
+		}
+	}
+
+	public static class Disjunction extends Junction {
+		Disjunction(Predicate[] terms)
+		{
+			super(terms);
+		}
+
+		public boolean eval(SleepyCatDataAdapter da, WDBObject object) throws Exception
+		{
+			for(int i = 0; i < this.evalOrder.length; i++)
+			{
+				if(this.evalOrder[i].eval(da, object))
+					return true;
+			}
+			return false;
+		}
+	}
+
+	public static class Negation extends Predicate {
+		private Predicate term;
+
+		Negation(Predicate term)
+		{
+			this.term = term;
+		}
+
+		public boolean eval(SleepyCatDataAdapter da, WDBObject object) throws Exception
+		{
+			return !this.term.eval(da, object);
+		}
+
+		public Predicate getTerm()
+		{
+			return this.term;
+		}
+
+		protected int cost()
+		{
+			return this.term.cost();
+		}
+	}
+
+	public static class Constant extends Predicate {
+		private boolean value;
+
+		Constant(boolean value)
+		{
+			this.value = value;
+		}
+
+		public boolean eval(SleepyCatDataAdapter da, WDBObject object)
+		{
+			return this.value;
+		}
+
+		public boolean getValue()
+		{
+			return this.value;
+		}
+
+		protected int cost()
+		{
+			return 0;
+		}
+	}
+}
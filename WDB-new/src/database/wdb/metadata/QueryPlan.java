@@ -0,0 +1,60 @@
+package wdb.metadata;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+
+/**
+ * What ClassDef.open did for a query, printed by EXPLAIN: the index
+ * steps with their estimated and actual rows, how many objects were
+ * fetched or scanned and how many matched.
+ */
+public class QueryPlan {
+	public String className;
+	//True if the objects came from indexes, false for a scan of the extent
+	public boolean indexed;
+	//UID ranges a parallel scan was split in, 0 if the scan ran on one thread
+	public int scanRanges;
+	public ArrayList<String> steps;
+	public long classSize;
+	//-1 if unknown
+	public double estimatedRows;
+	public long candidateRows;
+	public long rows;
+
+	public QueryPlan()
+	{
+		this.steps = new ArrayList<String>();
+		this.estimatedRows = -1;
+	}
+
+	public void setIndexResult(IndexSelectResult isr)
+	{
+		this.steps.addAll(isr.getPlanSteps());
+		this.classSize = isr.getClassSize();
+		this.estimatedRows = isr.getEstimatedRows();
+	}
+
+	public void print(PrintStream out)
+	{
+		out.println("Plan for " + this.className + ":");
+		for(int i = 0; i < this.steps.size(); i++)
+		{
+			out.println("  " + this.steps.get(i));
+		}
+		if(this.indexed)
+		{
+			out.println("  fetch by UID, estimated " + Math.round(this.estimatedRows) + " rows, actual " + this.candidateRows + " rows");
+		}
+		else if(this.scanRanges > 0)
+		{
+			out.println("  parallel scan of " + this.scanRanges + " ranges, estimated " + ((this.classSize > 0) ? Long.toString(this.classSize) : "?")
+					+ " rows, actual " + this.candidateRows + " rows");
+		}
+		else
+		{
+			out.println("  scan, estimated " + ((this.classSize > 0) ? Long.toString(this.classSize) : "?") + " rows, actual "
+					+ this.candidateRows + " rows");
+		}
+		out.println("  matched " + this.rows + " rows");
+	}
+}
@@ -0,0 +1,269 @@
+package wdb.metadata;
+
+import java.io.PrintStream;
+import java.util.*;
+
+/**
+ * Prints the rows of a RETRIEVE as they come. "table" pads the columns to
+ * widths taken from the first SAMPLE_ROWS rows and holds only those rows
+ * back; "tsv" and "json" (JSON Lines, one object per row) print every row
+ * at once for other programs to read.
+ */
+public abstract class ResultRenderer {
+	public static final String TABLE = "table";
+	public static final String TSV = "tsv";
+	public static final String JSON = "json";
+	public static final int SAMPLE_ROWS = 100;
+
+	protected PrintStream out;
+
+	protected ResultRenderer(PrintStream out)
+	{
+		this.out = out;
+	}
+
+	public static ResultRenderer forFormat(String format, PrintStream out)
+	{
+		if(format.equalsIgnoreCase(TABLE))
+		{
+			return new TableRenderer(out, SAMPLE_ROWS);
+		}
+		if(format.equalsIgnoreCase(TSV))
+		{
+			return new TsvRenderer(out);
+		}
+		if(format.equalsIgnoreCase(JSON))
+		{
+			return new JsonLinesRenderer(out);
+		}
+		throw new IllegalArgumentException("Unknown output format \"" + format + "\"");
+	}
+
+	public abstract void header(String[] columnNames);
+
+	/**
+	 * Prints a row. Cells no attribute filled are null.
+	 */
+	public abstract void row(String[] cells);
+
+	/**
+	 * Prints whatever is still held back.
+	 */
+	public void finish()
+	{
+		this.out.flush();
+	}
+
+	private static class TableRenderer extends ResultRenderer {
+		private int sampleRows;
+		//Rows held until the widths are known, null after that
+		private ArrayList<String[]> sample;
+		private int[] widths;
+
+		TableRenderer(PrintStream out, int sampleRows)
+		{
+			super(out);
+			this.sampleRows = sampleRows;
+			this.sample = new ArrayList<String[]>();
+		}
+
+		public void header(String[] columnNames)
+		{
+			this.row(columnNames);
+		}
+
+		public void row(String[] cells)
+		{
+			if(this.sample == null)
+			{
+				this.print(cells);
+				return;
+			}
+			this.sample.add(cells);
+			if(this.sample.size() >= this.sampleRows)
+			{
+				this.flushSample();
+			}
+		}
+
+		public void finish()
+		{
+			if(this.sample != null)
+			{
+				this.flushSample();
+			}
+			super.finish();
+		}
+
+		private void flushSample()
+		{
+			int columns = 0;
+			for(int i = 0; i < this.sample.size(); i++)
+			{
+				columns = Math.max(columns, this.sample.get(i).length);
+			}
+			this.widths = new int[columns];
+			for(int i = 0; i < this.sample.size(); i++)
+			{
+				String[] cells = this.sample.get(i);
+				for(int j = 0; j < cells.length; j++)
+				{
+					if(cells[j] != null)
+					{
+						this.widths[j] = Math.max(this.widths[j], cells[j].length());
+					}
+				}
+			}
+			for(int i = 0; i < this.sample.size(); i++)
+			{
+				this.print(this.sample.get(i));
+			}
+			this.sample = null;
+			this.out.flush();
+		}
+
+		//Values wider than the sample stretch their own row only
+		private void print(String[] cells)
+		{
+			StringBuffer line = new StringBuffer();
+			for(int j = 0; j < this.widths.length; j++)
+			{
+				String cell = (j >= cells.length || cells[j] == null) ? "" : cells[j];
+				line.append("| ");
+				for(int k = cell.length(); k < this.widths[j]; k++)
+				{
+					line.append(' ');
+				}
+				line.append(cell).append(' ');
+			}
+			line.append('|');
+			this.out.println(line);
+		}
+	}
+
+	private static class TsvRenderer extends ResultRenderer {
+		TsvRenderer(PrintStream out)
+		{
+			super(out);
+		}
+
+		public void header(String[] columnNames)
+		{
+			this.row(columnNames);
+		}
+
+		public void row(String[] cells)
+		{
+			StringBuffer line = new StringBuffer();
+			for(int j = 0; j < cells.length; j++)
+			{
+				if(j > 0)
+				{
+					line.append('\t');
+				}
+				if(cells[j] != null)
+				{
+					escape(cells[j], line);
+				}
+			}
+			this.out.println(line);
+		}
+
+		private static void escape(String value, StringBuffer line)
+		{
+			for(int i = 0; i < value.length(); i++)
+			{
+				char c = value.charAt(i);
+				switch(c)
+				{
+					case '\t':
+						line.append("\\t");
+						break;
+					case '\n':
+						line.append("\\n");
+						break;
+					case '\r':
+						line.append("\\r");
+						break;
+					case '\\':
+						line.append("\\\\");
+						break;
+					default:
+						line.append(c);
+				}
+			}
+		}
+	}
+
+	private static class JsonLinesRenderer extends ResultRenderer {
+		private String[] keys;
+
+		JsonLinesRenderer(PrintStream out)
+		{
+			super(out);
+		}
+
+		//Column names repeat when two paths end in the same DVA, number the later ones
+		public void header(String[] columnNames)
+		{
+			this.keys = new String[columnNames.length];
+			HashSet<String> used = new HashSet<String>();
+			for(int j = 0; j < columnNames.length; j++)
+			{
+				String key = columnNames[j];
+				for(int n = 2; used.contains(key); n++)
+				{
+					key = columnNames[j] + "_" + n;
+				}
+				used.add(key);
+				this.keys[j] = key;
+			}
+		}
+
+		public void row(String[] cells)
+		{
+			StringBuffer line = new StringBuffer("{");
+			for(int j = 0; j < cells.length && j < this.keys.length; j++)
+			{
+				if(j > 0)
+				{
+					line.append(", ");
+				}
+				quote(this.keys[j], line);
+				line.append(": ");
+				if(cells[j] == null)
+				{
+					line.append("null");
+				}
+				else
+				{
+					quote(cells[j], line);
+				}
+			}
+			line.append('}');
+			this.out.println(line);
+		}
+
+		private static void quote(String value, StringBuffer line)
+		{
+			line.append('"');
+			for(int i = 0; i < value.length(); i++)
+			{
+				char c = value.charAt(i);
+				if(c == '"' || c == '\\')
+				{
+					line.append('\\').append(c);
+				}
+				else if(c < ' ')
+				{
+					line.append(String.format("\\u%04x", (int)c));
+				}
+				else
+				{
+					line.append(c);
+				}
+			}
+			line.append('"');
+		}
+	}
+}
@@ -18,6 +18,10 @@ public class RetrieveQuery extends Query {
 	public String className;
 	public SimpleNode expression;
 	public ArrayList<AttributePath> attributePaths;
+	//Set by EXPLAIN, print the plan instead of the results
+	public Boolean explain = false;
+	//LIMIT, -1 to return every match
+	public Integer limit = -1;
 	
 	public RetrieveQuery() 
 	{
@@ -0,0 +1,167 @@
+package wdb.metadata;
+
+import java.util.*;
+
+/**
+ * The rows one object prints as in a RETRIEVE. Cells of the object's own
+ * DVAs go on its first row. Following a multivalued EVA opens a branch with
+ * one child group per target, stacked below each other from that first row
+ * and starting at the column the branch was opened at. Branches of
+ * different EVAs lie beside each other.
+ *
+ * Rows are built one at a time by walking the groups, so no table of the
+ * whole object is allocated. The rows of every group and where each child
+ * group starts are counted the first time a row is asked for, so a group
+ * must not change after that.
+ */
+public class RowGroup {
+	private ArrayList<String> cells;
+	private ArrayList<Integer> cellColumns;
+	private Hashtable<String, ArrayList<RowGroup>> branches;
+	//Column the next cell goes in
+	private int nextColumn;
+	//Rows of the group, and per branch the first row of each child group
+	//followed by the rows of the branch. Null until counted.
+	private int rowCount;
+	private Hashtable<String, int[]> firstRows;
+
+	public RowGroup()
+	{
+		this(0);
+	}
+
+	private RowGroup(int firstColumn)
+	{
+		this.cells = new ArrayList<String>();
+		this.cellColumns = new ArrayList<Integer>();
+		this.branches = new Hashtable<String, ArrayList<RowGroup>>();
+		this.nextColumn = firstColumn;
+	}
+
+	public ArrayList<RowGroup> newBranch(String evaName, int groups) throws Exception
+	{
+		if(this.branches.containsKey(evaName))
+		{
+			throw new Exception("Branch " + evaName + " alreadly exists");
+		}
+		ArrayList<RowGroup> branch = new ArrayList<RowGroup>(groups);
+		for(int i = 0; i < groups; i++)
+		{
+			branch.add(new RowGroup(this.nextColumn));
+		}
+		this.branches.put(evaName, branch);
+		return branch;
+	}
+
+	public ArrayList<RowGroup> getBranch(String evaName)
+	{
+		return this.branches.get(evaName);
+	}
+
+	/**
+	 * Moves the next column past the cells of a branch.
+	 */
+	public void updateBranchColumns(String evaName)
+	{
+		ArrayList<RowGroup> branch = this.getBranch(evaName);
+		if(branch != null && branch.size() > 0)
+		{
+			this.nextColumn = branch.get(0).nextColumn;
+		}
+	}
+
+	public void addCell(String value)
+	{
+		this.cells.add(value);
+		this.cellColumns.add(new Integer(this.nextColumn++));
+	}
+
+	public int getColumnCount()
+	{
+		return this.nextColumn;
+	}
+
+	public int getRowCount()
+	{
+		if(this.firstRows == null)
+		{
+			this.countRows();
+		}
+		return this.rowCount;
+	}
+
+	private void countRows()
+	{
+		this.rowCount = 1;
+		this.firstRows = new Hashtable<String, int[]>();
+		Enumeration<String> e = this.branches.keys();
+		while(e.hasMoreElements())
+		{
+			String evaName = e.nextElement();
+			ArrayList<RowGroup> branch = this.branches.get(evaName);
+			int[] firstRows = new int[branch.size() + 1];
+			for(int i = 0; i < branch.size(); i++)
+			{
+				firstRows[i + 1] = firstRows[i] + branch.get(i).getRowCount();
+			}
+			this.firstRows.put(evaName, firstRows);
+			this.rowCount = Math.max(this.rowCount, firstRows[branch.size()]);
+		}
+	}
+
+	/**
+	 * Puts the cells of one row of this group, 0 being its first, in row.
+	 * Columns no group fills are left alone.
+	 */
+	public void fillRow(int rowNumber, String[] row)
+	{
+		if(rowNumber == 0)
+		{
+			for(int i = 0; i < this.cells.size(); i++)
+			{
+				int column = this.cellColumns.get(i).intValue();
+				if(column < row.length)
+				{
+					row[column] = this.cells.get(i);
+				}
+			}
+		}
+		if(this.firstRows == null)
+		{
+			this.countRows();
+		}
+		Enumeration<String> e = this.branches.keys();
+		while(e.hasMoreElements())
+		{
+			//Find the child group the row falls in. Every group has a row,
+			//so the first rows are strictly increasing.
+			String evaName = e.nextElement();
+			ArrayList<RowGroup> branch = this.branches.get(evaName);
+			int[] firstRows = this.firstRows.get(evaName);
+			int i = Arrays.binarySearch(firstRows, rowNumber);
+			if(i < 0)
+			{
+				i = -i - 2;
+			}
+			if(i < branch.size())
+			{
+				branch.get(i).fillRow(rowNumber - firstRows[i], row);
+			}
+		}
+	}
+
+	/**
+	 * Hands the rows of this group to a renderer, each with the given
+	 * number of columns.
+	 */
+	public void writeTo(ResultRenderer renderer, int columns) throws Exception
+	{
+		int rows = this.getRowCount();
+		for(int i = 0; i < rows; i++)
+		{
+			String[] row = new String[columns];
+			this.fillRow(i, row);
+			renderer.row(row);
+		}
+	}
+}
@@ -0,0 +1,133 @@
+package wdb.metadata;
+
+import wdb.SleepyCatDataAdapter;
+import wdb.SleepyCatExtentCursor;
+import wdb.SleepyCatParallelScan;
+
+import java.util.Arrays;
+
+/**
+ * The objects of a class that match a WHERE clause, pulled one at a time.
+ * Candidates come either from the extent of the class or from the UIDs the
+ * indexes selected, which are fetched FETCH_BATCH at a time, so only a
+ * batch of objects is held however many match. A scan without a limit can
+ * instead draw the objects a parallel scan already matched, range by range.
+ */
+public class SearchCursor {
+	public static final int FETCH_BATCH = 256;
+
+	private String className;
+	private Predicate predicate;
+	private SleepyCatDataAdapter scda;
+	private QueryPlan plan;
+	//Either the extent, the parallel scan or the UIDs of the candidates is set
+	private SleepyCatExtentCursor extent;
+	private SleepyCatParallelScan parallelScan;
+	private int[] uids;
+	private int nextUid;
+	private WDBObject[] batch;
+	private int nextInBatch;
+	//Objects still to return, -1 for no limit
+	private long remaining;
+
+	SearchCursor(String className, Predicate predicate, SleepyCatExtentCursor extent, SleepyCatParallelScan parallelScan,
+			int[] uids, long limit, SleepyCatDataAdapter scda, QueryPlan plan)
+	{
+		this.className = className;
+		this.predicate = predicate;
+		this.extent = extent;
+		this.parallelScan = parallelScan;
+		this.uids = uids;
+		this.remaining = limit;
+		this.scda = scda;
+		this.plan = plan;
+	}
+
+	/**
+	 * @return the next matching object, or null when there are no more or
+	 * the limit is reached
+	 */
+	public WDBObject next() throws Exception
+	{
+		if(this.remaining == 0)
+		{
+			this.close();
+			return null;
+		}
+		WDBObject object;
+		if(this.parallelScan != null)
+		{
+			//The scan threads already evaluated the predicate and counted the candidates
+			object = this.parallelScan.next();
+			if(object != null && this.plan != null)
+			{
+				this.plan.rows++;
+			}
+			return object;
+		}
+		while((object = this.nextCandidate()) != null)
+		{
+			if(this.plan != null)
+			{
+				this.plan.candidateRows++;
+			}
+			if(this.predicate.eval(this.scda, object))
+			{
+				if(this.plan != null)
+				{
+					this.plan.rows++;
+				}
+				if(this.remaining > 0)
+				{
+					this.remaining--;
+				}
+				return object;
+			}
+		}
+		return null;
+	}
+
+	private WDBObject nextCandidate() throws Exception
+	{
+		if(this.extent != null)
+		{
+			return this.extent.next();
+		}
+		if(this.batch == null || this.nextInBatch >= this.batch.length)
+		{
+			if(this.uids == null || this.nextUid >= this.uids.length)
+			{
+				return null;
+			}
+			int end = Math.min(this.nextUid + FETCH_BATCH, this.uids.length);
+			String[] classNames = new String[end - this.nextUid];
+			Arrays.fill(classNames, this.className);
+			this.batch = this.scda.getObjects(classNames, Arrays.copyOfRange(this.uids, this.nextUid, end));
+			this.nextInBatch = 0;
+			this.nextUid = end;
+		}
+		return this.batch[this.nextInBatch++];
+	}
+
+	/**
+	 * @return true if the candidates are the whole extent of the class
+	 */
+	public boolean isScan()
+	{
+		return this.extent != null || this.parallelScan != null;
+	}
+
+	public void close() throws Exception
+	{
+		if(this.extent != null)
+		{
+			this.extent.close();
+		}
+		if(this.parallelScan != null)
+		{
+			this.parallelScan.close();
+		}
+		this.uids = null;
+		this.batch = null;
+	}
+}
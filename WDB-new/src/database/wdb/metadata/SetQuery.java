@@ -0,0 +1,17 @@
+package wdb.metadata;
+
+import java.io.*;
+/**
+ * SET name = value statement, changes a setting of the shell session.
+ */
+public class SetQuery extends Query implements Serializable {
+	private static final long serialVersionUID = 4165512839466927012L;
+
+	public String name;
+	public String value;
+
+	public SetQuery()
+	{
+		super();
+	}
+}
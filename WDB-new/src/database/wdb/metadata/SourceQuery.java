@@ -16,10 +16,17 @@ import java.util.*;
  */
 public class SourceQuery extends Query implements Serializable {
 	public String filename;
+	//Bulk load options: statements per commit and commit durability
+	//(null for a synchronous commit, "NO_SYNC" or "WRITE_NO_SYNC")
+	public Boolean bulk;
+	public Integer batchSize;
+	public String durability;
 	
 	public SourceQuery()
 	{
 		super();
+		this.bulk = false;
+		this.batchSize = 5000;
 	}
 
 	/**
@@ -0,0 +1,14 @@
+package wdb.metadata;
+
+import java.io.*;
+/**
+ * STATS statement, prints the statistics of the database environment.
+ */
+public class StatsQuery extends Query implements Serializable {
+	private static final long serialVersionUID = -3467312069357819321L;
+
+	public StatsQuery()
+	{
+		super();
+	}
+}
@@ -9,7 +9,6 @@ package wdb.metadata;
 import wdb.SleepyCatDataAdapter;
 import wdb.parser.*;
 
-import java.rmi.server.UID;
 import java.util.*;
 
 
@@ -20,7 +19,15 @@ import java.util.*;
  * Window - Preferences - Java - Code Style - Code Templates
  */
 public final class SubclassDef extends ClassDef{
+	private static final long serialVersionUID = 8846073807166851908L;
 	private ArrayList superClasses;
+	//Attribute name -> the superclasses to go through to reach the class that
+	//defines it, nearest first. Built on first use.
+	private transient Hashtable<String, String[]> attributeOwners;
+	//Every class above this one, not just the immediate superclasses. Set
+	//when the class is defined and stored with it, as superclasses never
+	//change afterwards. Null for classes stored before it was kept.
+	HashSet<String> ancestors;
 
 	public SubclassDef()
 	{
@@ -66,31 +73,96 @@ public final class SubclassDef extends ClassDef{
 	{
 		return superClasses.size();
 	}
-	public boolean isSubclassOf(String superClassName, SleepyCatDataAdapter scda) throws Exception
+	/**
+	 * @return the names of the superclasses leading from this class to the
+	 * one defining the attribute, an empty array if this class defines it,
+	 * or null if no class in the hierarchy does
+	 */
+	public String[] getAttributeOwnerPath(String attributeName, SleepyCatDataAdapter scda) throws Exception
 	{
-		//See if its one of my immediate superclasses.
-		if(superClasses.contains(superClassName))
+		return this.getAttributeOwners(scda).get(attributeName);
+	}
+	
+	private Hashtable<String, String[]> getAttributeOwners(SleepyCatDataAdapter scda) throws Exception
+	{
+		if(this.attributeOwners == null)
 		{
-			return true;
+			Hashtable<String, String[]> owners = new Hashtable<String, String[]>();
+			for(int i = 0; i < this.attributes.size(); i++)
+			{
+				owners.put(((Attribute)this.attributes.get(i)).name, new String[0]);
+			}
+			//Earlier superclasses win if two define the same attribute
+			for(int i = 0; i < this.superClasses.size(); i++)
+			{
+				String superClassName = (String)this.superClasses.get(i);
+				ClassDef superClass = scda.getClass(superClassName);
+				if(superClass.getClass() == SubclassDef.class)
+				{
+					Hashtable<String, String[]> superOwners = ((SubclassDef)superClass).getAttributeOwners(scda);
+					Enumeration<String> e = superOwners.keys();
+					while(e.hasMoreElements())
+					{
+						String attributeName = e.nextElement();
+						if(!owners.containsKey(attributeName))
+						{
+							String[] superPath = superOwners.get(attributeName);
+							String[] path = new String[superPath.length + 1];
+							path[0] = superClassName;
+							System.arraycopy(superPath, 0, path, 1, superPath.length);
+							owners.put(attributeName, path);
+						}
+					}
+				}
+				else
+				{
+					for(int j = 0; j < superClass.numberOfAttributes(); j++)
+					{
+						String attributeName = superClass.getAttribute(j).name;
+						if(!owners.containsKey(attributeName))
+						{
+							owners.put(attributeName, new String[] {superClassName});
+						}
+					}
+				}
+			}
+			this.attributeOwners = owners;
 		}
-		//Not immediate superclass of me. Check my parents.
-		ClassDef superClass;
-		for(int i = 0; i < superClasses.size(); i++)
+		return this.attributeOwners;
+	}
+	public boolean isSubclassOf(String superClassName, SleepyCatDataAdapter scda) throws Exception
+	{
+		return this.getAncestors(scda).contains(superClassName);
+	}
+	
+	/**
+	 * @return the names of all the classes this one is a subclass of,
+	 * worked out from the superclasses the first time if not stored
+	 */
+	public HashSet<String> getAncestors(SleepyCatDataAdapter scda) throws Exception
+	{
+		if(this.ancestors == null)
 		{
-			superClass = scda.getClass(((String)superClasses.get(i)));
-			if(superClass.isSubclassOf(superClassName, scda))
+			HashSet<String> closure = new HashSet<String>();
+			for(int i = 0; i < superClasses.size(); i++)
 			{
-				return true;
+				String superClassName = (String)superClasses.get(i);
+				closure.add(superClassName);
+				ClassDef superClass = scda.getClass(superClassName);
+				if(superClass.getClass() == SubclassDef.class)
+				{
+					closure.addAll(((SubclassDef)superClass).getAncestors(scda));
+				}
 			}
+			this.ancestors = closure;
 		}
-		//Not any superClass of mine!
-		return false;
+		return this.ancestors;
 	}
 	
 	public WDBObject newInstance(WDBObject baseParent, SleepyCatDataAdapter scda) throws Exception
 	{
-		Integer newUid = new Integer(Math.abs((new UID()).hashCode()));
-		WDBObject newObject = new WDBObject(new Hashtable<String, Integer>(), new Hashtable<String, Integer>(), new Hashtable<String, Object>(), new Hashtable<String, Object>(), this.name, newUid);
+		Integer newUid = scda.newUid(this.name);
+		WDBObject newObject = new WDBObject(new Hashtable<String, Integer>(), new Hashtable<String, Integer>(), new Hashtable<String, EvaReferences>(), new Hashtable<String, Object>(), this.name, newUid);
 	
 		for(int i = 0; i < this.superClasses.size(); i++)
 		{
@@ -128,12 +200,11 @@ public final class SubclassDef extends ClassDef{
 			newObject.addParentObject(parent);
 		}
 		
-		this.addInstance(newUid);
-		this.commit(scda);
+		newObject.commit(scda);
 		
 		return newObject;
 	}
-	public void printAttributeName(PrintNode row, AttributePath attributePath, SleepyCatDataAdapter scda) throws Exception
+	public void printAttributeName(RowGroup row, AttributePath attributePath, SleepyCatDataAdapter scda) throws Exception
 	{
 		for(int j = 0; j < attributes.size(); j++)
 		{	
@@ -145,15 +216,11 @@ public final class SubclassDef extends ClassDef{
 				//If the attribute we want is found or we just want everything, output
 				if(attributePath.attribute.equals("*"))
 				{
-					PrintCell cell = new PrintCell();
-					cell.setOutput(String.format("%s", currentAttribute.name));
-					row.addCell(cell);
+					row.addCell(String.format("%s", currentAttribute.name));
 				}
 				else if(attributePath.attribute.equals(currentAttribute.name))
 				{
-					PrintCell cell = new PrintCell();
-					cell.setOutput(String.format("%s", currentAttribute.name));
-					row.addCell(cell);
+					row.addCell(String.format("%s", currentAttribute.name));
 					return;
 				}
 			}
@@ -172,26 +239,22 @@ public final class SubclassDef extends ClassDef{
 		}
 		
 		//Got here if we didn't get what we need in this class
-		int i = 0;
-		while(i < superClasses.size())
+		if(attributePath.attribute.equals("*") && attributePath.levelsOfIndirection() <= 0)
 		{
-			try
+			for(int i = 0; i < superClasses.size(); i++)
 			{
 				ClassDef superClass = scda.getClass(((String)superClasses.get(i)));
 				superClass.printAttributeName(row, attributePath, scda);
-				i++;
-			}
-			catch (NoSuchFieldException nsfe)
-			{
-				if(i < superClasses.size())
-				{
-					i++;
-				}
-				else
-				{
-					throw nsfe;
-				}
 			}
+			return;
+		}
+		//Go straight to the superclass whose hierarchy defines the attribute
+		String name = (attributePath.levelsOfIndirection() > 0) ? attributePath.getIndirection(attributePath.levelsOfIndirection() - 1) : attributePath.attribute;
+		String[] path = this.getAttributeOwnerPath(name, scda);
+		if(path != null && path.length > 0)
+		{
+			ClassDef superClass = scda.getClass(path[0]);
+			superClass.printAttributeName(row, attributePath, scda);
 		}
 	}
 }
@@ -9,6 +9,8 @@ package wdb.metadata;
 import wdb.SleepyCatDataAdapter;
 import wdb.parser.*;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.*;
 
@@ -19,16 +21,17 @@ import java.util.*;
  * Window - Preferences - Java - Code Style - Code Templates
  */
 public class WDBObject implements Serializable {
+	private static final long serialVersionUID = -1953092563614343205L;
 	private String classDefName;
 	private Integer Uid;
 	
 	private Hashtable<String, Integer> parents;
 	private Hashtable<String, Integer> children;
 	
-	private Hashtable<String, Object> evaObjects;
+	private Hashtable<String, EvaReferences> evaObjects;
 	private Hashtable<String, Object> dvaValues;
 	
-	public WDBObject(Hashtable<String, Integer> parents, Hashtable<String, Integer> children, Hashtable<String, Object> evaObjects, Hashtable<String, Object> dvaValues, String classDefName, Integer Uid)
+	public WDBObject(Hashtable<String, Integer> parents, Hashtable<String, Integer> children, Hashtable<String, EvaReferences> evaObjects, Hashtable<String, Object> dvaValues, String classDefName, Integer Uid)
 	{
 		this.parents = parents;
 		this.children = children;
@@ -38,6 +41,20 @@ public class WDBObject implements Serializable {
 		this.Uid = Uid;
 	}
 	
+	//The serial format kept EVA references as "class:uid" strings
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException
+	{
+		in.defaultReadObject();
+		Hashtable references = this.evaObjects;
+		this.evaObjects = new Hashtable<String, EvaReferences>();
+		Enumeration e = references.keys();
+		while(e.hasMoreElements())
+		{
+			String evaName = (String)e.nextElement();
+			this.evaObjects.put(evaName, EvaReferences.fromStrings(references.get(evaName)));
+		}
+	}
+	
 	public boolean equals(Object o)
 	{
 		if(o.getClass() == this.getClass() && ((WDBObject)o).Uid.equals(this.Uid))
@@ -174,6 +191,32 @@ public class WDBObject implements Serializable {
 		return scda.getClass(this.classDefName);
 	}
 	
+	/**
+	 * @return the object of the ancestor class that defines an attribute this
+	 * object's class does not, or null if no superclass defines it
+	 */
+	private WDBObject getOwnerObject(String attributeName, SleepyCatDataAdapter scda) throws Exception
+	{
+		ClassDef myClass = this.getClassDef(scda);
+		String[] path = ((SubclassDef)myClass).getAttributeOwnerPath(attributeName, scda);
+		if(path == null || path.length == 0)
+		{
+			//Not defined anywhere, or defined by this class as another kind of attribute
+			return null;
+		}
+		WDBObject owner = this;
+		for(int i = 0; i < path.length; i++)
+		{
+			Integer parentUid = owner.parents.get(path[i]);
+			if(parentUid == null)
+			{
+				return null;
+			}
+			owner = scda.getObject(path[i], parentUid);
+		}
+		return owner;
+	}
+	
 	public Object getImmDvaValue(String dvaName)
 	{
 		return this.dvaValues.get(dvaName);
@@ -192,30 +235,12 @@ public class WDBObject implements Serializable {
 		//Not immediate, go check parents if I'm an object of a subclass
 		else if(myClass.getClass() == SubclassDef.class)
 		{
-			Enumeration e = parents.keys();
-			while(true)
+			WDBObject owner = this.getOwnerObject(dvaName, scda);
+			if(owner == null)
 			{
-				try
-				{
-					String parentClass = (String)e.nextElement();
-					Integer parentUid = (Integer)parents.get(parentClass);
-					WDBObject parent = scda.getObject(parentClass, parentUid);
-					
-					value = parent.getDvaValue(dvaName, scda);
-					//If we reached here, we got our value. Get out of here
-					break;
-				}
-				catch(NoSuchFieldException nsfe)
-				{
-					//Can't find DVA going up that parent's heirarchy. Continue on to another parent
-					if(!e.hasMoreElements())
-					{
-						//No more parents to try. We are here if we exausted our parent's list and 
-						//still can't find the DVA. Throw exception
-						throw nsfe; 
-					}
-				}
+				throw new NoSuchFieldException("Attribute \"" + dvaName + "\" is not a valid DVA");
 			}
+			value = owner.getDvaValue(dvaName, scda);
 		}
 		//value can't be found and I'm not a subclass. It doesn't exist in this heirarchy
 		else
@@ -253,30 +278,12 @@ public class WDBObject implements Serializable {
 		//Not immediate, go check parents if I'm an object of a subclass
 		else if(myClass.getClass() == SubclassDef.class)
 		{
-			Enumeration e = parents.keys();
-			while(true)
+			WDBObject owner = this.getOwnerObject(dvaName, scda);
+			if(owner == null)
 			{
-				try
-				{
-					String parentClass = (String)e.nextElement();
-					Integer parentUid = (Integer)parents.get(parentClass);
-					WDBObject parent = scda.getObject(parentClass, parentUid);
-					
-					parent.setDvaValue(dvaName, value, scda);
-					//If we reached here, we set our value. Get out of here
-					break;
-				}
-				catch(NoSuchFieldException nsfe)
-				{
-					//Can't find DVA going up that parent's heirarchy. Continue on to another parent
-					if(!e.hasMoreElements())
-					{
-						//No more parents to try. We are here if we exausted our parent's list and 
-						//still can't find the DVA. Throw exception
-						throw nsfe; 
-					}
-				}
+				throw new NoSuchFieldException("Attribute \"" + dvaName + "\" is not a valid DVA");
 			}
+			owner.setDvaValue(dvaName, value, scda);
 		}
 		//value can't be found and I'm not a subclass. It doesn't exist in this heirarchy
 		else
@@ -302,7 +309,11 @@ public class WDBObject implements Serializable {
 				WDBObject[] matchingObjs = targetClassDef.search(expression, scda);
 				for(int i = 0; i < matchingObjs.length; i++)
 				{
-					this.addEvaObject((EVA)myAttribute, matchingObjs[i], scda);
+					//A DISTINCT EVA may already refer to it
+					if(!this.addEvaObject((EVA)myAttribute, matchingObjs[i], scda))
+					{
+						continue;
+					}
 					//Enforce referential integrity by adding a reference to myself
 					//in the other object
 					//Get the object that belongs to the base class of the EVA
@@ -338,30 +349,12 @@ public class WDBObject implements Serializable {
 		//Not immediate, go check parents if I'm an object of a subclass
 		else if(myClass.getClass() == SubclassDef.class)
 		{
-			Enumeration e = parents.keys();
-			while(true)
+			WDBObject owner = this.getOwnerObject(evaName, scda);
+			if(owner == null)
 			{
-				try
-				{
-					String parentClass = (String)e.nextElement();
-					Integer parentUid = (Integer)parents.get(parentClass);
-					WDBObject parent = scda.getObject(parentClass, parentUid);
-					
-					parent.addEvaObjects(evaName, targetClass, expression, scda);
-					//If we reached here, we set our value. Get out of here
-					break;
-				}
-				catch(NoSuchFieldException nsfe)
-				{
-					//Can't find DVA going up that parent's heirarchy. Continue on to another parent
-					if(!e.hasMoreElements())
-					{
-						//No more parents to try. We are here if we exausted our parent's list and 
-						//still can't find the DVA. Throw exception
-						throw nsfe; 
-					}
-				}
+				throw new NoSuchFieldException("Attribute \"" + evaName + "\" is not a valid EVA");
 			}
+			owner.addEvaObjects(evaName, targetClass, expression, scda);
 		}
 		//value can't be found and I'm not a subclass. It doesn't exist in this heirarchy
 		else
@@ -428,30 +421,12 @@ public class WDBObject implements Serializable {
 			//Not immediate, go check parents if I'm an object of a subclass
 			else if(myClass.getClass() == SubclassDef.class)
 			{
-				Enumeration e = parents.keys();
-				while(true)
+				WDBObject owner = this.getOwnerObject(evaName, scda);
+				if(owner == null)
 				{
-					try
-					{
-						String parentClass = (String)e.nextElement();
-						Integer parentUid = (Integer)parents.get(parentClass);
-						WDBObject parent = scda.getObject(parentClass, parentUid);
-						
-						parent.removeEvaObjects(evaName, targetClass, targetObjects, scda);
-						//If we reached here, we set our value. Get out of here
-						break;
-					}
-					catch(NoSuchFieldException nsfe)
-					{
-						//Can't find DVA going up that parent's heirarchy. Continue on to another parent
-						if(!e.hasMoreElements())
-						{
-							//No more parents to try. We are here if we exausted our parent's list and 
-							//still can't find the DVA. Throw exception
-							throw nsfe; 
-						}
-					}
+					throw new NoSuchFieldException("Attribute \"" + evaName + "\" is not a valid EVA");
 				}
+				owner.removeEvaObjects(evaName, targetClass, targetObjects, scda);
 			}
 			//value can't be found and I'm not a subclass. It doesn't exist in this heirarchy
 			else
@@ -463,23 +438,36 @@ public class WDBObject implements Serializable {
 		}
 	}
 	
-	private void addEvaObject(EVA targetEva, WDBObject targetEvaObject, SleepyCatDataAdapter scda) throws Exception
+	private Boolean addEvaObject(EVA targetEva, WDBObject targetEvaObject, SleepyCatDataAdapter scda) throws Exception
 	{
 		//TODO: Make sure we update the objects that we removed when replacing with new values
 		if(targetEva.cardinality.equals(EVA.MULTIVALUED))
 		{
-			ArrayList<String> targetObjectList = ((ArrayList)this.evaObjects.get(targetEva.name));
+			EvaReferences targetObjectList = this.evaObjects.get(targetEva.name);
 			if(targetObjectList == null)
 			{
-				targetObjectList = new ArrayList<String>();
+				targetObjectList = new EvaReferences();
 			}
-			targetObjectList.add(new String(targetEvaObject.classDefName + ":" + targetEvaObject.getUid()));
+			boolean distinct = (targetEva.distinct != null && targetEva.distinct.booleanValue());
+			if(distinct && targetObjectList.contains(targetEvaObject.classDefName, targetEvaObject.getUid().intValue()))
+			{
+				return false;
+			}
+			if(targetEva.max != null && targetObjectList.size() >= targetEva.max.intValue())
+			{
+				throw new Exception("Attribute \"" + targetEva.name + "\" can not refer to more than " + targetEva.max + " objects");
+			}
+			targetObjectList.add(targetEvaObject.classDefName, targetEvaObject.getUid().intValue(), distinct);
 			this.evaObjects.put(targetEva.name, targetObjectList);
+			return true;
 		}
 		else if(targetEva.cardinality.equals(EVA.SINGLEVALUED))
 		{
 			//For singlevalued EVAs, just put the UID as the value;
-			this.evaObjects.put(targetEva.name, new String(targetEvaObject.classDefName + ":" + targetEvaObject.getUid()));
+			EvaReferences targetObject = new EvaReferences();
+			targetObject.add(targetEvaObject.classDefName, targetEvaObject.getUid().intValue(), true);
+			this.evaObjects.put(targetEva.name, targetObject);
+			return true;
 		}
 		else
 		{
@@ -491,14 +479,12 @@ public class WDBObject implements Serializable {
 	{
 		if(targetEva.cardinality.equals(EVA.MULTIVALUED))
 		{
-			ArrayList targetObjectList = ((ArrayList)this.evaObjects.get(targetEva.name));
+			EvaReferences targetObjectList = this.evaObjects.get(targetEva.name);
 			if(targetObjectList == null)
 			{
 				return false;
 			}
-			Boolean result = targetObjectList.remove(new String(targetEvaObject.classDefName + ":" + targetEvaObject.getUid()));
-			this.evaObjects.put(targetEva.name, targetObjectList);
-			return result;
+			return targetObjectList.remove(targetEvaObject.classDefName, targetEvaObject.getUid().intValue());
 		}
 		else if(targetEva.cardinality.equals(EVA.SINGLEVALUED))
 		{
@@ -566,85 +552,107 @@ public class WDBObject implements Serializable {
 	}
 	*/
 	public WDBObject[] getEvaObjects(String evaName, SleepyCatDataAdapter scda) throws Exception
+	{
+		WDBObject[] objects = {this};
+		return getEvaObjects(objects, evaName, scda);
+	}
+	
+	/**
+	 * Gets the targets of an EVA of many objects with one batch read,
+	 * each object's targets following the previous object's.
+	 */
+	public static WDBObject[] getEvaObjects(WDBObject[] objects, String evaName, SleepyCatDataAdapter scda) throws Exception
+	{
+		WDBObject[] owners = getOwnerObjects(objects, evaName, scda);
+		ArrayList<String> targetClasses = new ArrayList<String>();
+		ArrayList<Integer> targetUids = new ArrayList<Integer>();
+		for(int i = 0; i < owners.length; i++)
+		{
+			owners[i].addEvaTargets(evaName, targetClasses, targetUids, scda);
+		}
+		
+		int[] uids = new int[targetUids.size()];
+		for(int i = 0; i < uids.length; i++)
+		{
+			uids[i] = targetUids.get(i).intValue();
+		}
+		return scda.getObjects(targetClasses.toArray(new String[uids.length]), uids);
+	}
+	
+	//Adds the class names and UIDs of the targets of an EVA of this object's class
+	private void addEvaTargets(String evaName, ArrayList<String> targetClasses, ArrayList<Integer> targetUids, SleepyCatDataAdapter scda) throws Exception
 	{
 		ClassDef myClass = this.getClassDef(scda);
 		Attribute myAttribute = myClass.getAttribute(evaName);
+		if(myAttribute == null || myAttribute.getClass() != EVA.class)
+		{
+			throw new NoSuchFieldException("Attribute \"" + evaName + "\" is not a valid EVA");
+		}
 		
-		WDBObject[] evaObjects = new WDBObject[0];
-		if(myAttribute != null && myAttribute.getClass() == EVA.class)
+		if(!((EVA)myAttribute).cardinality.equals(EVA.MULTIVALUED) && !((EVA)myAttribute).cardinality.equals(EVA.SINGLEVALUED))
+		{
+			throw new NoSuchFieldException("Attribute \"" + evaName + "\" uses a invalid cardinality");
+		}
+		
+		EvaReferences targetObjectList = this.evaObjects.get(evaName);
+		if(targetObjectList != null)
 		{
-			if(((EVA)myAttribute).cardinality.equals(EVA.MULTIVALUED))
+			for(int i = 0; i < targetObjectList.size(); i++)
 			{
-				ArrayList<Object> targetObjectList = ((ArrayList)this.evaObjects.get(evaName));
-				ArrayList<WDBObject> targetObjects = new ArrayList<WDBObject>();
-				if(targetObjectList != null)
-				{
-					for(int i = 0; i < targetObjectList.size(); i++)
-					{
-						String[] targetKey = ((String)targetObjectList.get(i)).split(":");
-						String targetClass = targetKey[0];
-						Integer targetUid = Integer.valueOf(targetKey[1]);
-						WDBObject targetObject = scda.getObject(targetClass, targetUid);
-						targetObjects.add(targetObject);
-					}
-					evaObjects = ((WDBObject[])targetObjects.toArray(evaObjects));
-				}
+				targetClasses.add(targetObjectList.getClassName(i));
+				targetUids.add(new Integer(targetObjectList.getUid(i)));
 			}
-			else if(((EVA)myAttribute).cardinality.equals(EVA.SINGLEVALUED))
+		}
+	}
+	
+	/**
+	 * Same as getOwnerObject for many objects, reading the parents of each
+	 * level of the hierarchy in one batch. An object whose class defines the
+	 * attribute itself, or that has no ancestor defining it, is its own owner.
+	 */
+	private static WDBObject[] getOwnerObjects(WDBObject[] objects, String attributeName, SleepyCatDataAdapter scda) throws Exception
+	{
+		WDBObject[] owners = objects.clone();
+		String[][] paths = new String[objects.length][];
+		int levels = 0;
+		for(int i = 0; i < objects.length; i++)
+		{
+			ClassDef myClass = objects[i].getClassDef(scda);
+			if(myClass.getClass() == SubclassDef.class && myClass.getAttribute(attributeName) == null)
 			{
-				if(this.evaObjects.get(evaName) != null)
+				paths[i] = ((SubclassDef)myClass).getAttributeOwnerPath(attributeName, scda);
+				if(paths[i] != null)
 				{
-					String[] targetKey = ((String)this.evaObjects.get(evaName)).split(":");
-					String targetClass = targetKey[0];
-					Integer targetUid = Integer.valueOf(targetKey[1]);
-					WDBObject targetObject = scda.getObject(targetClass, targetUid);
-					if(targetObject != null)
-					{
-						WDBObject[] targetObjs = {((WDBObject)targetObject)};
-						evaObjects = targetObjs;
-					}
+					levels = Math.max(levels, paths[i].length);
 				}
 			}
-			else
-			{
-				throw new NoSuchFieldException("Attribute \"" + evaName + "\" uses a invalid cardinality");
-			}
-			
 		}
-		else if(myClass.getClass() == SubclassDef.class)
+		
+		for(int level = 0; level < levels; level++)
 		{
-			Enumeration e = parents.keys();
-			while(true)
+			ArrayList<Integer> moved = new ArrayList<Integer>();
+			ArrayList<String> parentClasses = new ArrayList<String>();
+			for(int i = 0; i < owners.length; i++)
 			{
-				try
+				if(paths[i] != null && paths[i].length > level && owners[i].parents.get(paths[i][level]) != null)
 				{
-					String parentClass = (String)e.nextElement();
-					Integer parentUid = (Integer)parents.get(parentClass);
-					WDBObject parent = scda.getObject(parentClass, parentUid);
-					
-					return parent.getEvaObjects(evaName, scda);
-					//If we reached here, we get our value. Get out of here
-					//break;
-				}
-				catch(NoSuchFieldException nsfe)
-				{
-					//Can't find DVA going up that parent's heirarchy. Continue on to another parent
-					if(!e.hasMoreElements())
-					{
-						//No more parents to try. We are here if we exausted our parent's list and 
-						//still can't find the DVA. Throw exception
-						throw nsfe; 
-					}
+					moved.add(new Integer(i));
+					parentClasses.add(paths[i][level]);
 				}
 			}
+			int[] parentUids = new int[moved.size()];
+			for(int j = 0; j < parentUids.length; j++)
+			{
+				int i = moved.get(j).intValue();
+				parentUids[j] = owners[i].parents.get(paths[i][level]).intValue();
+			}
+			WDBObject[] parents = scda.getObjects(parentClasses.toArray(new String[parentUids.length]), parentUids);
+			for(int j = 0; j < parents.length; j++)
+			{
+				owners[moved.get(j).intValue()] = parents[j];
+			}
 		}
-		//value can't be found and I'm not a subclass. It doesn't exist in this heirarchy
-		else
-		{
-			throw new NoSuchFieldException("Attribute \"" + evaName + "\" is not a valid EVA");
-		}
-		
-		return evaObjects;
+		return owners;
 	}
 	
 	/*
@@ -1030,34 +1038,30 @@ public class WDBObject implements Serializable {
 	}
 	*/
 	
+	/**
+	 * Follows the EVAs of the path one level at a time, reading all the
+	 * objects a level reaches in one batch, then gets the DVA of the last
+	 * level's objects.
+	 */
 	public ArrayList<Object> getAttributeValue(AttributePath attributePath, SleepyCatDataAdapter scda) throws Exception
 	{
 		ArrayList<Object> values = new ArrayList<Object>();
 		
-		if(attributePath.levelsOfIndirection() <= 0)
+		WDBObject[] objects = {this};
+		for(int level = attributePath.levelsOfIndirection() - 1; level >= 0 && objects.length > 0; level--)
 		{
-			values.add(this.getDvaValue(attributePath.attribute, scda));
-			return values;
+			objects = getEvaObjects(objects, attributePath.getIndirection(level), scda);
 		}
-		else
+		
+		WDBObject[] owners = getOwnerObjects(objects, attributePath.attribute, scda);
+		for(int i = 0; i < owners.length; i++)
 		{
-			String evaName = attributePath.getIndirection(attributePath.levelsOfIndirection() - 1);
-			WDBObject[] objects = this.getEvaObjects(evaName, scda);
-			
-			if(objects != null && objects.length > 0)
-			{
-				attributePath.removeIndirection(attributePath.levelsOfIndirection() - 1);
-				for(int i = 0; i < objects.length; i++)
-				{
-					values.addAll(objects[i].getAttributeValue(attributePath, scda));
-				}
-				attributePath.addIndirection(evaName);
-			}
+			values.add(owners[i].getDvaValue(attributePath.attribute, scda));
 		}
 		return values;
 	}
 	
-	public void PrintAttribute(PrintNode row, AttributePath attributePath, SleepyCatDataAdapter scda) throws Exception
+	public void PrintAttribute(RowGroup row, AttributePath attributePath, SleepyCatDataAdapter scda) throws Exception
 	{	
 		ClassDef myClass = this.getClassDef(scda);
 		if(attributePath.levelsOfIndirection() <= 0)
@@ -1070,9 +1074,7 @@ public class WDBObject implements Serializable {
 					if(currentAttribute.getClass() == DVA.class)
 					{
 						Object dvaValue = dvaValues.get(currentAttribute.name);
-						PrintCell cell = new PrintCell();
-						cell.setOutput(String.format("%s", dvaValue));
-						row.addCell(cell);
+						row.addCell(String.format("%s", dvaValue));
 					}
 				}
 				if(myClass.getClass() == SubclassDef.class)
@@ -1090,16 +1092,14 @@ public class WDBObject implements Serializable {
 			{
 				Attribute currentAttribute = (Attribute)myClass.getAttribute(attributePath.attribute);
 				Object dvaValue = getDvaValue(attributePath.attribute, scda);
-				PrintCell cell = new PrintCell();
-				cell.setOutput(String.format("%s", dvaValue));
-				row.addCell(cell);
+				row.addCell(String.format("%s", dvaValue));
 			}
 		}
 		else
 		{
 			String evaName = attributePath.getIndirection(attributePath.levelsOfIndirection() - 1);
 			WDBObject[] objects = this.getEvaObjects(evaName, scda);
-			ArrayList<PrintNode> branch = row.getBranch(evaName);
+			ArrayList<RowGroup> branch = row.getBranch(evaName);
 			
 			if(objects != null && objects.length > 0)
 			{
@@ -1123,7 +1123,7 @@ public class WDBObject implements Serializable {
 				}
 			}
 			
-			row.updateBranchCols(evaName);
+			row.updateBranchColumns(evaName);
 		}
 	}
 	
@@ -1136,4 +1136,24 @@ public class WDBObject implements Serializable {
 	{
 		return this.classDefName;
 	}
+
+	Hashtable<String, Integer> getParents()
+	{
+		return this.parents;
+	}
+
+	Hashtable<String, Integer> getChildren()
+	{
+		return this.children;
+	}
+
+	Hashtable<String, EvaReferences> getEvaReferences()
+	{
+		return this.evaObjects;
+	}
+
+	Hashtable<String, Object> getDvaValues()
+	{
+		return this.dvaValues;
+	}
 }
@@ -0,0 +1,119 @@
+package wdb.metadata;
+
+import com.sleepycat.bind.serial.StoredClassCatalog;
+import com.sleepycat.bind.tuple.TupleInput;
+import com.sleepycat.bind.tuple.TupleOutput;
+
+import java.util.*;
+
+/**
+ * Record format of a WDBObject:
+ * version, class name, uid, parents, children, EVA references, DVA values.
+ */
+public class WDBObjectBinding extends WDBTupleBinding<WDBObject> {
+	//Older versions wrote EVA references as "class:uid" strings
+	private static final int EVA_REFERENCES_VERSION = 4;
+	private static final byte REFERENCE_LIST = 'M';
+
+	public WDBObjectBinding(StoredClassCatalog classCatalog)
+	{
+		super(classCatalog, WDBObject.class);
+	}
+
+	public WDBObject entryToObject(TupleInput input)
+	{
+		int version = readVersion(input);
+		String classDefName = input.readString();
+		Integer uid = new Integer(input.readInt());
+		Hashtable<String, Integer> parents = readUids(input);
+		Hashtable<String, Integer> children = readUids(input);
+
+		Hashtable<String, EvaReferences> evaObjects = new Hashtable<String, EvaReferences>();
+		int evaCount = input.readInt();
+		for(int i = 0; i < evaCount; i++)
+		{
+			String evaName = input.readString();
+			if(version >= EVA_REFERENCES_VERSION)
+			{
+				evaObjects.put(evaName, EvaReferences.read(input));
+			}
+			else if(input.readByte() == REFERENCE_LIST)
+			{
+				int size = input.readInt();
+				ArrayList<String> references = new ArrayList<String>(size);
+				for(int j = 0; j < size; j++)
+				{
+					references.add(input.readString());
+				}
+				evaObjects.put(evaName, EvaReferences.fromStrings(references));
+			}
+			else
+			{
+				evaObjects.put(evaName, EvaReferences.fromStrings(input.readString()));
+			}
+		}
+
+		Hashtable<String, Object> dvaValues = new Hashtable<String, Object>();
+		int dvaCount = input.readInt();
+		for(int i = 0; i < dvaCount; i++)
+		{
+			String dvaName = input.readString();
+			dvaValues.put(dvaName, readValue(input));
+		}
+
+		return new WDBObject(parents, children, evaObjects, dvaValues, classDefName, uid);
+	}
+
+	public void objectToEntry(WDBObject object, TupleOutput output)
+	{
+		writeVersion(output);
+		output.writeString(object.getClassName());
+		output.writeInt(object.getUid().intValue());
+		writeUids(output, object.getParents());
+		writeUids(output, object.getChildren());
+
+		Hashtable<String, EvaReferences> evaObjects = object.getEvaReferences();
+		output.writeInt(evaObjects.size());
+		Enumeration<String> e = evaObjects.keys();
+		while(e.hasMoreElements())
+		{
+			String evaName = e.nextElement();
+			output.writeString(evaName);
+			evaObjects.get(evaName).write(output);
+		}
+
+		Hashtable<String, Object> dvaValues = object.getDvaValues();
+		output.writeInt(dvaValues.size());
+		e = dvaValues.keys();
+		while(e.hasMoreElements())
+		{
+			String dvaName = e.nextElement();
+			output.writeString(dvaName);
+			writeValue(output, dvaValues.get(dvaName));
+		}
+	}
+
+	private static Hashtable<String, Integer> readUids(TupleInput input)
+	{
+		Hashtable<String, Integer> uids = new Hashtable<String, Integer>();
+		int size = input.readInt();
+		for(int i = 0; i < size; i++)
+		{
+			String className = input.readString();
+			uids.put(className, new Integer(input.readInt()));
+		}
+		return uids;
+	}
+
+	private static void writeUids(TupleOutput output, Hashtable<String, Integer> uids)
+	{
+		output.writeInt(uids.size());
+		Enumeration<String> e = uids.keys();
+		while(e.hasMoreElements())
+		{
+			String className = e.nextElement();
+			output.writeString(className);
+			output.writeInt(uids.get(className).intValue());
+		}
+	}
+}
@@ -0,0 +1,117 @@
+package wdb.metadata;
+
+import com.sleepycat.bind.serial.SerialBinding;
+import com.sleepycat.bind.serial.StoredClassCatalog;
+import com.sleepycat.bind.tuple.TupleBinding;
+import com.sleepycat.bind.tuple.TupleInput;
+import com.sleepycat.bind.tuple.TupleOutput;
+import com.sleepycat.je.DatabaseEntry;
+
+import java.io.ObjectStreamConstants;
+
+/**
+ * Base class of the compact record formats used for the object and class
+ * databases. Every record starts with a format version byte. Records written
+ * by the old SerialBinding start with TC_OBJECT instead, so they can still be
+ * read (and upgraded) when a class catalog is supplied.
+ *
+ * Values are tagged with their WDB type so no Java class descriptors are
+ * stored in the records.
+ */
+public abstract class WDBTupleBinding<E> extends TupleBinding<E> {
+	public static final int FORMAT_VERSION = 5;
+
+	protected static final byte NULL_VALUE = 'N';
+	protected static final byte INTEGER_VALUE = 'I';
+	protected static final byte STRING_VALUE = 'S';
+	protected static final byte BOOLEAN_VALUE = 'B';
+
+	private SerialBinding<E> legacyBinding;
+
+	protected WDBTupleBinding(StoredClassCatalog classCatalog, Class<E> baseClass)
+	{
+		if(classCatalog != null)
+		{
+			this.legacyBinding = new SerialBinding<E>(classCatalog, baseClass);
+		}
+	}
+
+	public static boolean isLegacy(DatabaseEntry entry)
+	{
+		return entry.getSize() > 0 && entry.getData()[entry.getOffset()] == ObjectStreamConstants.TC_OBJECT;
+	}
+
+	public E entryToObject(DatabaseEntry entry)
+	{
+		if(isLegacy(entry))
+		{
+			if(this.legacyBinding == null)
+			{
+				throw new IllegalStateException("Record was written with the serial format but no class catalog is available");
+			}
+			return this.legacyBinding.entryToObject(entry);
+		}
+
+		return super.entryToObject(entry);
+	}
+
+	protected void writeVersion(TupleOutput output)
+	{
+		output.writeByte(FORMAT_VERSION);
+	}
+
+	protected int readVersion(TupleInput input)
+	{
+		int version = input.readByte();
+		if(version < 1 || version > FORMAT_VERSION)
+		{
+			throw new IllegalArgumentException("Unsupported record format version " + version);
+		}
+		return version;
+	}
+
+	protected static void writeValue(TupleOutput output, Object value)
+	{
+		if(value == null)
+		{
+			output.writeByte(NULL_VALUE);
+		}
+		else if(value instanceof Integer)
+		{
+			output.writeByte(INTEGER_VALUE);
+			output.writeInt(((Integer)value).intValue());
+		}
+		else if(value instanceof String)
+		{
+			output.writeByte(STRING_VALUE);
+			output.writeString((String)value);
+		}
+		else if(value instanceof Boolean)
+		{
+			output.writeByte(BOOLEAN_VALUE);
+			output.writeBoolean(((Boolean)value).booleanValue());
+		}
+		else
+		{
+			throw new IllegalArgumentException("Can not store value of type " + value.getClass().getName());
+		}
+	}
+
+	protected static Object readValue(TupleInput input)
+	{
+		byte tag = input.readByte();
+		switch(tag)
+		{
+			case NULL_VALUE:
+				return null;
+			case INTEGER_VALUE:
+				return new Integer(input.readInt());
+			case STRING_VALUE:
+				return input.readString();
+			case BOOLEAN_VALUE:
+				return Boolean.valueOf(input.readBoolean());
+			default:
+				throw new IllegalArgumentException("Unknown value tag " + tag);
+		}
+	}
+}
@@ -22,7 +22,7 @@ public class And extends SimpleNode {
 	  SimpleNode n2 = (SimpleNode)children[1];
 	  IndexSelectResult leftResult = n1.filterObjectsWithIndexes(da, indexes);
 	  IndexSelectResult rightResult = n2.filterObjectsWithIndexes(da, indexes);
-	  return leftResult.and(leftResult);
+	  return leftResult.and(rightResult);
   }
   public boolean eval(SleepyCatDataAdapter da, WDBObject wdbO) throws Exception
   {
@@ -12,6 +12,7 @@ public class Cond extends SimpleNode {
 	protected AttributePath attributePath;
 	protected Object value;
 	protected String quantifier;
+	protected transient Predicate.Condition condition;
 	
   public Cond(int id) {
     super(id);
@@ -42,35 +43,32 @@ public class Cond extends SimpleNode {
   public IndexSelectResult filterObjectsWithIndexes(SleepyCatDataAdapter da, ArrayList indexes) throws Exception
   {
 	  IndexSelectResult isr = new IndexSelectResult();
-	  if(this.attributePath.levelsOfIndirection() > 0 || !this.quantifier.equals("="))
+	  IndexRange range = IndexRange.forQuantifier(this.quantifier, this.value);
+	  if(this.attributePath.levelsOfIndirection() > 0 || range == null)
 	  {
 		  //These conditions are not supported so return a "scan" or "can't help" result
 		  return isr;
 	  }
 	  else
 	  {
-		  isr.addDva(this.attributePath.attribute, this.value);
+		  isr.addDva(this.attributePath.attribute, range);
 		  return isr;
 	  }
   }
+  /**
+   * @return this condition with its literal and range prepared, built once
+   */
+  public Predicate.Condition getCondition()
+  {
+	if(this.condition == null)
+	{
+		this.condition = new Predicate.Condition(this.attributePath, this.quantifier, this.value);
+	}
+	return this.condition;
+  }
   public boolean eval(SleepyCatDataAdapter da, WDBObject wdbO) throws Exception
   {
-  	if(this.quantifier.equals("="))
-  	{
-  		return wdbO.getAttributeValue(this.attributePath, da).contains(value);
-  	}
-  	if(this.quantifier.equals("<>"))
-  	{
-  		ArrayList<Object> values = wdbO.getAttributeValue(this.attributePath, da);
-  		for(int i = 0; i < values.size(); i++)
-  		{
-  			if(!values.get(i).equals(value))
-  				return true;
-  		}
-  		return false;
-  	}
-  	
-  	throw new IllegalStateException("Symbol \"" + this.quantifier + "\" is not a vaid quantifier");
+  	return this.getCondition().eval(da, wdbO);
   }
   /*
   public boolean eval(SleepyCatDataAdapter da, WDBObject wdbO) throws Exception
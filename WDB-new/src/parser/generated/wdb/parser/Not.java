@@ -18,9 +18,11 @@ public class Not extends SimpleNode {
   }
   public IndexSelectResult filterObjectsWithIndexes(SleepyCatDataAdapter da, ArrayList indexes) throws Exception
   {
-	  IndexSelectResult isr = new IndexSelectResult();
-	  //These conditions are not supported so return a "scan" or "can't help" result
-	  return isr;
+	  SimpleNode n = (SimpleNode)children[0];
+	  IndexSelectResult isr = n.filterObjectsWithIndexes(da, indexes);
+	  isr.doDelayedAnd(da, indexes);
+	  //Only exact results can be complemented within the extent, the rest becomes a "scan" result
+	  return isr.not(da);
   }
   public boolean eval(SleepyCatDataAdapter da, WDBObject wdbO) throws Exception
   {
@@ -24,7 +24,7 @@ public class Or extends SimpleNode {
 	  leftResult.doDelayedAnd(da, indexes);
 	  IndexSelectResult rightResult = n2.filterObjectsWithIndexes(da, indexes);
 	  rightResult.doDelayedAnd(da, indexes);
-	  return leftResult.or(leftResult);
+	  return leftResult.or(rightResult, da);
   }
   public boolean eval(SleepyCatDataAdapter da, WDBObject wdbO) throws Exception
   {
@@ -28,7 +28,10 @@ public class QueryParser/*@bgen(jjtree)*/implements QueryParserTreeConstants, Qu
     case FROM:
     case SOURCE:
     case INDEX:
+    case STATS:
+    case EXPLAIN:
     case MODIFY:
+    case SET:
       switch ((jj_ntk==-1)?jj_ntk():jj_ntk) {
       case CLASS:
         q = Class();
@@ -51,6 +54,15 @@ public class QueryParser/*@bgen(jjtree)*/implements QueryParserTreeConstants, Qu
       case MODIFY:
         q = Modify();
         break;
+      case STATS:
+        q = Stats();
+        break;
+      case EXPLAIN:
+        q = Explain();
+        break;
+      case SET:
+        q = Set();
+        break;
       default:
         jj_la1[0] = jj_gen;
         jj_consume_token(-1);
@@ -261,6 +273,28 @@ public class QueryParser/*@bgen(jjtree)*/implements QueryParserTreeConstants, Qu
       jj_la1[14] = jj_gen;
       ;
     }
+    switch ((jj_ntk==-1)?jj_ntk():jj_ntk) {
+    case LIMIT:
+      jj_consume_token(LIMIT);
+      jj_consume_token(EQ);
+      switch ((jj_ntk==-1)?jj_ntk():jj_ntk) {
+      case INTEGER:
+        rq.limit = getInteger();
+        break;
+      case ALL:
+        jj_consume_token(ALL);
+                    rq.limit = -1;
+        break;
+      default:
+        jj_la1[15] = jj_gen;
+        jj_consume_token(-1);
+        throw new ParseException();
+      }
+      break;
+    default:
+      jj_la1[16] = jj_gen;
+      ;
+    }
     jj_consume_token(SC);
                 {if (true) return rq;}
     throw new Error("Missing return statement in function");
@@ -270,11 +304,102 @@ public class QueryParser/*@bgen(jjtree)*/implements QueryParserTreeConstants, Qu
         SourceQuery sq = new SourceQuery();
     jj_consume_token(SOURCE);
     sq.filename = getQString();
+    switch ((jj_ntk==-1)?jj_ntk():jj_ntk) {
+    case BULK:
+      jj_consume_token(BULK);
+            sq.bulk = true;
+      switch ((jj_ntk==-1)?jj_ntk():jj_ntk) {
+      case INTEGER:
+        sq.batchSize = getInteger();
+              if(sq.batchSize.intValue() < 1)
+              {
+                {if (true) throw new ParseException("BULK batch size must be at least 1");}
+              }
+        break;
+      default:
+        jj_la1[17] = jj_gen;
+        ;
+      }
+      switch ((jj_ntk==-1)?jj_ntk():jj_ntk) {
+      case NOSYNC:
+      case WRITENOSYNC:
+        switch ((jj_ntk==-1)?jj_ntk():jj_ntk) {
+        case NOSYNC:
+          jj_consume_token(NOSYNC);
+              sq.durability = "NO_SYNC";
+          break;
+        case WRITENOSYNC:
+          jj_consume_token(WRITENOSYNC);
+              sq.durability = "WRITE_NO_SYNC";
+          break;
+        default:
+          jj_la1[18] = jj_gen;
+          jj_consume_token(-1);
+          throw new ParseException();
+        }
+        break;
+      default:
+        jj_la1[19] = jj_gen;
+        ;
+      }
+      break;
+    default:
+      jj_la1[20] = jj_gen;
+      ;
+    }
+    jj_consume_token(SC);
+                {if (true) return sq;}
+    throw new Error("Missing return statement in function");
+  }
+
+  static final public Query Stats() throws ParseException {
+        StatsQuery sq = new StatsQuery();
+    jj_consume_token(STATS);
+    jj_consume_token(SC);
+                {if (true) return sq;}
+    throw new Error("Missing return statement in function");
+  }
+
+  static final public Query Set() throws ParseException {
+        SetQuery sq = new SetQuery();
+        Token t;
+    jj_consume_token(SET);
+    t = jj_consume_token(IDENTIFIER);
+                sq.name = t.image;
+    jj_consume_token(EQ);
+    switch ((jj_ntk==-1)?jj_ntk():jj_ntk) {
+    case IDENTIFIER:
+      t = jj_consume_token(IDENTIFIER);
+      break;
+    case INTEGER:
+      t = jj_consume_token(INTEGER);
+      break;
+    case TRUE:
+      t = jj_consume_token(TRUE);
+      break;
+    case FALSE:
+      t = jj_consume_token(FALSE);
+      break;
+    default:
+      jj_la1[21] = jj_gen;
+      jj_consume_token(-1);
+      throw new ParseException();
+    }
+                sq.value = t.image;
     jj_consume_token(SC);
                 {if (true) return sq;}
     throw new Error("Missing return statement in function");
   }
 
+  static final public Query Explain() throws ParseException {
+        Query q;
+    jj_consume_token(EXPLAIN);
+    q = Retrieve();
+                ((RetrieveQuery)q).explain = true;
+                {if (true) return q;}
+    throw new Error("Missing return statement in function");
+  }
+
   static final public Query Index() throws ParseException {
   IndexDef indxQ = new IndexDef();
   String dva;
@@ -285,7 +410,7 @@ public class QueryParser/*@bgen(jjtree)*/implements QueryParserTreeConstants, Qu
       indxQ.comment = getQString();
       break;
     default:
-      jj_la1[15] = jj_gen;
+      jj_la1[22] = jj_gen;
       ;
     }
     jj_consume_token(ON);
@@ -300,7 +425,7 @@ public class QueryParser/*@bgen(jjtree)*/implements QueryParserTreeConstants, Qu
         ;
         break;
       default:
-        jj_la1[16] = jj_gen;
+        jj_la1[23] = jj_gen;
         break label_7;
       }
       jj_consume_token(COMMA);
@@ -314,7 +439,16 @@ public class QueryParser/*@bgen(jjtree)*/implements QueryParserTreeConstants, Qu
       indxQ.unique = true;
       break;
     default:
-      jj_la1[17] = jj_gen;
+      jj_la1[24] = jj_gen;
+      ;
+    }
+    switch ((jj_ntk==-1)?jj_ntk():jj_ntk) {
+    case BITMAP:
+      jj_consume_token(BITMAP);
+      indxQ.bitmap = true;
+      break;
+    default:
+      jj_la1[25] = jj_gen;
       ;
     }
     jj_consume_token(SC);
@@ -338,13 +472,13 @@ public class QueryParser/*@bgen(jjtree)*/implements QueryParserTreeConstants, Qu
               mq.limit = -1;
         break;
       default:
-        jj_la1[18] = jj_gen;
+        jj_la1[26] = jj_gen;
         jj_consume_token(-1);
         throw new ParseException();
       }
       break;
     default:
-      jj_la1[19] = jj_gen;
+      jj_la1[27] = jj_gen;
       ;
     }
     switch ((jj_ntk==-1)?jj_ntk():jj_ntk) {
@@ -355,7 +489,7 @@ public class QueryParser/*@bgen(jjtree)*/implements QueryParserTreeConstants, Qu
       mq.className = getLString();
       break;
     default:
-      jj_la1[20] = jj_gen;
+      jj_la1[28] = jj_gen;
       jj_consume_token(-1);
       throw new ParseException();
     }
@@ -370,7 +504,7 @@ public class QueryParser/*@bgen(jjtree)*/implements QueryParserTreeConstants, Qu
           ;
           break;
         default:
-          jj_la1[21] = jj_gen;
+          jj_la1[29] = jj_gen;
           break label_8;
         }
         jj_consume_token(COMMA);
@@ -378,7 +512,7 @@ public class QueryParser/*@bgen(jjtree)*/implements QueryParserTreeConstants, Qu
       }
       break;
     default:
-      jj_la1[22] = jj_gen;
+      jj_la1[30] = jj_gen;
       ;
     }
     jj_consume_token(RP);
@@ -403,7 +537,7 @@ public class QueryParser/*@bgen(jjtree)*/implements QueryParserTreeConstants, Qu
         jj_consume_token(RB);
         break;
       default:
-        jj_la1[23] = jj_gen;
+        jj_la1[31] = jj_gen;
         ;
       }
       break;
@@ -412,7 +546,7 @@ public class QueryParser/*@bgen(jjtree)*/implements QueryParserTreeConstants, Qu
                         attributePath.attribute = t.image;
       break;
     default:
-      jj_la1[24] = jj_gen;
+      jj_la1[32] = jj_gen;
       jj_consume_token(-1);
       throw new ParseException();
     }
@@ -435,7 +569,7 @@ public class QueryParser/*@bgen(jjtree)*/implements QueryParserTreeConstants, Qu
       }
       break;
     default:
-      jj_la1[25] = jj_gen;
+      jj_la1[33] = jj_gen;
       ;
     }
                 rq.addAttributePath(attributePath);
@@ -463,7 +597,7 @@ public class QueryParser/*@bgen(jjtree)*/implements QueryParserTreeConstants, Qu
       jj_consume_token(RB);
       break;
     default:
-      jj_la1[26] = jj_gen;
+      jj_la1[34] = jj_gen;
       ;
     }
     jj_consume_token(ASSN);
@@ -482,7 +616,7 @@ public class QueryParser/*@bgen(jjtree)*/implements QueryParserTreeConstants, Qu
                         uq.addAssignment(dvaAssign);
       break;
     default:
-      jj_la1[27] = jj_gen;
+      jj_la1[35] = jj_gen;
       jj_consume_token(-1);
       throw new ParseException();
     }
@@ -512,13 +646,13 @@ public class QueryParser/*@bgen(jjtree)*/implements QueryParserTreeConstants, Qu
                   }
         break;
       default:
-        jj_la1[28] = jj_gen;
+        jj_la1[36] = jj_gen;
         jj_consume_token(-1);
         throw new ParseException();
       }
       break;
     default:
-      jj_la1[29] = jj_gen;
+      jj_la1[37] = jj_gen;
       ;
     }
     switch ((jj_ntk==-1)?jj_ntk():jj_ntk) {
@@ -529,7 +663,7 @@ public class QueryParser/*@bgen(jjtree)*/implements QueryParserTreeConstants, Qu
       evaAssign.targetClass = getLString();
       break;
     default:
-      jj_la1[30] = jj_gen;
+      jj_la1[38] = jj_gen;
       jj_consume_token(-1);
       throw new ParseException();
     }
@@ -551,7 +685,7 @@ public class QueryParser/*@bgen(jjtree)*/implements QueryParserTreeConstants, Qu
       parent = getLString();
       break;
     default:
-      jj_la1[31] = jj_gen;
+      jj_la1[39] = jj_gen;
       jj_consume_token(-1);
       throw new ParseException();
     }
@@ -563,7 +697,7 @@ public class QueryParser/*@bgen(jjtree)*/implements QueryParserTreeConstants, Qu
         ;
         break;
       default:
-        jj_la1[32] = jj_gen;
+        jj_la1[40] = jj_gen;
         break label_10;
       }
       jj_consume_token(AND);
@@ -575,7 +709,7 @@ public class QueryParser/*@bgen(jjtree)*/implements QueryParserTreeConstants, Qu
         parent = getLString();
         break;
       default:
-        jj_la1[33] = jj_gen;
+        jj_la1[41] = jj_gen;
         jj_consume_token(-1);
         throw new ParseException();
       }
@@ -603,7 +737,7 @@ public class QueryParser/*@bgen(jjtree)*/implements QueryParserTreeConstants, Qu
       dva.comment = getQString();
       break;
     default:
-      jj_la1[34] = jj_gen;
+      jj_la1[42] = jj_gen;
       ;
     }
     jj_consume_token(COLON);
@@ -615,7 +749,7 @@ public class QueryParser/*@bgen(jjtree)*/implements QueryParserTreeConstants, Qu
       jj_consume_token(RB);
       break;
     default:
-      jj_la1[35] = jj_gen;
+      jj_la1[43] = jj_gen;
       ;
     }
     label_11:
@@ -625,7 +759,7 @@ public class QueryParser/*@bgen(jjtree)*/implements QueryParserTreeConstants, Qu
         ;
         break;
       default:
-        jj_la1[36] = jj_gen;
+        jj_la1[44] = jj_gen;
         break label_11;
       }
       jj_consume_token(COMMA);
@@ -655,7 +789,7 @@ public class QueryParser/*@bgen(jjtree)*/implements QueryParserTreeConstants, Qu
         dva.initialValue = getBoolean();
         break;
       default:
-        jj_la1[37] = jj_gen;
+        jj_la1[45] = jj_gen;
         jj_consume_token(-1);
         throw new ParseException();
       }
@@ -678,7 +812,7 @@ public class QueryParser/*@bgen(jjtree)*/implements QueryParserTreeConstants, Qu
     }
       break;
     default:
-      jj_la1[38] = jj_gen;
+      jj_la1[46] = jj_gen;
       jj_consume_token(-1);
       throw new ParseException();
     }
@@ -692,7 +826,7 @@ public class QueryParser/*@bgen(jjtree)*/implements QueryParserTreeConstants, Qu
       eva.comment = getQString();
       break;
     default:
-      jj_la1[39] = jj_gen;
+      jj_la1[47] = jj_gen;
       ;
     }
     jj_consume_token(COLON);
@@ -704,7 +838,7 @@ public class QueryParser/*@bgen(jjtree)*/implements QueryParserTreeConstants, Qu
       eva.baseClassName = getLString();
       break;
     default:
-      jj_la1[40] = jj_gen;
+      jj_la1[48] = jj_gen;
       jj_consume_token(-1);
       throw new ParseException();
     }
@@ -715,7 +849,7 @@ public class QueryParser/*@bgen(jjtree)*/implements QueryParserTreeConstants, Qu
         ;
         break;
       default:
-        jj_la1[41] = jj_gen;
+        jj_la1[49] = jj_gen;
         break label_12;
       }
       jj_consume_token(COMMA);
@@ -767,7 +901,7 @@ public class QueryParser/*@bgen(jjtree)*/implements QueryParserTreeConstants, Qu
             ;
             break;
           default:
-            jj_la1[42] = jj_gen;
+            jj_la1[50] = jj_gen;
             break label_13;
           }
           jj_consume_token(COMMA);
@@ -776,7 +910,7 @@ public class QueryParser/*@bgen(jjtree)*/implements QueryParserTreeConstants, Qu
         jj_consume_token(RP);
         break;
       default:
-        jj_la1[43] = jj_gen;
+        jj_la1[51] = jj_gen;
         ;
       }
       break;
@@ -800,7 +934,7 @@ public class QueryParser/*@bgen(jjtree)*/implements QueryParserTreeConstants, Qu
       eva.inverseEVA = getIdentifier();
       break;
     default:
-      jj_la1[44] = jj_gen;
+      jj_la1[52] = jj_gen;
       jj_consume_token(-1);
       throw new ParseException();
     }
@@ -828,7 +962,7 @@ public class QueryParser/*@bgen(jjtree)*/implements QueryParserTreeConstants, Qu
       eva.max = getInteger();
       break;
     default:
-      jj_la1[45] = jj_gen;
+      jj_la1[53] = jj_gen;
       jj_consume_token(-1);
       throw new ParseException();
     }
@@ -879,7 +1013,7 @@ public class QueryParser/*@bgen(jjtree)*/implements QueryParserTreeConstants, Qu
         OrExpression();
         break;
       default:
-        jj_la1[46] = jj_gen;
+        jj_la1[54] = jj_gen;
         ;
       }
     } catch (Throwable jjte000) {
@@ -916,7 +1050,7 @@ public class QueryParser/*@bgen(jjtree)*/implements QueryParserTreeConstants, Qu
         AndExpression();
         break;
       default:
-        jj_la1[47] = jj_gen;
+        jj_la1[55] = jj_gen;
         ;
       }
     } catch (Throwable jjte000) {
@@ -952,7 +1086,7 @@ public class QueryParser/*@bgen(jjtree)*/implements QueryParserTreeConstants, Qu
       NotExpression();
       break;
     default:
-      jj_la1[48] = jj_gen;
+      jj_la1[56] = jj_gen;
       jj_consume_token(-1);
       throw new ParseException();
     }
@@ -1004,7 +1138,7 @@ public class QueryParser/*@bgen(jjtree)*/implements QueryParserTreeConstants, Qu
       FalseExpression();
       break;
     default:
-      jj_la1[49] = jj_gen;
+      jj_la1[57] = jj_gen;
       jj_consume_token(-1);
       throw new ParseException();
     }
@@ -1043,7 +1177,7 @@ public class QueryParser/*@bgen(jjtree)*/implements QueryParserTreeConstants, Qu
                 jjtn000.setValue(value);
         break;
       default:
-        jj_la1[50] = jj_gen;
+        jj_la1[58] = jj_gen;
         jj_consume_token(-1);
         throw new ParseException();
       }
@@ -1080,7 +1214,7 @@ public class QueryParser/*@bgen(jjtree)*/implements QueryParserTreeConstants, Qu
       jj_consume_token(RB);
       break;
     default:
-      jj_la1[51] = jj_gen;
+      jj_la1[59] = jj_gen;
       ;
     }
     switch ((jj_ntk==-1)?jj_ntk():jj_ntk) {
@@ -1102,7 +1236,7 @@ public class QueryParser/*@bgen(jjtree)*/implements QueryParserTreeConstants, Qu
       }
       break;
     default:
-      jj_la1[52] = jj_gen;
+      jj_la1[60] = jj_gen;
       ;
     }
                 {if (true) return attributePath;}
@@ -1172,7 +1306,7 @@ public class QueryParser/*@bgen(jjtree)*/implements QueryParserTreeConstants, Qu
                 {if (true) return s.trim();}
       break;
     default:
-      jj_la1[53] = jj_gen;
+      jj_la1[61] = jj_gen;
       jj_consume_token(-1);
       throw new ParseException();
     }
@@ -1220,7 +1354,7 @@ public class QueryParser/*@bgen(jjtree)*/implements QueryParserTreeConstants, Qu
     {if (true) return new String(cs);}
       break;
     default:
-      jj_la1[54] = jj_gen;
+      jj_la1[62] = jj_gen;
       jj_consume_token(-1);
       throw new ParseException();
     }
@@ -1276,7 +1410,7 @@ public class QueryParser/*@bgen(jjtree)*/implements QueryParserTreeConstants, Qu
                 {if (true) return Boolean.FALSE;}
       break;
     default:
-      jj_la1[55] = jj_gen;
+      jj_la1[63] = jj_gen;
       jj_consume_token(-1);
       throw new ParseException();
     }
@@ -1325,6 +1459,11 @@ public class QueryParser/*@bgen(jjtree)*/implements QueryParserTreeConstants, Qu
     finally { jj_save(5, xla); }
   }
 
+  static final private boolean jj_3R_15() {
+    if (jj_scan_token(IDENTIFIER)) return true;
+    return false;
+  }
+
   static final private boolean jj_3R_31() {
     if (jj_3R_37()) return true;
     return false;
@@ -1653,11 +1792,6 @@ public class QueryParser/*@bgen(jjtree)*/implements QueryParserTreeConstants, Qu
     return false;
   }
 
-  static final private boolean jj_3R_15() {
-    if (jj_scan_token(IDENTIFIER)) return true;
-    return false;
-  }
-
   static private boolean jj_initialized_once = false;
   static public QueryParserTokenManager token_source;
   static SimpleCharStream jj_input_stream;
@@ -1668,18 +1802,23 @@ public class QueryParser/*@bgen(jjtree)*/implements QueryParserTreeConstants, Qu
   static public boolean lookingAhead = false;
   static private boolean jj_semLA;
   static private int jj_gen;
-  static final private int[] jj_la1 = new int[56];
+  static final private int[] jj_la1 = new int[64];
   static private int[] jj_la1_0;
   static private int[] jj_la1_1;
+  static private int[] jj_la1_2;
   static {
       jj_la1_0();
       jj_la1_1();
+      jj_la1_2();
    }
    private static void jj_la1_0() {
-      jj_la1_0 = new int[] {0x8026000,0x8026001,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x8000000,0x1000,0x0,0x0,0x1000,0x4000000,0x0,0x1000,0x0,0x0,0x0,0x0,0x1000,0x0,0x100,0x0,0x8000,0x100,0x0,0xc0000,0xc0000,0x0,0x0,0x10000000,0x0,0x0,0x100,0x1000,0x0,0x1000000,0x0,0x0,0x1000,0x1000,0x40,0x1c10000,0x0,0x20000000,0x10000000,0x40000040,0x40,0x0,0x100,0x8000,0x80000000,0x0,0x0,};
+      jj_la1_0 = new int[] {0x8026000,0x8026001,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x8000000,0x1000,0x0,0x0,0x1000,0x4000000,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x1000,0x0,0x0,0x0,0x0,0x0,0x1000,0x0,0x100,0x0,0x8000,0x100,0x0,0xc0000,0xc0000,0x0,0x0,0x10000000,0x0,0x0,0x100,0x1000,0x0,0x1000000,0x0,0x0,0x1000,0x1000,0x40,0x1c10000,0x0,0x20000000,0x10000000,0x40000040,0x40,0x0,0x100,0x8000,0x80000000,0x0,0x0,};
    }
    private static void jj_la1_1() {
-      jj_la1_1 = new int[] {0x106000,0x186000,0x6000000,0x8000000,0x2000000,0x6000000,0x8000000,0x2000000,0x6000000,0x0,0x0,0x2000000,0x6000000,0x0,0x0,0x8000000,0x0,0x10000,0x1400000,0x200000,0x6000000,0x0,0x2000000,0x0,0x2001000,0x0,0x0,0x9000060,0x0,0x0,0x6000000,0x6000000,0x0,0x6000000,0x8000000,0x0,0x0,0x9000060,0x800000,0x8000000,0x6000000,0x0,0x0,0x0,0x0,0x60000,0x0,0x0,0x2000060,0x2000060,0x9000060,0x0,0x0,0x1f,0xf80,0x60,};
+      jj_la1_1 = new int[] {0x44606000,0x46606000,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x90000000,0x8000000,0x80000000,0x180000,0x180000,0x40000,0x80000060,0x0,0x0,0x10000,0x20000,0x90000000,0x8000000,0x0,0x0,0x0,0x0,0x1000,0x0,0x0,0x80000060,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x80000060,0x20000000,0x0,0x0,0x0,0x0,0x0,0x0,0x1800000,0x0,0x0,0x60,0x60,0x80000060,0x0,0x0,0x1f,0xf80,0x60,};
+   }
+   private static void jj_la1_2() {
+      jj_la1_2 = new int[] {0x0,0x0,0x3,0x4,0x1,0x3,0x4,0x1,0x3,0x0,0x0,0x1,0x3,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x1,0x4,0x0,0x0,0x0,0x0,0x0,0x3,0x0,0x1,0x0,0x1,0x0,0x0,0x4,0x0,0x0,0x3,0x3,0x0,0x3,0x4,0x0,0x0,0x4,0x0,0x4,0x3,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x1,0x1,0x4,0x0,0x0,0x0,0x0,0x0,};
    }
   static final private JJCalls[] jj_2_rtns = new JJCalls[6];
   static private boolean jj_rescan = false;
@@ -1701,7 +1840,7 @@ public class QueryParser/*@bgen(jjtree)*/implements QueryParserTreeConstants, Qu
     token = new Token();
     jj_ntk = -1;
     jj_gen = 0;
-    for (int i = 0; i < 56; i++) jj_la1[i] = -1;
+    for (int i = 0; i < 64; i++) jj_la1[i] = -1;
     for (int i = 0; i < jj_2_rtns.length; i++) jj_2_rtns[i] = new JJCalls();
   }
 
@@ -1715,7 +1854,7 @@ public class QueryParser/*@bgen(jjtree)*/implements QueryParserTreeConstants, Qu
     jj_ntk = -1;
     jjtree.reset();
     jj_gen = 0;
-    for (int i = 0; i < 56; i++) jj_la1[i] = -1;
+    for (int i = 0; i < 64; i++) jj_la1[i] = -1;
     for (int i = 0; i < jj_2_rtns.length; i++) jj_2_rtns[i] = new JJCalls();
   }
 
@@ -1732,7 +1871,7 @@ public class QueryParser/*@bgen(jjtree)*/implements QueryParserTreeConstants, Qu
     token = new Token();
     jj_ntk = -1;
     jj_gen = 0;
-    for (int i = 0; i < 56; i++) jj_la1[i] = -1;
+    for (int i = 0; i < 64; i++) jj_la1[i] = -1;
     for (int i = 0; i < jj_2_rtns.length; i++) jj_2_rtns[i] = new JJCalls();
   }
 
@@ -1743,7 +1882,7 @@ public class QueryParser/*@bgen(jjtree)*/implements QueryParserTreeConstants, Qu
     jj_ntk = -1;
     jjtree.reset();
     jj_gen = 0;
-    for (int i = 0; i < 56; i++) jj_la1[i] = -1;
+    for (int i = 0; i < 64; i++) jj_la1[i] = -1;
     for (int i = 0; i < jj_2_rtns.length; i++) jj_2_rtns[i] = new JJCalls();
   }
 
@@ -1759,7 +1898,7 @@ public class QueryParser/*@bgen(jjtree)*/implements QueryParserTreeConstants, Qu
     token = new Token();
     jj_ntk = -1;
     jj_gen = 0;
-    for (int i = 0; i < 56; i++) jj_la1[i] = -1;
+    for (int i = 0; i < 64; i++) jj_la1[i] = -1;
     for (int i = 0; i < jj_2_rtns.length; i++) jj_2_rtns[i] = new JJCalls();
   }
 
@@ -1769,7 +1908,7 @@ public class QueryParser/*@bgen(jjtree)*/implements QueryParserTreeConstants, Qu
     jj_ntk = -1;
     jjtree.reset();
     jj_gen = 0;
-    for (int i = 0; i < 56; i++) jj_la1[i] = -1;
+    for (int i = 0; i < 64; i++) jj_la1[i] = -1;
     for (int i = 0; i < jj_2_rtns.length; i++) jj_2_rtns[i] = new JJCalls();
   }
 
@@ -1880,15 +2019,15 @@ public class QueryParser/*@bgen(jjtree)*/implements QueryParserTreeConstants, Qu
 
   static public ParseException generateParseException() {
     jj_expentries.removeAllElements();
-    boolean[] la1tokens = new boolean[61];
-    for (int i = 0; i < 61; i++) {
+    boolean[] la1tokens = new boolean[68];
+    for (int i = 0; i < 68; i++) {
       la1tokens[i] = false;
     }
     if (jj_kind >= 0) {
       la1tokens[jj_kind] = true;
       jj_kind = -1;
     }
-    for (int i = 0; i < 56; i++) {
+    for (int i = 0; i < 64; i++) {
       if (jj_la1[i] == jj_gen) {
         for (int j = 0; j < 32; j++) {
           if ((jj_la1_0[i] & (1<<j)) != 0) {
@@ -1897,10 +2036,13 @@ public class QueryParser/*@bgen(jjtree)*/implements QueryParserTreeConstants, Qu
           if ((jj_la1_1[i] & (1<<j)) != 0) {
             la1tokens[32+j] = true;
           }
+          if ((jj_la1_2[i] & (1<<j)) != 0) {
+            la1tokens[64+j] = true;
+          }
         }
       }
     }
-    for (int i = 0; i < 61; i++) {
+    for (int i = 0; i < 68; i++) {
       if (la1tokens[i]) {
         jj_expentry = new int[1];
         jj_expentry[0] = i;
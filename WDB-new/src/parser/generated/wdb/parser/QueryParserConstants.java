@@ -47,18 +47,25 @@ public interface QueryParserConstants {
   int INDEX = 46;
   int ON = 47;
   int UNIQUE = 48;
-  int DISTINCT = 49;
-  int MAX = 50;
-  int QUIT = 51;
-  int MODIFY = 52;
-  int LIMIT = 53;
-  int ALL = 54;
-  int INITIALVALUE = 55;
-  int INTEGER = 56;
-  int IDENTIFIER = 57;
-  int LSTRING = 58;
-  int QSTRING = 59;
-  int ERROR = 60;
+  int BITMAP = 49;
+  int BULK = 50;
+  int NOSYNC = 51;
+  int WRITENOSYNC = 52;
+  int STATS = 53;
+  int EXPLAIN = 54;
+  int DISTINCT = 55;
+  int MAX = 56;
+  int QUIT = 57;
+  int MODIFY = 58;
+  int LIMIT = 59;
+  int ALL = 60;
+  int INITIALVALUE = 61;
+  int SET = 62;
+  int INTEGER = 63;
+  int IDENTIFIER = 64;
+  int LSTRING = 65;
+  int QSTRING = 66;
+  int ERROR = 67;
 
   int DEFAULT = 0;
 
@@ -112,6 +119,12 @@ public interface QueryParserConstants {
     "\"INDEX\"",
     "\"ON\"",
     "\"UNIQUE\"",
+    "\"BITMAP\"",
+    "\"BULK\"",
+    "\"NOSYNC\"",
+    "\"WRITE_NOSYNC\"",
+    "\"STATS\"",
+    "\"EXPLAIN\"",
     "\"DISTINCT\"",
     "\"MAX\"",
     "\"QUIT\"",
@@ -119,6 +132,7 @@ public interface QueryParserConstants {
     "\"LIMIT\"",
     "\"ALL\"",
     "\"INITIALVALUE\"",
+    "\"SET\"",
     "<INTEGER>",
     "<IDENTIFIER>",
     "<LSTRING>",
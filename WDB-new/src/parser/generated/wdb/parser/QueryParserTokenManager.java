@@ -57,39 +57,39 @@ static private final int jjMoveStringLiteralDfa0_0()
          jjmatchedKind = 31;
          return jjMoveStringLiteralDfa1_0(0x400000000L);
       case 65:
-         return jjMoveStringLiteralDfa1_0(0x40000010000000L);
+         return jjMoveStringLiteralDfa1_0(0x1000000010000000L);
       case 66:
-         return jjMoveStringLiteralDfa1_0(0x40000000000L);
+         return jjMoveStringLiteralDfa1_0(0x6040000000000L);
       case 67:
          return jjMoveStringLiteralDfa1_0(0x20000002000L);
       case 68:
-         return jjMoveStringLiteralDfa1_0(0x2000000000000L);
+         return jjMoveStringLiteralDfa1_0(0x80000000000000L);
       case 69:
-         return jjMoveStringLiteralDfa1_0(0x80000L);
+         return jjMoveStringLiteralDfa1_0(0x40000000080000L);
       case 70:
          return jjMoveStringLiteralDfa1_0(0x4008000000L);
       case 73:
-         return jjMoveStringLiteralDfa1_0(0x80408000070000L);
+         return jjMoveStringLiteralDfa1_0(0x2000408000070000L);
       case 76:
-         return jjMoveStringLiteralDfa1_0(0x20000000000000L);
+         return jjMoveStringLiteralDfa1_0(0x800000000000000L);
       case 77:
-         return jjMoveStringLiteralDfa1_0(0x14000000000000L);
+         return jjMoveStringLiteralDfa1_0(0x500000000000000L);
       case 78:
-         return jjMoveStringLiteralDfa1_0(0x40000000L);
+         return jjMoveStringLiteralDfa1_0(0x8000040000000L);
       case 79:
          return jjMoveStringLiteralDfa1_0(0x800020008000L);
       case 81:
-         return jjMoveStringLiteralDfa1_0(0x8000000000000L);
+         return jjMoveStringLiteralDfa1_0(0x200000000000000L);
       case 82:
          return jjMoveStringLiteralDfa1_0(0x10003000000L);
       case 83:
-         return jjMoveStringLiteralDfa1_0(0x280000004000L);
+         return jjMoveStringLiteralDfa1_0(0x4020280000004000L);
       case 84:
          return jjMoveStringLiteralDfa1_0(0x2000000000L);
       case 85:
          return jjMoveStringLiteralDfa1_0(0x1000000000000L);
       case 87:
-         return jjMoveStringLiteralDfa1_0(0x4100000L);
+         return jjMoveStringLiteralDfa1_0(0x10000004100000L);
       case 91:
          jjmatchedKind = 8;
          return jjMoveNfa_0(3, 0);
@@ -97,39 +97,39 @@ static private final int jjMoveStringLiteralDfa0_0()
          jjmatchedKind = 9;
          return jjMoveNfa_0(3, 0);
       case 97:
-         return jjMoveStringLiteralDfa1_0(0x40000010000000L);
+         return jjMoveStringLiteralDfa1_0(0x1000000010000000L);
       case 98:
-         return jjMoveStringLiteralDfa1_0(0x40000000000L);
+         return jjMoveStringLiteralDfa1_0(0x6040000000000L);
       case 99:
          return jjMoveStringLiteralDfa1_0(0x20000002000L);
       case 100:
-         return jjMoveStringLiteralDfa1_0(0x2000000000000L);
+         return jjMoveStringLiteralDfa1_0(0x80000000000000L);
       case 101:
-         return jjMoveStringLiteralDfa1_0(0x80000L);
+         return jjMoveStringLiteralDfa1_0(0x40000000080000L);
       case 102:
          return jjMoveStringLiteralDfa1_0(0x4008000000L);
       case 105:
-         return jjMoveStringLiteralDfa1_0(0x80408000070000L);
+         return jjMoveStringLiteralDfa1_0(0x2000408000070000L);
       case 108:
-         return jjMoveStringLiteralDfa1_0(0x20000000000000L);
+         return jjMoveStringLiteralDfa1_0(0x800000000000000L);
       case 109:
-         return jjMoveStringLiteralDfa1_0(0x14000000000000L);
+         return jjMoveStringLiteralDfa1_0(0x500000000000000L);
       case 110:
-         return jjMoveStringLiteralDfa1_0(0x40000000L);
+         return jjMoveStringLiteralDfa1_0(0x8000040000000L);
       case 111:
          return jjMoveStringLiteralDfa1_0(0x800020008000L);
       case 113:
-         return jjMoveStringLiteralDfa1_0(0x8000000000000L);
+         return jjMoveStringLiteralDfa1_0(0x200000000000000L);
       case 114:
          return jjMoveStringLiteralDfa1_0(0x10003000000L);
       case 115:
-         return jjMoveStringLiteralDfa1_0(0x280000004000L);
+         return jjMoveStringLiteralDfa1_0(0x4020280000004000L);
       case 116:
          return jjMoveStringLiteralDfa1_0(0x2000000000L);
       case 117:
          return jjMoveStringLiteralDfa1_0(0x1000000000000L);
       case 119:
-         return jjMoveStringLiteralDfa1_0(0x4100000L);
+         return jjMoveStringLiteralDfa1_0(0x10000004100000L);
       default :
          return jjMoveNfa_0(3, 0);
    }
@@ -167,9 +167,9 @@ static private final int jjMoveStringLiteralDfa1_0(long active0)
          }
          break;
       case 65:
-         return jjMoveStringLiteralDfa2_0(active0, 0x4004000000000L);
+         return jjMoveStringLiteralDfa2_0(active0, 0x100004000000000L);
       case 69:
-         return jjMoveStringLiteralDfa2_0(active0, 0x10003000000L);
+         return jjMoveStringLiteralDfa2_0(active0, 0x4000010003000000L);
       case 70:
          if ((active0 & 0x8000L) != 0L)
          {
@@ -180,35 +180,35 @@ static private final int jjMoveStringLiteralDfa1_0(long active0)
       case 72:
          return jjMoveStringLiteralDfa2_0(active0, 0x20004000000L);
       case 73:
-         return jjMoveStringLiteralDfa2_0(active0, 0x22000000100000L);
+         return jjMoveStringLiteralDfa2_0(active0, 0x882000000100000L);
       case 76:
-         return jjMoveStringLiteralDfa2_0(active0, 0x40000000002000L);
+         return jjMoveStringLiteralDfa2_0(active0, 0x1000000000002000L);
       case 78:
          if ((active0 & 0x800000000000L) != 0L)
          {
             jjmatchedKind = 47;
             jjmatchedPos = 1;
          }
-         return jjMoveStringLiteralDfa2_0(active0, 0x81408010070000L);
+         return jjMoveStringLiteralDfa2_0(active0, 0x2001408010070000L);
       case 79:
-         return jjMoveStringLiteralDfa2_0(active0, 0x10240040000000L);
+         return jjMoveStringLiteralDfa2_0(active0, 0x408240040000000L);
       case 82:
          if ((active0 & 0x20000000L) != 0L)
          {
             jjmatchedKind = 29;
             jjmatchedPos = 1;
          }
-         return jjMoveStringLiteralDfa2_0(active0, 0x2008000000L);
+         return jjMoveStringLiteralDfa2_0(active0, 0x10002008000000L);
       case 84:
-         return jjMoveStringLiteralDfa2_0(active0, 0x80000000000L);
+         return jjMoveStringLiteralDfa2_0(active0, 0x20080000000000L);
       case 85:
-         return jjMoveStringLiteralDfa2_0(active0, 0x8000000004000L);
+         return jjMoveStringLiteralDfa2_0(active0, 0x204000000004000L);
       case 88:
-         return jjMoveStringLiteralDfa2_0(active0, 0x80000L);
+         return jjMoveStringLiteralDfa2_0(active0, 0x40000000080000L);
       case 97:
-         return jjMoveStringLiteralDfa2_0(active0, 0x4004000000000L);
+         return jjMoveStringLiteralDfa2_0(active0, 0x100004000000000L);
       case 101:
-         return jjMoveStringLiteralDfa2_0(active0, 0x10003000000L);
+         return jjMoveStringLiteralDfa2_0(active0, 0x4000010003000000L);
       case 102:
          if ((active0 & 0x8000L) != 0L)
          {
@@ -219,31 +219,31 @@ static private final int jjMoveStringLiteralDfa1_0(long active0)
       case 104:
          return jjMoveStringLiteralDfa2_0(active0, 0x20004000000L);
       case 105:
-         return jjMoveStringLiteralDfa2_0(active0, 0x22000000100000L);
+         return jjMoveStringLiteralDfa2_0(active0, 0x882000000100000L);
       case 108:
-         return jjMoveStringLiteralDfa2_0(active0, 0x40000000002000L);
+         return jjMoveStringLiteralDfa2_0(active0, 0x1000000000002000L);
       case 110:
          if ((active0 & 0x800000000000L) != 0L)
          {
             jjmatchedKind = 47;
             jjmatchedPos = 1;
          }
-         return jjMoveStringLiteralDfa2_0(active0, 0x81408010070000L);
+         return jjMoveStringLiteralDfa2_0(active0, 0x2001408010070000L);
       case 111:
-         return jjMoveStringLiteralDfa2_0(active0, 0x10240040000000L);
+         return jjMoveStringLiteralDfa2_0(active0, 0x408240040000000L);
       case 114:
          if ((active0 & 0x20000000L) != 0L)
          {
             jjmatchedKind = 29;
             jjmatchedPos = 1;
          }
-         return jjMoveStringLiteralDfa2_0(active0, 0x2008000000L);
+         return jjMoveStringLiteralDfa2_0(active0, 0x10002008000000L);
       case 116:
-         return jjMoveStringLiteralDfa2_0(active0, 0x80000000000L);
+         return jjMoveStringLiteralDfa2_0(active0, 0x20080000000000L);
       case 117:
-         return jjMoveStringLiteralDfa2_0(active0, 0x8000000004000L);
+         return jjMoveStringLiteralDfa2_0(active0, 0x204000000004000L);
       case 120:
-         return jjMoveStringLiteralDfa2_0(active0, 0x80000L);
+         return jjMoveStringLiteralDfa2_0(active0, 0x40000000080000L);
       default :
          break;
    }
@@ -260,7 +260,7 @@ static private final int jjMoveStringLiteralDfa2_0(long old0, long active0)
    switch(curChar)
    {
       case 65:
-         return jjMoveStringLiteralDfa3_0(active0, 0x30000002000L);
+         return jjMoveStringLiteralDfa3_0(active0, 0x20030000002000L);
       case 66:
          return jjMoveStringLiteralDfa3_0(active0, 0x4000L);
       case 67:
@@ -271,48 +271,55 @@ static private final int jjMoveStringLiteralDfa2_0(long old0, long active0)
             jjmatchedKind = 28;
             jjmatchedPos = 2;
          }
-         return jjMoveStringLiteralDfa3_0(active0, 0x10400000000000L);
+         return jjMoveStringLiteralDfa3_0(active0, 0x400400000000000L);
       case 69:
          return jjMoveStringLiteralDfa3_0(active0, 0x4000000L);
       case 73:
-         return jjMoveStringLiteralDfa3_0(active0, 0x89000000000000L);
+         return jjMoveStringLiteralDfa3_0(active0, 0x2211000000000000L);
       case 76:
-         if ((active0 & 0x40000000000000L) != 0L)
+         if ((active0 & 0x1000000000000000L) != 0L)
          {
-            jjmatchedKind = 54;
+            jjmatchedKind = 60;
             jjmatchedPos = 2;
          }
-         return jjMoveStringLiteralDfa3_0(active0, 0x4000000000L);
+         return jjMoveStringLiteralDfa3_0(active0, 0x4004000000000L);
       case 77:
-         return jjMoveStringLiteralDfa3_0(active0, 0x20000000000000L);
+         return jjMoveStringLiteralDfa3_0(active0, 0x800000000000000L);
       case 79:
          return jjMoveStringLiteralDfa3_0(active0, 0x40008000000L);
+      case 80:
+         return jjMoveStringLiteralDfa3_0(active0, 0x40000000000000L);
       case 81:
          return jjMoveStringLiteralDfa3_0(active0, 0x1000000L);
       case 82:
          return jjMoveStringLiteralDfa3_0(active0, 0x80000000000L);
       case 83:
-         return jjMoveStringLiteralDfa3_0(active0, 0x2000000020000L);
+         return jjMoveStringLiteralDfa3_0(active0, 0x88000000020000L);
       case 84:
          if ((active0 & 0x40000000L) != 0L)
          {
             jjmatchedKind = 30;
             jjmatchedPos = 2;
          }
-         return jjMoveStringLiteralDfa3_0(active0, 0x8002100000L);
+         else if ((active0 & 0x4000000000000000L) != 0L)
+         {
+            jjmatchedKind = 62;
+            jjmatchedPos = 2;
+         }
+         return jjMoveStringLiteralDfa3_0(active0, 0x2008002100000L);
       case 85:
          return jjMoveStringLiteralDfa3_0(active0, 0x202000000000L);
       case 86:
          return jjMoveStringLiteralDfa3_0(active0, 0x10000L);
       case 88:
-         if ((active0 & 0x4000000000000L) != 0L)
+         if ((active0 & 0x100000000000000L) != 0L)
          {
-            jjmatchedKind = 50;
+            jjmatchedKind = 56;
             jjmatchedPos = 2;
          }
          break;
       case 97:
-         return jjMoveStringLiteralDfa3_0(active0, 0x30000002000L);
+         return jjMoveStringLiteralDfa3_0(active0, 0x20030000002000L);
       case 98:
          return jjMoveStringLiteralDfa3_0(active0, 0x4000L);
       case 99:
@@ -323,43 +330,50 @@ static private final int jjMoveStringLiteralDfa2_0(long old0, long active0)
             jjmatchedKind = 28;
             jjmatchedPos = 2;
          }
-         return jjMoveStringLiteralDfa3_0(active0, 0x10400000000000L);
+         return jjMoveStringLiteralDfa3_0(active0, 0x400400000000000L);
       case 101:
          return jjMoveStringLiteralDfa3_0(active0, 0x4000000L);
       case 105:
-         return jjMoveStringLiteralDfa3_0(active0, 0x89000000000000L);
+         return jjMoveStringLiteralDfa3_0(active0, 0x2211000000000000L);
       case 108:
-         if ((active0 & 0x40000000000000L) != 0L)
+         if ((active0 & 0x1000000000000000L) != 0L)
          {
-            jjmatchedKind = 54;
+            jjmatchedKind = 60;
             jjmatchedPos = 2;
          }
-         return jjMoveStringLiteralDfa3_0(active0, 0x4000000000L);
+         return jjMoveStringLiteralDfa3_0(active0, 0x4004000000000L);
       case 109:
-         return jjMoveStringLiteralDfa3_0(active0, 0x20000000000000L);
+         return jjMoveStringLiteralDfa3_0(active0, 0x800000000000000L);
       case 111:
          return jjMoveStringLiteralDfa3_0(active0, 0x40008000000L);
+      case 112:
+         return jjMoveStringLiteralDfa3_0(active0, 0x40000000000000L);
       case 113:
          return jjMoveStringLiteralDfa3_0(active0, 0x1000000L);
       case 114:
          return jjMoveStringLiteralDfa3_0(active0, 0x80000000000L);
       case 115:
-         return jjMoveStringLiteralDfa3_0(active0, 0x2000000020000L);
+         return jjMoveStringLiteralDfa3_0(active0, 0x88000000020000L);
       case 116:
          if ((active0 & 0x40000000L) != 0L)
          {
             jjmatchedKind = 30;
             jjmatchedPos = 2;
          }
-         return jjMoveStringLiteralDfa3_0(active0, 0x8002100000L);
+         else if ((active0 & 0x4000000000000000L) != 0L)
+         {
+            jjmatchedKind = 62;
+            jjmatchedPos = 2;
+         }
+         return jjMoveStringLiteralDfa3_0(active0, 0x2008002100000L);
       case 117:
          return jjMoveStringLiteralDfa3_0(active0, 0x202000000000L);
       case 118:
          return jjMoveStringLiteralDfa3_0(active0, 0x10000L);
       case 120:
-         if ((active0 & 0x4000000000000L) != 0L)
+         if ((active0 & 0x100000000000000L) != 0L)
          {
-            jjmatchedKind = 50;
+            jjmatchedKind = 56;
             jjmatchedPos = 2;
          }
          break;
@@ -395,21 +409,28 @@ static private final int jjMoveStringLiteralDfa3_0(long old0, long active0)
          }
          break;
       case 73:
-         return jjMoveStringLiteralDfa4_0(active0, 0x30080000000000L);
+         return jjMoveStringLiteralDfa4_0(active0, 0xc00080000000000L);
+      case 75:
+         if ((active0 & 0x4000000000000L) != 0L)
+         {
+            jjmatchedKind = 50;
+            jjmatchedPos = 3;
+         }
+         break;
       case 76:
          if ((active0 & 0x10000000000L) != 0L)
          {
             jjmatchedKind = 40;
             jjmatchedPos = 3;
          }
-         return jjMoveStringLiteralDfa4_0(active0, 0x400000c0000L);
+         return jjMoveStringLiteralDfa4_0(active0, 0x400400000c0000L);
       case 77:
          if ((active0 & 0x8000000L) != 0L)
          {
             jjmatchedKind = 27;
             jjmatchedPos = 3;
          }
-         break;
+         return jjMoveStringLiteralDfa4_0(active0, 0x2000000000000L);
       case 81:
          return jjMoveStringLiteralDfa4_0(active0, 0x1000000000000L);
       case 82:
@@ -422,14 +443,16 @@ static private final int jjMoveStringLiteralDfa3_0(long old0, long active0)
       case 83:
          return jjMoveStringLiteralDfa4_0(active0, 0x4000002000L);
       case 84:
-         if ((active0 & 0x8000000000000L) != 0L)
+         if ((active0 & 0x200000000000000L) != 0L)
          {
-            jjmatchedKind = 51;
+            jjmatchedKind = 57;
             jjmatchedPos = 3;
          }
-         return jjMoveStringLiteralDfa4_0(active0, 0x82000000000000L);
+         return jjMoveStringLiteralDfa4_0(active0, 0x20b0000000000000L);
       case 85:
          return jjMoveStringLiteralDfa4_0(active0, 0x1000000L);
+      case 89:
+         return jjMoveStringLiteralDfa4_0(active0, 0x8000000000000L);
       case 99:
          return jjMoveStringLiteralDfa4_0(active0, 0x4000L);
       case 101:
@@ -447,21 +470,28 @@ static private final int jjMoveStringLiteralDfa3_0(long old0, long active0)
          }
          break;
       case 105:
-         return jjMoveStringLiteralDfa4_0(active0, 0x30080000000000L);
+         return jjMoveStringLiteralDfa4_0(active0, 0xc00080000000000L);
+      case 107:
+         if ((active0 & 0x4000000000000L) != 0L)
+         {
+            jjmatchedKind = 50;
+            jjmatchedPos = 3;
+         }
+         break;
       case 108:
          if ((active0 & 0x10000000000L) != 0L)
          {
             jjmatchedKind = 40;
             jjmatchedPos = 3;
          }
-         return jjMoveStringLiteralDfa4_0(active0, 0x400000c0000L);
+         return jjMoveStringLiteralDfa4_0(active0, 0x400400000c0000L);
       case 109:
          if ((active0 & 0x8000000L) != 0L)
          {
             jjmatchedKind = 27;
             jjmatchedPos = 3;
          }
-         break;
+         return jjMoveStringLiteralDfa4_0(active0, 0x2000000000000L);
       case 113:
          return jjMoveStringLiteralDfa4_0(active0, 0x1000000000000L);
       case 114:
@@ -474,14 +504,16 @@ static private final int jjMoveStringLiteralDfa3_0(long old0, long active0)
       case 115:
          return jjMoveStringLiteralDfa4_0(active0, 0x4000002000L);
       case 116:
-         if ((active0 & 0x8000000000000L) != 0L)
+         if ((active0 & 0x200000000000000L) != 0L)
          {
-            jjmatchedKind = 51;
+            jjmatchedKind = 57;
             jjmatchedPos = 3;
          }
-         return jjMoveStringLiteralDfa4_0(active0, 0x82000000000000L);
+         return jjMoveStringLiteralDfa4_0(active0, 0x20b0000000000000L);
       case 117:
          return jjMoveStringLiteralDfa4_0(active0, 0x1000000L);
+      case 121:
+         return jjMoveStringLiteralDfa4_0(active0, 0x8000000000000L);
       default :
          break;
    }
@@ -497,6 +529,8 @@ static private final int jjMoveStringLiteralDfa4_0(long old0, long active0)
    }
    switch(curChar)
    {
+      case 65:
+         return jjMoveStringLiteralDfa5_0(active0, 0x42000000000000L);
       case 67:
          return jjMoveStringLiteralDfa5_0(active0, 0x200000000000L);
       case 69:
@@ -510,17 +544,17 @@ static private final int jjMoveStringLiteralDfa4_0(long old0, long active0)
             jjmatchedKind = 38;
             jjmatchedPos = 4;
          }
-         return jjMoveStringLiteralDfa5_0(active0, 0x40000000000L);
+         return jjMoveStringLiteralDfa5_0(active0, 0x10040000000000L);
       case 70:
-         return jjMoveStringLiteralDfa5_0(active0, 0x10000000000000L);
+         return jjMoveStringLiteralDfa5_0(active0, 0x400000000000000L);
       case 71:
          return jjMoveStringLiteralDfa5_0(active0, 0x8000000000L);
       case 73:
-         return jjMoveStringLiteralDfa5_0(active0, 0x82000003000000L);
+         return jjMoveStringLiteralDfa5_0(active0, 0x2080000003000000L);
       case 76:
          return jjMoveStringLiteralDfa5_0(active0, 0x4000L);
       case 78:
-         return jjMoveStringLiteralDfa5_0(active0, 0x80000000000L);
+         return jjMoveStringLiteralDfa5_0(active0, 0x8080000000000L);
       case 82:
          return jjMoveStringLiteralDfa5_0(active0, 0x30000L);
       case 83:
@@ -529,11 +563,16 @@ static private final int jjMoveStringLiteralDfa4_0(long old0, long active0)
             jjmatchedKind = 13;
             jjmatchedPos = 4;
          }
+         else if ((active0 & 0x20000000000000L) != 0L)
+         {
+            jjmatchedKind = 53;
+            jjmatchedPos = 4;
+         }
          break;
       case 84:
-         if ((active0 & 0x20000000000000L) != 0L)
+         if ((active0 & 0x800000000000000L) != 0L)
          {
-            jjmatchedKind = 53;
+            jjmatchedKind = 59;
             jjmatchedPos = 4;
          }
          break;
@@ -546,6 +585,8 @@ static private final int jjMoveStringLiteralDfa4_0(long old0, long active0)
             jjmatchedPos = 4;
          }
          break;
+      case 97:
+         return jjMoveStringLiteralDfa5_0(active0, 0x42000000000000L);
       case 99:
          return jjMoveStringLiteralDfa5_0(active0, 0x200000000000L);
       case 101:
@@ -559,17 +600,17 @@ static private final int jjMoveStringLiteralDfa4_0(long old0, long active0)
             jjmatchedKind = 38;
             jjmatchedPos = 4;
          }
-         return jjMoveStringLiteralDfa5_0(active0, 0x40000000000L);
+         return jjMoveStringLiteralDfa5_0(active0, 0x10040000000000L);
       case 102:
-         return jjMoveStringLiteralDfa5_0(active0, 0x10000000000000L);
+         return jjMoveStringLiteralDfa5_0(active0, 0x400000000000000L);
       case 103:
          return jjMoveStringLiteralDfa5_0(active0, 0x8000000000L);
       case 105:
-         return jjMoveStringLiteralDfa5_0(active0, 0x82000003000000L);
+         return jjMoveStringLiteralDfa5_0(active0, 0x2080000003000000L);
       case 108:
          return jjMoveStringLiteralDfa5_0(active0, 0x4000L);
       case 110:
-         return jjMoveStringLiteralDfa5_0(active0, 0x80000000000L);
+         return jjMoveStringLiteralDfa5_0(active0, 0x8080000000000L);
       case 114:
          return jjMoveStringLiteralDfa5_0(active0, 0x30000L);
       case 115:
@@ -578,11 +619,16 @@ static private final int jjMoveStringLiteralDfa4_0(long old0, long active0)
             jjmatchedKind = 13;
             jjmatchedPos = 4;
          }
+         else if ((active0 & 0x20000000000000L) != 0L)
+         {
+            jjmatchedKind = 53;
+            jjmatchedPos = 4;
+         }
          break;
       case 116:
-         if ((active0 & 0x20000000000000L) != 0L)
+         if ((active0 & 0x800000000000000L) != 0L)
          {
-            jjmatchedKind = 53;
+            jjmatchedKind = 59;
             jjmatchedPos = 4;
          }
          break;
@@ -611,7 +657,14 @@ static private final int jjMoveStringLiteralDfa5_0(long old0, long active0)
    switch(curChar)
    {
       case 65:
-         return jjMoveStringLiteralDfa6_0(active0, 0x80040000004000L);
+         return jjMoveStringLiteralDfa6_0(active0, 0x2000040000004000L);
+      case 67:
+         if ((active0 & 0x8000000000000L) != 0L)
+         {
+            jjmatchedKind = 51;
+            jjmatchedPos = 5;
+         }
+         break;
       case 68:
          return jjMoveStringLiteralDfa6_0(active0, 0xc0000L);
       case 69:
@@ -633,8 +686,17 @@ static private final int jjMoveStringLiteralDfa5_0(long old0, long active0)
             jjmatchedPos = 5;
          }
          break;
+      case 73:
+         return jjMoveStringLiteralDfa6_0(active0, 0x40000000000000L);
       case 78:
-         return jjMoveStringLiteralDfa6_0(active0, 0x2000000000000L);
+         return jjMoveStringLiteralDfa6_0(active0, 0x80000000000000L);
+      case 80:
+         if ((active0 & 0x2000000000000L) != 0L)
+         {
+            jjmatchedKind = 49;
+            jjmatchedPos = 5;
+         }
+         break;
       case 82:
          return jjMoveStringLiteralDfa6_0(active0, 0x1000000L);
       case 83:
@@ -647,14 +709,23 @@ static private final int jjMoveStringLiteralDfa5_0(long old0, long active0)
          }
          break;
       case 89:
-         if ((active0 & 0x10000000000000L) != 0L)
+         if ((active0 & 0x400000000000000L) != 0L)
          {
-            jjmatchedKind = 52;
+            jjmatchedKind = 58;
             jjmatchedPos = 5;
          }
          break;
+      case 95:
+         return jjMoveStringLiteralDfa6_0(active0, 0x10000000000000L);
       case 97:
-         return jjMoveStringLiteralDfa6_0(active0, 0x80040000004000L);
+         return jjMoveStringLiteralDfa6_0(active0, 0x2000040000004000L);
+      case 99:
+         if ((active0 & 0x8000000000000L) != 0L)
+         {
+            jjmatchedKind = 51;
+            jjmatchedPos = 5;
+         }
+         break;
       case 100:
          return jjMoveStringLiteralDfa6_0(active0, 0xc0000L);
       case 101:
@@ -676,8 +747,17 @@ static private final int jjMoveStringLiteralDfa5_0(long old0, long active0)
             jjmatchedPos = 5;
          }
          break;
+      case 105:
+         return jjMoveStringLiteralDfa6_0(active0, 0x40000000000000L);
       case 110:
-         return jjMoveStringLiteralDfa6_0(active0, 0x2000000000000L);
+         return jjMoveStringLiteralDfa6_0(active0, 0x80000000000000L);
+      case 112:
+         if ((active0 & 0x2000000000000L) != 0L)
+         {
+            jjmatchedKind = 49;
+            jjmatchedPos = 5;
+         }
+         break;
       case 114:
          return jjMoveStringLiteralDfa6_0(active0, 0x1000000L);
       case 115:
@@ -690,9 +770,9 @@ static private final int jjMoveStringLiteralDfa5_0(long old0, long active0)
          }
          break;
       case 121:
-         if ((active0 & 0x10000000000000L) != 0L)
+         if ((active0 & 0x400000000000000L) != 0L)
          {
-            jjmatchedKind = 52;
+            jjmatchedKind = 58;
             jjmatchedPos = 5;
          }
          break;
@@ -712,7 +792,7 @@ static private final int jjMoveStringLiteralDfa6_0(long old0, long active0)
    switch(curChar)
    {
       case 67:
-         return jjMoveStringLiteralDfa7_0(active0, 0x2000000000000L);
+         return jjMoveStringLiteralDfa7_0(active0, 0x80000000000000L);
       case 69:
          if ((active0 & 0x40000L) != 0L)
          {
@@ -726,14 +806,19 @@ static private final int jjMoveStringLiteralDfa6_0(long old0, long active0)
          }
          return jjMoveStringLiteralDfa7_0(active0, 0x1010000L);
       case 76:
-         return jjMoveStringLiteralDfa7_0(active0, 0x80000000000000L);
+         return jjMoveStringLiteralDfa7_0(active0, 0x2000000000000000L);
       case 78:
          if ((active0 & 0x40000000000L) != 0L)
          {
             jjmatchedKind = 42;
             jjmatchedPos = 6;
          }
-         break;
+         else if ((active0 & 0x40000000000000L) != 0L)
+         {
+            jjmatchedKind = 54;
+            jjmatchedPos = 6;
+         }
+         return jjMoveStringLiteralDfa7_0(active0, 0x10000000000000L);
       case 82:
          if ((active0 & 0x8000000000L) != 0L)
          {
@@ -746,7 +831,7 @@ static private final int jjMoveStringLiteralDfa6_0(long old0, long active0)
       case 86:
          return jjMoveStringLiteralDfa7_0(active0, 0x2000000L);
       case 99:
-         return jjMoveStringLiteralDfa7_0(active0, 0x2000000000000L);
+         return jjMoveStringLiteralDfa7_0(active0, 0x80000000000000L);
       case 101:
          if ((active0 & 0x40000L) != 0L)
          {
@@ -760,14 +845,19 @@ static private final int jjMoveStringLiteralDfa6_0(long old0, long active0)
          }
          return jjMoveStringLiteralDfa7_0(active0, 0x1010000L);
       case 108:
-         return jjMoveStringLiteralDfa7_0(active0, 0x80000000000000L);
+         return jjMoveStringLiteralDfa7_0(active0, 0x2000000000000000L);
       case 110:
          if ((active0 & 0x40000000000L) != 0L)
          {
             jjmatchedKind = 42;
             jjmatchedPos = 6;
          }
-         break;
+         else if ((active0 & 0x40000000000000L) != 0L)
+         {
+            jjmatchedKind = 54;
+            jjmatchedPos = 6;
+         }
+         return jjMoveStringLiteralDfa7_0(active0, 0x10000000000000L);
       case 114:
          if ((active0 & 0x8000000000L) != 0L)
          {
@@ -810,6 +900,8 @@ static private final int jjMoveStringLiteralDfa7_0(long old0, long active0)
             jjmatchedPos = 7;
          }
          break;
+      case 79:
+         return jjMoveStringLiteralDfa8_0(active0, 0x10000000000000L);
       case 83:
          if ((active0 & 0x4000L) != 0L)
          {
@@ -818,14 +910,14 @@ static private final int jjMoveStringLiteralDfa7_0(long old0, long active0)
          }
          break;
       case 84:
-         if ((active0 & 0x2000000000000L) != 0L)
+         if ((active0 & 0x80000000000000L) != 0L)
          {
-            jjmatchedKind = 49;
+            jjmatchedKind = 55;
             jjmatchedPos = 7;
          }
          break;
       case 86:
-         return jjMoveStringLiteralDfa8_0(active0, 0x80000000000000L);
+         return jjMoveStringLiteralDfa8_0(active0, 0x2000000000000000L);
       case 100:
          if ((active0 & 0x1000000L) != 0L)
          {
@@ -840,6 +932,8 @@ static private final int jjMoveStringLiteralDfa7_0(long old0, long active0)
             jjmatchedPos = 7;
          }
          break;
+      case 111:
+         return jjMoveStringLiteralDfa8_0(active0, 0x10000000000000L);
       case 115:
          if ((active0 & 0x4000L) != 0L)
          {
@@ -848,14 +942,14 @@ static private final int jjMoveStringLiteralDfa7_0(long old0, long active0)
          }
          break;
       case 116:
-         if ((active0 & 0x2000000000000L) != 0L)
+         if ((active0 & 0x80000000000000L) != 0L)
          {
-            jjmatchedKind = 49;
+            jjmatchedKind = 55;
             jjmatchedPos = 7;
          }
          break;
       case 118:
-         return jjMoveStringLiteralDfa8_0(active0, 0x80000000000000L);
+         return jjMoveStringLiteralDfa8_0(active0, 0x2000000000000000L);
       default :
          break;
    }
@@ -872,13 +966,17 @@ static private final int jjMoveStringLiteralDfa8_0(long old0, long active0)
    switch(curChar)
    {
       case 65:
-         return jjMoveStringLiteralDfa9_0(active0, 0x80000000000000L);
+         return jjMoveStringLiteralDfa9_0(active0, 0x2000000000000000L);
       case 73:
          return jjMoveStringLiteralDfa9_0(active0, 0x10000L);
+      case 83:
+         return jjMoveStringLiteralDfa9_0(active0, 0x10000000000000L);
       case 97:
-         return jjMoveStringLiteralDfa9_0(active0, 0x80000000000000L);
+         return jjMoveStringLiteralDfa9_0(active0, 0x2000000000000000L);
       case 105:
          return jjMoveStringLiteralDfa9_0(active0, 0x10000L);
+      case 115:
+         return jjMoveStringLiteralDfa9_0(active0, 0x10000000000000L);
       default :
          break;
    }
@@ -895,7 +993,7 @@ static private final int jjMoveStringLiteralDfa9_0(long old0, long active0)
    switch(curChar)
    {
       case 76:
-         return jjMoveStringLiteralDfa10_0(active0, 0x80000000000000L);
+         return jjMoveStringLiteralDfa10_0(active0, 0x2000000000000000L);
       case 83:
          if ((active0 & 0x10000L) != 0L)
          {
@@ -903,8 +1001,10 @@ static private final int jjMoveStringLiteralDfa9_0(long old0, long active0)
             jjmatchedPos = 9;
          }
          break;
+      case 89:
+         return jjMoveStringLiteralDfa10_0(active0, 0x10000000000000L);
       case 108:
-         return jjMoveStringLiteralDfa10_0(active0, 0x80000000000000L);
+         return jjMoveStringLiteralDfa10_0(active0, 0x2000000000000000L);
       case 115:
          if ((active0 & 0x10000L) != 0L)
          {
@@ -912,6 +1012,8 @@ static private final int jjMoveStringLiteralDfa9_0(long old0, long active0)
             jjmatchedPos = 9;
          }
          break;
+      case 121:
+         return jjMoveStringLiteralDfa10_0(active0, 0x10000000000000L);
       default :
          break;
    }
@@ -927,10 +1029,14 @@ static private final int jjMoveStringLiteralDfa10_0(long old0, long active0)
    }
    switch(curChar)
    {
+      case 78:
+         return jjMoveStringLiteralDfa11_0(active0, 0x10000000000000L);
       case 85:
-         return jjMoveStringLiteralDfa11_0(active0, 0x80000000000000L);
+         return jjMoveStringLiteralDfa11_0(active0, 0x2000000000000000L);
+      case 110:
+         return jjMoveStringLiteralDfa11_0(active0, 0x10000000000000L);
       case 117:
-         return jjMoveStringLiteralDfa11_0(active0, 0x80000000000000L);
+         return jjMoveStringLiteralDfa11_0(active0, 0x2000000000000000L);
       default :
          break;
    }
@@ -946,17 +1052,31 @@ static private final int jjMoveStringLiteralDfa11_0(long old0, long active0)
    }
    switch(curChar)
    {
+      case 67:
+         if ((active0 & 0x10000000000000L) != 0L)
+         {
+            jjmatchedKind = 52;
+            jjmatchedPos = 11;
+         }
+         break;
       case 69:
-         if ((active0 & 0x80000000000000L) != 0L)
+         if ((active0 & 0x2000000000000000L) != 0L)
          {
-            jjmatchedKind = 55;
+            jjmatchedKind = 61;
+            jjmatchedPos = 11;
+         }
+         break;
+      case 99:
+         if ((active0 & 0x10000000000000L) != 0L)
+         {
+            jjmatchedKind = 52;
             jjmatchedPos = 11;
          }
          break;
       case 101:
-         if ((active0 & 0x80000000000000L) != 0L)
+         if ((active0 & 0x2000000000000000L) != 0L)
          {
-            jjmatchedKind = 55;
+            jjmatchedKind = 61;
             jjmatchedPos = 11;
          }
          break;
@@ -1027,8 +1147,8 @@ static private final int jjMoveNfa_0(int startState, int curPos)
                case 3:
                   if ((0x3ff000000000000L & l) != 0L)
                   {
-                     if (kind > 56)
-                        kind = 56;
+                     if (kind > 63)
+                        kind = 63;
                      jjCheckNAdd(5);
                   }
                   else if (curChar == 34)
@@ -1059,8 +1179,8 @@ static private final int jjMoveNfa_0(int startState, int curPos)
                case 5:
                   if ((0x3ff000000000000L & l) == 0L)
                      break;
-                  if (kind > 56)
-                     kind = 56;
+                  if (kind > 63)
+                     kind = 63;
                   jjCheckNAdd(5);
                   break;
                case 7:
@@ -1068,8 +1188,8 @@ static private final int jjMoveNfa_0(int startState, int curPos)
                      jjAddStates(0, 1);
                   break;
                case 8:
-                  if ((0x3ff000000000000L & l) != 0L && kind > 57)
-                     kind = 57;
+                  if ((0x3ff000000000000L & l) != 0L && kind > 64)
+                     kind = 64;
                   break;
                case 9:
                   if (curChar == 39)
@@ -1084,8 +1204,8 @@ static private final int jjMoveNfa_0(int startState, int curPos)
                      jjCheckNAddTwoStates(11, 12);
                   break;
                case 12:
-                  if (curChar == 39 && kind > 58)
-                     kind = 58;
+                  if (curChar == 39 && kind > 65)
+                     kind = 65;
                   break;
                case 13:
                   if (curChar == 34)
@@ -1096,8 +1216,8 @@ static private final int jjMoveNfa_0(int startState, int curPos)
                      jjCheckNAddTwoStates(14, 15);
                   break;
                case 15:
-                  if (curChar == 34 && kind > 59)
-                     kind = 59;
+                  if (curChar == 34 && kind > 66)
+                     kind = 66;
                   break;
                default : break;
             }
@@ -1130,8 +1250,8 @@ static private final int jjMoveNfa_0(int startState, int curPos)
                      jjCheckNAddTwoStates(7, 8);
                   break;
                case 8:
-                  if ((0x7fffffe07fffffeL & l) != 0L && kind > 57)
-                     kind = 57;
+                  if ((0x7fffffe07fffffeL & l) != 0L && kind > 64)
+                     kind = 64;
                   break;
                case 10:
                   if ((0x7fffffe07fffffeL & l) != 0L)
@@ -1305,15 +1425,16 @@ public static final String[] jjstrLiteralImages = {
 "\54", null, null, null, null, null, null, null, null, "\72\75", null, null, null, 
 null, null, null, null, null, null, "\76", "\74", "\75", "\76\75", "\74\75", 
 "\74\76", null, null, null, null, null, null, null, "\52", null, null, null, null, null, 
-null, null, null, null, null, null, null, null, null, null, null, };
+null, null, null, null, null, null, null, null, null, null, null, null, null, null, 
+null, null, null, null, };
 public static final String[] lexStateNames = {
    "DEFAULT", 
 };
 static final long[] jjtoToken = {
-   0x1fffffffffffffc1L, 
+   0xffffffffffffffc1L, 0xfL, 
 };
 static final long[] jjtoSkip = {
-   0x3eL, 
+   0x3eL, 0x0L, 
 };
 static protected SimpleCharStream input_stream;
 static private final int[] jjrounds = new int[41];
@@ -1399,9 +1520,9 @@ public static Token getNextToken()
    jjmatchedKind = 0x7fffffff;
    jjmatchedPos = 0;
    curPos = jjMoveStringLiteralDfa0_0();
-   if (jjmatchedPos == 0 && jjmatchedKind > 60)
+   if (jjmatchedPos == 0 && jjmatchedKind > 67)
    {
-      jjmatchedKind = 60;
+      jjmatchedKind = 67;
    }
    if (jjmatchedKind != 0x7fffffff)
    {
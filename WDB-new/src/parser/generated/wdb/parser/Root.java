@@ -6,9 +6,12 @@ import java.util.ArrayList;
 
 import wdb.*;
 import wdb.metadata.IndexSelectResult;
+import wdb.metadata.Predicate;
 import wdb.metadata.WDBObject;
 
 public class Root extends SimpleNode {
+  protected transient Predicate predicate;
+
   public Root(int id) {
     super(id);
   }
@@ -21,10 +24,20 @@ public class Root extends SimpleNode {
 	  SimpleNode n = (SimpleNode)children[0];
 	  return n.filterObjectsWithIndexes(da, indexes);
   }
+  /**
+   * @return the compiled expression, compiled on first use
+   */
+  public Predicate getPredicate()
+  {
+	if(this.predicate == null)
+	{
+		this.predicate = Predicate.compile(this);
+	}
+	return this.predicate;
+  }
   public boolean eval(SleepyCatDataAdapter da, WDBObject wdbO) throws Exception
   {
-  	SimpleNode n = (SimpleNode)children[0];
-  	return n.eval(da, wdbO);
+  	return this.getPredicate().eval(da, wdbO);
   }
 
 }
@@ -0,0 +1,160 @@
+package wdb;
+
+import wdb.metadata.*;
+import wdb.parser.*;
+
+import java.io.File;
+import java.io.StringReader;
+import java.util.*;
+
+/**
+ * Times an unindexed search with one scan thread and with several, and
+ * shows how evenly the extent is split. Half of the objects get random
+ * UIDs like the ones stored before the UID sequence, the other half
+ * consecutive ones, so an even split of the UID range would put most of
+ * the objects into a single range.
+ *
+ * From WDB-new, with je.jar and the compiled classes on the class path:
+ *   javac -d build/tests -cp build/classes:lib/je.jar tests/wdb/ScanBenchmark.java
+ *   java -cp build/tests:build/classes:lib/je.jar wdb.ScanBenchmark [objects] [threads]
+ *
+ * The defaults are 200000 objects and as many threads as processors; pass
+ * 1000000 for a class of a million objects. The times only mean something
+ * on a machine with several cores, and no speedup has been measured yet.
+ */
+public class ScanBenchmark {
+	private static final int RUNS = 3;
+
+	public static void main(String[] args) throws Exception
+	{
+		int objects = (args.length > 0) ? Integer.parseInt(args[0]) : 200000;
+		int threads = (args.length > 1) ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+		File home = File.createTempFile("scanbenchmark", "");
+		home.delete();
+		home.mkdir();
+		SleepyCatDataBase scdb = new SleepyCatDataBase(home.getPath());
+		try
+		{
+			scdb.openDb("scanbenchmark");
+			int[] uids = load(scdb, objects);
+			Arrays.sort(uids);
+			printSplits(scdb, uids, threads * SleepyCatDataAdapter.PARTITIONS_PER_THREAD);
+
+			SimpleNode expression = parseCondition("from item retrieve num where num >= 0 and label <> \"none\";");
+			//First run reads everything into the cache
+			time(scdb, 1, expression);
+			long single = time(scdb, 1, expression);
+			long parallel = time(scdb, threads, expression);
+			System.out.println(String.format("1 thread:   %6d ms", single));
+			System.out.println(String.format("%d threads: %6d ms", threads, parallel));
+			System.out.println(String.format("speedup:    %6.2f", (double)single / Math.max(parallel, 1)));
+		}
+		finally
+		{
+			scdb.closeDb();
+			File[] files = home.listFiles();
+			for(int i = 0; i < files.length; i++)
+			{
+				files[i].delete();
+			}
+			home.delete();
+		}
+	}
+
+	private static int[] load(SleepyCatDataBase scdb, int objects) throws Exception
+	{
+		SleepyCatDataAdapter scda = scdb.newTransaction();
+		ClassDef item = new ClassDef();
+		item.name = "item";
+		item.addAttribute(new DVA("num", null, null, "INTEGER", null, null));
+		item.addAttribute(new DVA("label", null, null, "STRING", null, null));
+		scda.putClass(item);
+		scda.commit();
+
+		//Random UIDs stay clear of the consecutive ones
+		Random random = new Random(42);
+		HashSet<Integer> used = new HashSet<Integer>();
+		int[] uids = new int[objects];
+		for(int i = 0; i < objects; i++)
+		{
+			Integer uid = new Integer(i + 1);
+			if(i % 2 == 0)
+			{
+				do
+				{
+					uid = new Integer(random.nextInt());
+				}
+				while(uid.intValue() >= 0 && uid.intValue() <= objects || !used.add(uid));
+			}
+			uids[i] = uid.intValue();
+
+			scda = scdb.newTransaction();
+			WDBObject object = new WDBObject(new Hashtable<String, Integer>(), new Hashtable<String, Integer>(), new Hashtable<String, EvaReferences>(), new Hashtable<String, Object>(), "item", uid);
+			object.setDvaValue("num", new Integer(i), scda);
+			object.setDvaValue("label", "item " + i, scda);
+			object.commit(scda);
+			scda.commit();
+		}
+		return uids;
+	}
+
+	//Largest range of an even split of the UID range against the sampled split
+	private static void printSplits(SleepyCatDataBase scdb, int[] uids, int partitions) throws Exception
+	{
+		SleepyCatDataAdapter scda = scdb.newTransaction();
+		Integer classId = scdb.getClassId("item", null);
+		scda.commit();
+
+		long low = uids[0];
+		long span = (long)uids[uids.length - 1] - low + 1;
+		int[] even = new int[partitions];
+		for(int i = 0; i < uids.length; i++)
+		{
+			even[(int)((uids[i] - low) * partitions / span)]++;
+		}
+
+		int[] splits = scdb.getUidSplits(classId, partitions);
+		int[] sampled = new int[splits.length - 1];
+		for(int i = 0; i < uids.length; i++)
+		{
+			int range = Arrays.binarySearch(splits, 0, splits.length - 1, uids[i]);
+			sampled[(range >= 0) ? range : -range - 2]++;
+		}
+
+		System.out.println(String.format("largest of %d ranges: even split %d, sampled split %d objects (of %d)",
+				partitions, max(even), max(sampled), uids.length));
+	}
+
+	private static int max(int[] counts)
+	{
+		int max = 0;
+		for(int i = 0; i < counts.length; i++)
+		{
+			max = Math.max(max, counts[i]);
+		}
+		return max;
+	}
+
+	private static SimpleNode parseCondition(String query) throws Exception
+	{
+		QueryParser parser = new QueryParser(new StringReader(query));
+		return ((RetrieveQuery)parser.getNextQuery()).expression;
+	}
+
+	//Best of a few runs, in milliseconds
+	private static long time(SleepyCatDataBase scdb, int threads, SimpleNode expression) throws Exception
+	{
+		scdb.setScanParallelism(threads);
+		long best = Long.MAX_VALUE;
+		for(int run = 0; run < RUNS; run++)
+		{
+			SleepyCatDataAdapter scda = scdb.newTransaction();
+			long start = System.nanoTime();
+			scda.getClass("item").search(expression, scda);
+			best = Math.min(best, (System.nanoTime() - start) / 1000000);
+			scda.commit();
+		}
+		return best;
+	}
+}
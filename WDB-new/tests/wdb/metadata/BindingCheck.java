@@ -0,0 +1,286 @@
+package wdb.metadata;
+
+import com.sleepycat.bind.EntryBinding;
+import com.sleepycat.bind.serial.SerialBinding;
+import com.sleepycat.bind.serial.StoredClassCatalog;
+import com.sleepycat.je.Database;
+import com.sleepycat.je.DatabaseConfig;
+import com.sleepycat.je.DatabaseEntry;
+import com.sleepycat.je.Environment;
+import com.sleepycat.je.EnvironmentConfig;
+
+import java.io.File;
+import java.util.*;
+
+/**
+ * Writes sample objects and classes with the old serial format and with
+ * WDBObjectBinding and ClassDefBinding, checks every copy reads back the
+ * same as the sample and prints the record sizes of both formats. EVA
+ * references have to come back in the order they were added.
+ *
+ * From WDB-new, with je.jar and the compiled classes on the class path:
+ *   javac -d build/tests -cp build/classes:lib/je.jar tests/wdb/metadata/BindingCheck.java
+ *   java -cp build/tests:build/classes:lib/je.jar wdb.metadata.BindingCheck
+ *
+ * Exits with status 1 if a check fails.
+ */
+public class BindingCheck {
+	private static StoredClassCatalog classCatalog;
+	private static int failures;
+
+	public static void main(String[] args) throws Exception
+	{
+		File home = File.createTempFile("bindingcheck", "");
+		home.delete();
+		home.mkdir();
+		EnvironmentConfig envConfig = new EnvironmentConfig();
+		envConfig.setAllowCreate(true);
+		Environment env = new Environment(home, envConfig);
+		DatabaseConfig dbConfig = new DatabaseConfig();
+		dbConfig.setAllowCreate(true);
+		Database catalogDb = env.openDatabase(null, "class_catalog", dbConfig);
+		classCatalog = new StoredClassCatalog(catalogDb);
+		try
+		{
+			EntryBinding serialObjects = new SerialBinding(classCatalog, WDBObject.class);
+			EntryBinding serialClasses = new SerialBinding(classCatalog, ClassDef.class);
+			WDBObjectBinding tupleObjects = new WDBObjectBinding(classCatalog);
+			ClassDefBinding tupleClasses = new ClassDefBinding(classCatalog);
+
+			System.out.println("record                     serial  tuple");
+			check("ClassDef", sampleClass(), serialClasses, tupleClasses);
+			check("SubclassDef", sampleSubclass(), serialClasses, tupleClasses);
+			check("WDBObject", sampleObject(0), serialObjects, tupleObjects);
+			check("WDBObject, 100 EVA refs", sampleObject(100), serialObjects, tupleObjects);
+			check("WDBObject, 10000 EVA refs", sampleObject(10000), serialObjects, tupleObjects);
+			checkReferenceOrder();
+		}
+		finally
+		{
+			classCatalog.close();
+			env.close();
+			File[] files = home.listFiles();
+			for(int i = 0; i < files.length; i++)
+			{
+				files[i].delete();
+			}
+			home.delete();
+		}
+
+		if(failures > 0)
+		{
+			System.out.println(failures + " check(s) failed");
+			System.exit(1);
+		}
+		System.out.println("All records survived the round trip");
+	}
+
+	private static void check(String label, Object sample, EntryBinding serial, EntryBinding tuple)
+	{
+		DatabaseEntry serialEntry = new DatabaseEntry();
+		serial.objectToEntry(sample, serialEntry);
+		DatabaseEntry tupleEntry = new DatabaseEntry();
+		tuple.objectToEntry(sample, tupleEntry);
+
+		String expected = describe(sample);
+		if(!expected.equals(describe(serial.entryToObject(serialEntry))))
+		{
+			System.out.println(label + ": serial copy differs");
+			failures++;
+		}
+		if(!expected.equals(describe(tuple.entryToObject(tupleEntry))))
+		{
+			System.out.println(label + ": tuple copy differs");
+			failures++;
+		}
+		//Old serial records have to stay readable through the tuple binding
+		if(!expected.equals(describe(tuple.entryToObject(serialEntry))))
+		{
+			System.out.println(label + ": serial record read by the tuple binding differs");
+			failures++;
+		}
+		System.out.println(String.format("%-26s %6d %6d", label, serialEntry.getSize(), tupleEntry.getSize()));
+	}
+
+	//RETRIEVE prints the targets of an EVA in the order they were added
+	private static void checkReferenceOrder()
+	{
+		EvaReferences references = new EvaReferences();
+		references.add("project", 30, true);
+		references.add("current_project", 20, true);
+		references.add("project", 10, true);
+		references.add("project", 30, true);
+		references.add("project", 20, false);
+		references.add("project", 10, false);
+		references.remove("current_project", 20);
+		references.remove("project", 10);
+		StringBuffer order = new StringBuffer();
+		for(int i = 0; i < references.size(); i++)
+		{
+			order.append(references.getClassName(i)).append(':').append(references.getUid(i)).append(' ');
+		}
+		if(!order.toString().equals("project:30 project:20 project:10 ")
+				|| !references.contains("project", 10) || references.contains("current_project", 20))
+		{
+			System.out.println("EVA references out of order: " + order);
+			failures++;
+		}
+	}
+
+	private static ClassDef sampleClass()
+	{
+		ClassDef classDef = new ClassDef();
+		classDef.name = "person";
+		classDef.comment = "Persons related to the company";
+		classDef.addAttribute(new DVA("person_id", null, Boolean.TRUE, "INTEGER", null, null));
+		classDef.addAttribute(new DVA("first_name", "Given name", Boolean.TRUE, "STRING", new Integer(20), null));
+		classDef.addAttribute(new DVA("us_citizen", null, Boolean.FALSE, "BOOLEAN", null, Boolean.TRUE));
+		classDef.addAttribute(new DVA("zipcode", null, null, "INTEGER", null, new Integer(78705)));
+		EVA spouse = new EVA();
+		spouse.name = "spouse";
+		spouse.comment = "Person's spouse if married";
+		spouse.required = Boolean.FALSE;
+		spouse.baseClassName = "person";
+		spouse.inverseEVA = "spouse";
+		spouse.cardinality = EVA.SINGLEVALUED;
+		classDef.addAttribute(spouse);
+		EVA children = new EVA();
+		children.name = "children";
+		children.baseClassName = "person";
+		children.inverseEVA = "parents";
+		children.cardinality = EVA.MULTIVALUED;
+		children.distinct = Boolean.TRUE;
+		children.max = new Integer(2);
+		classDef.addAttribute(children);
+
+		IndexDef byName = new IndexDef();
+		byName.name = "personname";
+		byName.className = "person";
+		byName.comment = "Last then first name";
+		byName.addDva("last_name");
+		byName.addDva("first_name");
+		classDef.indexes.add(byName);
+		IndexDef byCitizen = new IndexDef();
+		byCitizen.name = "personcitizen";
+		byCitizen.className = "person";
+		byCitizen.unique = Boolean.FALSE;
+		byCitizen.bitmap = Boolean.TRUE;
+		byCitizen.addDva("us_citizen");
+		classDef.indexes.add(byCitizen);
+		return classDef;
+	}
+
+	private static SubclassDef sampleSubclass()
+	{
+		SubclassDef subclassDef = new SubclassDef();
+		subclassDef.name = "interim_manager";
+		subclassDef.addAttribute(new DVA("acting_since", null, null, "INTEGER", null, null));
+		subclassDef.addSuperClass("manager");
+		subclassDef.addSuperClass("project_employee");
+		subclassDef.ancestors = new HashSet<String>(Arrays.asList("manager", "project_employee", "employee", "person"));
+		return subclassDef;
+	}
+
+	private static WDBObject sampleObject(int references)
+	{
+		Hashtable<String, Integer> parents = new Hashtable<String, Integer>();
+		parents.put("person", new Integer(17));
+		Hashtable<String, Integer> children = new Hashtable<String, Integer>();
+		children.put("manager", new Integer(4031));
+		Hashtable<String, EvaReferences> evaObjects = new Hashtable<String, EvaReferences>();
+		if(references > 0)
+		{
+			EvaReferences projects = new EvaReferences();
+			for(int i = 0; i < references; i++)
+			{
+				//Not in UID order, the order has to survive the round trip
+				projects.add((i % 3 == 0) ? "current_project" : "project", 1000 + 7 * (i * 37 % references), true);
+			}
+			evaObjects.put("current_projects", projects);
+			EvaReferences manager = new EvaReferences();
+			manager.add("manager", 8, true);
+			evaObjects.put("employee_manager", manager);
+		}
+		Hashtable<String, Object> dvaValues = new Hashtable<String, Object>();
+		dvaValues.put("employee_id", new Integer(101));
+		dvaValues.put("salary", new Integer(70200));
+		dvaValues.put("salary_exception", Boolean.TRUE);
+		dvaValues.put("title", "Senior \"Engineer\"");
+		return new WDBObject(parents, children, evaObjects, dvaValues, "employee", new Integer(3));
+	}
+
+	//Everything the bindings store, in an order that does not depend on hashing
+	private static String describe(Object o)
+	{
+		StringBuffer text = new StringBuffer();
+		if(o instanceof WDBObject)
+		{
+			WDBObject object = (WDBObject)o;
+			text.append(object.getClassName()).append(':').append(object.getUid());
+			text.append(" parents ").append(new TreeMap<String, Integer>(object.getParents()));
+			text.append(" children ").append(new TreeMap<String, Integer>(object.getChildren()));
+			TreeMap<String, EvaReferences> evaObjects = new TreeMap<String, EvaReferences>(object.getEvaReferences());
+			for(Map.Entry<String, EvaReferences> eva : evaObjects.entrySet())
+			{
+				text.append(" eva ").append(eva.getKey()).append('[');
+				EvaReferences references = eva.getValue();
+				for(int i = 0; i < references.size(); i++)
+				{
+					text.append(references.getClassName(i)).append(':').append(references.getUid(i)).append(' ');
+				}
+				text.append(']');
+			}
+			TreeMap<String, Object> dvaValues = new TreeMap<String, Object>(object.getDvaValues());
+			for(Map.Entry<String, Object> dva : dvaValues.entrySet())
+			{
+				text.append(" dva ").append(dva.getKey()).append('=').append(describeValue(dva.getValue()));
+			}
+		}
+		else
+		{
+			ClassDef classDef = (ClassDef)o;
+			text.append(classDef.getClass().getSimpleName()).append(' ').append(classDef.name);
+			text.append(" \"").append(classDef.comment).append('"');
+			for(int i = 0; i < classDef.numberOfAttributes(); i++)
+			{
+				text.append(' ').append(describeAttribute(classDef.getAttribute(i)));
+			}
+			IndexDef[] indexes = classDef.getIndexes();
+			for(int i = 0; i < indexes.length; i++)
+			{
+				IndexDef index = indexes[i];
+				text.append(" index ").append(index.name).append(' ').append(index.className);
+				text.append(" \"").append(index.comment).append("\" ").append(index.unique);
+				text.append(' ').append(index.bitmap).append(' ').append(index.getDvas());
+			}
+			if(classDef instanceof SubclassDef)
+			{
+				SubclassDef subclassDef = (SubclassDef)classDef;
+				for(int i = 0; i < subclassDef.numberOfSuperClasses(); i++)
+				{
+					text.append(" super ").append(subclassDef.getSuperClass(i));
+				}
+				text.append(" ancestors ");
+				text.append((subclassDef.ancestors == null) ? null : new TreeSet<String>(subclassDef.ancestors));
+			}
+		}
+		return text.toString();
+	}
+
+	private static String describeAttribute(Attribute attribute)
+	{
+		String text = attribute.getClass().getSimpleName() + " " + attribute.name + " \"" + attribute.comment + "\" " + attribute.required;
+		if(attribute instanceof DVA)
+		{
+			DVA dva = (DVA)attribute;
+			return text + " " + dva.type + " " + dva.size + " " + describeValue(dva.initialValue);
+		}
+		EVA eva = (EVA)attribute;
+		return text + " " + eva.baseClassName + " " + eva.inverseEVA + " " + eva.cardinality + " " + eva.distinct + " " + eva.max;
+	}
+
+	private static String describeValue(Object value)
+	{
+		return (value == null) ? "null" : value.getClass().getSimpleName() + "(" + value + ")";
+	}
+}
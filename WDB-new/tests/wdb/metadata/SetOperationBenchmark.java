@@ -0,0 +1,160 @@
+package wdb.metadata;
+
+import java.util.*;
+
+/**
+ * Times the UID list operations of IndexSelectResult on random sorted
+ * lists of 1k, 100k and 1M UIDs: the nested loop over boxed UIDs that AND
+ * used to be, a plain merge, intersect() on lists of the same size and on
+ * a list 1000 times shorter (where it gallops), and difference().
+ *
+ * From WDB-new, with the compiled classes on the class path:
+ *   javac -d build/tests -cp build/classes tests/wdb/metadata/SetOperationBenchmark.java
+ *   java -cp build/tests:build/classes wdb.metadata.SetOperationBenchmark
+ *
+ * The nested loop is only timed up to 100k UIDs, it takes seconds there.
+ */
+public class SetOperationBenchmark {
+	private static final int[] SIZES = {1000, 100000, 1000000};
+	private static final int NESTED_LIMIT = 100000;
+	private static final int RUNS = 5;
+	private static int checksum;
+
+	public static void main(String[] args) throws Exception
+	{
+		Random random = new Random(1);
+		System.out.println("UIDs     nested boxed      merge  intersect  1/1000 merge  1/1000 intersect  difference");
+		for(int s = 0; s < SIZES.length; s++)
+		{
+			final int size = SIZES[s];
+			final int[] uids1 = randomUids(random, size, size * 4);
+			final int[] uids2 = randomUids(random, size, size * 4);
+			final int[] few = randomUids(random, Math.max(1, size / 1000), size * 4);
+			if(!Arrays.equals(merge(uids1, uids2), IndexSelectResult.intersect(uids1, uids2))
+					|| !Arrays.equals(merge(uids1, few), IndexSelectResult.intersect(uids1, few)))
+			{
+				throw new Exception("intersect() and the merge disagree for " + size + " UIDs");
+			}
+
+			String nested = "-";
+			if(size <= NESTED_LIMIT)
+			{
+				final ArrayList<Integer> list1 = boxed(uids1);
+				final ArrayList<Integer> list2 = boxed(uids2);
+				nested = format(time(new Runnable() {
+					public void run() { checksum += nestedLoop(list1, list2); }
+				}, (size < NESTED_LIMIT) ? RUNS : 1));
+			}
+			String merge = format(time(new Runnable() {
+				public void run() { checksum += merge(uids1, uids2).length; }
+			}, RUNS));
+			String intersect = format(time(new Runnable() {
+				public void run() { checksum += IndexSelectResult.intersect(uids1, uids2).length; }
+			}, RUNS));
+			String fewMerge = format(time(new Runnable() {
+				public void run() { checksum += merge(uids1, few).length; }
+			}, RUNS));
+			String fewIntersect = format(time(new Runnable() {
+				public void run() { checksum += IndexSelectResult.intersect(uids1, few).length; }
+			}, RUNS));
+			String difference = format(time(new Runnable() {
+				public void run() { checksum += IndexSelectResult.difference(uids1, uids2).length; }
+			}, RUNS));
+			System.out.println(String.format("%-8d %12s %10s %10s %13s %17s %11s",
+					size, nested, merge, intersect, fewMerge, fewIntersect, difference));
+		}
+		//Keeps the results from being optimized away
+		System.out.println("checksum " + checksum);
+	}
+
+	private static int[] randomUids(Random random, int count, int range)
+	{
+		TreeSet<Integer> uids = new TreeSet<Integer>();
+		while(uids.size() < count)
+		{
+			uids.add(new Integer(random.nextInt(range)));
+		}
+		int[] sorted = new int[count];
+		int i = 0;
+		for(Integer uid : uids)
+		{
+			sorted[i++] = uid.intValue();
+		}
+		return sorted;
+	}
+
+	private static ArrayList<Integer> boxed(int[] uids)
+	{
+		ArrayList<Integer> list = new ArrayList<Integer>(uids.length);
+		for(int i = 0; i < uids.length; i++)
+		{
+			list.add(new Integer(uids[i]));
+		}
+		return list;
+	}
+
+	//How AND used to intersect UID lists
+	private static int nestedLoop(ArrayList<Integer> list1, ArrayList<Integer> list2)
+	{
+		int count = 0;
+		for(Integer uid1 : list1)
+		{
+			for(Integer uid2 : list2)
+			{
+				if(uid1.equals(uid2))
+				{
+					count++;
+					break;
+				}
+			}
+		}
+		return count;
+	}
+
+	//Walks both sorted lists together, intersect() without galloping
+	private static int[] merge(int[] uids1, int[] uids2)
+	{
+		int i = 0;
+		int j = 0;
+		int count = 0;
+		int[] both = new int[Math.min(uids1.length, uids2.length)];
+		while(i < uids1.length && j < uids2.length)
+		{
+			if(uids1[i] < uids2[j])
+			{
+				i++;
+			}
+			else if(uids1[i] > uids2[j])
+			{
+				j++;
+			}
+			else
+			{
+				both[count++] = uids1[i];
+				i++;
+				j++;
+			}
+		}
+		return Arrays.copyOf(both, count);
+	}
+
+	//Average nanoseconds of a run, after a few runs to warm up
+	private static long time(Runnable operation, int runs)
+	{
+		for(int i = 0; i < Math.min(runs, 3); i++)
+		{
+			operation.run();
+		}
+		long start = System.nanoTime();
+		for(int i = 0; i < runs; i++)
+		{
+			operation.run();
+		}
+		return (System.nanoTime() - start) / runs;
+	}
+
+	private static String format(long nanos)
+	{
+		return (nanos >= 10000000) ? (nanos / 1000000) + " ms" : (nanos / 1000) + " us";
+	}
+}